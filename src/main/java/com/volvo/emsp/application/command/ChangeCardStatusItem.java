@@ -0,0 +1,20 @@
+package com.volvo.emsp.application.command;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * One item of a bulk card status change.
+ */
+public class ChangeCardStatusItem extends ChangeCardStatusCommand {
+
+    @Schema(examples = "123456789", description = "ID of the card to change")
+    private Long cardId;
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(Long cardId) {
+        this.cardId = cardId;
+    }
+}
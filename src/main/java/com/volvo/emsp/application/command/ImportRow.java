@@ -0,0 +1,19 @@
+package com.volvo.emsp.application.command;
+
+/**
+ * One row of a bulk import file.
+ *
+ * @param line    line number in the file, starting at 1
+ * @param command the parsed row, null when it could not be parsed
+ * @param error   why the row could not be parsed, null otherwise
+ */
+public record ImportRow<T>(long line, T command, String error) {
+
+    public static <T> ImportRow<T> of(long line, T command) {
+        return new ImportRow<>(line, command, null);
+    }
+
+    public static <T> ImportRow<T> invalid(long line, String error) {
+        return new ImportRow<>(line, null, error);
+    }
+}
@@ -18,6 +18,9 @@ public class AccountDTO {
     @Schema(description = "Last updated timestamp", example = "2020-01-01T00:00:00Z")
     private OffsetDateTime lastUpdated;
 
+    @Schema(description = "Version, also sent as the ETag", example = "3")
+    private Long version;
+
     public AccountDTO() {
     }
 
@@ -30,13 +33,15 @@ public class AccountDTO {
     }
 
     public static AccountDTO of(Account account) {
-        return new AccountDTO(
+        AccountDTO dto = new AccountDTO(
                 account.getAccountId(),
                 account.getEmail().toString(),
                 account.getContractId() == null ?  null : account.getContractId().toString(),
                 account.getStatus().name(),
                 account.getLastUpdated()
         );
+        dto.setVersion(account.getVersion());
+        return dto;
     }
 
     public Long getAccountId() {
@@ -59,6 +64,10 @@ public class AccountDTO {
         return lastUpdated;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public void setAccountId(Long accountId) {
         this.accountId = accountId;
     }
@@ -78,4 +87,8 @@ public class AccountDTO {
     public void setLastUpdated(OffsetDateTime lastUpdated) {
         this.lastUpdated = lastUpdated;
     }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,72 @@
+package com.volvo.emsp.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@SuppressWarnings("unused")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of one row of an account import")
+public class AccountImportResultDTO {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    @Schema(description = "Line number in the imported file", example = "1")
+    private final long line;
+
+    @Schema(description = "CREATED or REJECTED", example = "CREATED")
+    private final String status;
+
+    @Schema(description = "ID of the created account", example = "12391298439")
+    private final Long accountId;
+
+    @Schema(description = "Email of the row", example = "user@example.com")
+    private final String email;
+
+    @Schema(description = "EMAID of the created account", example = "CN8VO000ABCDEFA")
+    private final String emaid;
+
+    @Schema(description = "Why the row was rejected", example = "Email already exists: user@example.com")
+    private final String error;
+
+    private AccountImportResultDTO(long line, String status, Long accountId, String email, String emaid, String error) {
+        this.line = line;
+        this.status = status;
+        this.accountId = accountId;
+        this.email = email;
+        this.emaid = emaid;
+        this.error = error;
+    }
+
+    public static AccountImportResultDTO created(long line, Long accountId, String email, String emaid) {
+        return new AccountImportResultDTO(line, CREATED, accountId, email, emaid, null);
+    }
+
+    public static AccountImportResultDTO rejected(long line, String email, String error) {
+        return new AccountImportResultDTO(line, REJECTED, null, email, null, error);
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getEmaid() {
+        return emaid;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
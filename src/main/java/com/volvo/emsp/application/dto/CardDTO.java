@@ -27,6 +27,9 @@ public class CardDTO {
     @Schema(description = "Account ID", example = "12391298439")
     private Long accountId;     // 关联账户ID，可能为空
 
+    @Schema(description = "Version, also sent as the ETag", example = "3")
+    private Long version;
+
     public CardDTO() {}
 
     // --- getter 和 setter ---
@@ -95,6 +98,14 @@ public class CardDTO {
         this.accountId = accountId;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public static CardDTO of(Card card) {
         if (card == null) {
             return null;
@@ -108,6 +119,7 @@ public class CardDTO {
         dto.setLastUpdated(card.getLastUpdated());
         dto.setAccountId(card.getAccountId());
         dto.setCreatedAt(card.getCreatedAt());
+        dto.setVersion(card.getVersion());
         return dto;
     }
 
@@ -122,6 +134,7 @@ public class CardDTO {
                 ", lastUpdatedTime=" + lastUpdated +
                 ", createdTime=" + createdAt +
                 ", accountId=" + accountId +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,64 @@
+package com.volvo.emsp.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@SuppressWarnings("unused")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of one row of a card import")
+public class CardImportResultDTO {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    @Schema(description = "Line number in the imported file", example = "1")
+    private final long line;
+
+    @Schema(description = "CREATED or REJECTED", example = "CREATED")
+    private final String status;
+
+    @Schema(description = "ID of the created card", example = "123456789")
+    private final Long cardId;
+
+    @Schema(description = "RFID UID of the row", example = "04A2B3C4D5E6F7")
+    private final String rfidUid;
+
+    @Schema(description = "Why the row was rejected", example = "Card with RFID UID already exists: 04A2B3C4D5E6F7")
+    private final String error;
+
+    private CardImportResultDTO(long line, String status, Long cardId, String rfidUid, String error) {
+        this.line = line;
+        this.status = status;
+        this.cardId = cardId;
+        this.rfidUid = rfidUid;
+        this.error = error;
+    }
+
+    public static CardImportResultDTO created(long line, Long cardId, String rfidUid) {
+        return new CardImportResultDTO(line, CREATED, cardId, rfidUid, null);
+    }
+
+    public static CardImportResultDTO rejected(long line, String rfidUid, String error) {
+        return new CardImportResultDTO(line, REJECTED, null, rfidUid, error);
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public String getRfidUid() {
+        return rfidUid;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,57 @@
+package com.volvo.emsp.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.volvo.emsp.domain.model.enums.CardStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@SuppressWarnings("unused")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of one item of a bulk card status change")
+public class CardStatusChangeResultDTO {
+
+    public static final String UPDATED = "UPDATED";
+    public static final String REJECTED = "REJECTED";
+
+    @Schema(description = "ID of the card", example = "123456789")
+    private final Long cardId;
+
+    @Schema(description = "UPDATED or REJECTED", example = "UPDATED")
+    private final String result;
+
+    @Schema(description = "Status of the card after the change", example = "ASSIGNED")
+    private final CardStatus status;
+
+    @Schema(description = "Why the item was rejected", example = "Invalid status transition: CREATED → ACTIVATED")
+    private final String error;
+
+    private CardStatusChangeResultDTO(Long cardId, String result, CardStatus status, String error) {
+        this.cardId = cardId;
+        this.result = result;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static CardStatusChangeResultDTO updated(Long cardId, CardStatus status) {
+        return new CardStatusChangeResultDTO(cardId, UPDATED, status, null);
+    }
+
+    public static CardStatusChangeResultDTO rejected(Long cardId, String error) {
+        return new CardStatusChangeResultDTO(cardId, REJECTED, null, error);
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public CardStatus getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,45 @@
+package com.volvo.emsp.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a change feed, oldest change first. Pass {@link #getCursor()} back as {@code cursor} to get the changes
+ * that follow.
+ */
+@Schema(description = "Page of a change feed")
+public class ChangePage<T> {
+
+    private final List<T> content;
+
+    @Schema(description = "Cursor to resume from, the request cursor again when there were no changes",
+            example = "MTc1MDgxODg4MDoxMjM0NTY3ODk6MTIzOTEyOTg0Mzk")
+    private final String cursor;
+
+    @Schema(description = "Whether more changes are ready, fetch again right away when true", example = "false")
+    private final boolean hasMore;
+
+    public ChangePage(List<T> content, String cursor, boolean hasMore) {
+        this.content = content;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    public <R> ChangePage<R> map(Function<? super T, ? extends R> mapper) {
+        return new ChangePage<>(content.stream().<R>map(mapper).toList(), cursor, hasMore);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,35 @@
+package com.volvo.emsp.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset scan. Pass {@link #getNextCursor()} back as {@code cursor} to get the next page.
+ */
+@Schema(description = "Page of a cursor scan")
+public class CursorPage<T> {
+
+    private final List<T> content;
+
+    @Schema(description = "Cursor of the next page, null on the last page", example = "MTc1MDgxODg4MDoxMjM0NTY3ODk6MTIzOTEyOTg0Mzk")
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,67 @@
+package com.volvo.emsp.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * A {@link Slice} with an approximate total instead of an exact one, so fetching it runs no COUNT.
+ */
+@Schema(description = "Page without an exact total")
+public class EstimatedPage<T> {
+
+    private final List<T> content;
+    private final PageMetadata page;
+
+    public EstimatedPage(List<T> content, PageMetadata page) {
+        this.content = content;
+        this.page = page;
+    }
+
+    public static <T> EstimatedPage<T> of(Slice<T> slice, Long estimatedTotalElements) {
+        return new EstimatedPage<>(slice.getContent(), new PageMetadata(
+                slice.getSize(), slice.getNumber(), slice.hasNext(), estimatedTotalElements));
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public PageMetadata getPage() {
+        return page;
+    }
+
+    public static class PageMetadata {
+
+        private final int size;
+        private final int number;
+        private final boolean hasNext;
+
+        @Schema(description = "Approximate number of elements, null until it has been counted once", example = "1250000")
+        private final Long estimatedTotalElements;
+
+        public PageMetadata(int size, int number, boolean hasNext, Long estimatedTotalElements) {
+            this.size = size;
+            this.number = number;
+            this.hasNext = hasNext;
+            this.estimatedTotalElements = estimatedTotalElements;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public boolean isHasNext() {
+            return hasNext;
+        }
+
+        public Long getEstimatedTotalElements() {
+            return estimatedTotalElements;
+        }
+    }
+}
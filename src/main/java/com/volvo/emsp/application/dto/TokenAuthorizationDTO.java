@@ -0,0 +1,53 @@
+package com.volvo.emsp.application.dto;
+
+import com.volvo.emsp.domain.model.enums.AccountStatus;
+import com.volvo.emsp.domain.model.enums.CardStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@SuppressWarnings("unused")
+@Schema(description = "Whether a charge point may start a session for an RFID token")
+public class TokenAuthorizationDTO {
+
+    @Schema(description = "RFID UID of the card", example = "04A2B3C4D5E6F7")
+    private final String rfidUid;
+
+    @Schema(description = "True when both the card and its account are activated", example = "true")
+    private final boolean allowed;
+
+    @Schema(description = "Card status", example = "ACTIVATED")
+    private final CardStatus cardStatus;
+
+    @Schema(description = "Contract ID (EMAID), null while the card is not assigned", example = "NLTNMA123456789")
+    private final String contractId;
+
+    @Schema(description = "Account status, null while the card is not assigned", example = "ACTIVATED")
+    private final AccountStatus accountStatus;
+
+    public TokenAuthorizationDTO(String rfidUid, CardStatus cardStatus, String contractId, AccountStatus accountStatus) {
+        this.rfidUid = rfidUid;
+        this.allowed = cardStatus == CardStatus.ACTIVATED && accountStatus == AccountStatus.ACTIVATED;
+        this.cardStatus = cardStatus;
+        this.contractId = contractId;
+        this.accountStatus = accountStatus;
+    }
+
+    public String getRfidUid() {
+        return rfidUid;
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    public CardStatus getCardStatus() {
+        return cardStatus;
+    }
+
+    public String getContractId() {
+        return contractId;
+    }
+
+    public AccountStatus getAccountStatus() {
+        return accountStatus;
+    }
+}
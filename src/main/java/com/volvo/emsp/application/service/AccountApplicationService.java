@@ -1,26 +1,33 @@
 package com.volvo.emsp.application.service;
 
 import com.volvo.emsp.application.dto.AccountDTO;
+import com.volvo.emsp.application.dto.CursorPage;
+import com.volvo.emsp.application.dto.EstimatedPage;
 import com.volvo.emsp.domain.model.Account;
 import com.volvo.emsp.domain.model.Email;
 import com.volvo.emsp.domain.model.enums.AccountStatus;
 import com.volvo.emsp.domain.repository.AccountRepository;
+import com.volvo.emsp.domain.repository.KeysetCursor;
 import com.volvo.emsp.domain.service.EmaidGenerator;
 import com.volvo.emsp.domain.service.IdGenerator;
 import com.volvo.emsp.execption.BadRequestException;
 import com.volvo.emsp.execption.InvalidBusinessOperationException;
-import com.volvo.emsp.execption.ResourceAlreadyExistsException;
+import com.volvo.emsp.execption.PreconditionFailedException;
 import com.volvo.emsp.execption.ResourceNotFoundException;
 import jakarta.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class AccountApplicationService {
@@ -29,15 +36,27 @@ public class AccountApplicationService {
     private final IdGenerator idGenerator;
     private final AccountRepository accountRepository;
     private final EmaidGenerator emaidGenerator;
+    private final TotalEstimateCache totalEstimates;
+    private final DtoCache dtoCache;
+    private final TokenAuthorizationIndex tokenIndex;
+    private final OptimisticRetry optimisticRetry;
 
     public AccountApplicationService(
             IdGenerator idGenerator,
             AccountRepository accountRepository,
-            EmaidGenerator emaidGenerator
+            EmaidGenerator emaidGenerator,
+            TotalEstimateCache totalEstimates,
+            DtoCache dtoCache,
+            TokenAuthorizationIndex tokenIndex,
+            OptimisticRetry optimisticRetry
     ) {
         this.idGenerator = idGenerator;
         this.accountRepository = accountRepository;
         this.emaidGenerator = emaidGenerator;
+        this.totalEstimates = totalEstimates;
+        this.dtoCache = dtoCache;
+        this.tokenIndex = tokenIndex;
+        this.optimisticRetry = optimisticRetry;
     }
 
     @Transactional(readOnly = true)
@@ -45,14 +64,85 @@ public class AccountApplicationService {
             @Nullable OffsetDateTime updatedTimeFrom,
             @Nullable OffsetDateTime updatedTimeTo,
             Pageable pageable) {
+        PageSizes.check(pageable);
         Page<Account> accounts = accountRepository.findByLastUpdatedBetween(updatedTimeFrom, updatedTimeTo, pageable);
         // map to dto
         return accounts.map(AccountDTO::of);
     }
 
+    /**
+     * Like {@link #findAccounts(OffsetDateTime, OffsetDateTime, Pageable)}, with a cached approximate total instead of
+     * a COUNT per call.
+     */
     @Transactional(readOnly = true)
+    public EstimatedPage<AccountDTO> findAccountsEstimated(
+            @Nullable OffsetDateTime updatedTimeFrom,
+            @Nullable OffsetDateTime updatedTimeTo,
+            Pageable pageable) {
+        PageSizes.check(pageable);
+        Slice<Account> accounts = accountRepository.findSliceByLastUpdatedBetween(updatedTimeFrom, updatedTimeTo, pageable);
+        Long total = totalEstimates.estimate(
+                "accounts", updatedTimeFrom, updatedTimeTo, accountRepository::countByLastUpdatedBetween);
+        return EstimatedPage.of(accounts.map(AccountDTO::of), total);
+    }
+
+    /**
+     * Keyset scan for large exports: no COUNT and no OFFSET, and rows updated mid-scan do not shift later pages.
+     *
+     * @param cursor {@link CursorPage#getNextCursor()} of the previous page, null or empty for the first page
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AccountDTO> findAccounts(
+            @Nullable OffsetDateTime updatedTimeFrom,
+            @Nullable OffsetDateTime updatedTimeTo,
+            @Nullable String cursor,
+            int size) {
+        PageSizes.check(size);
+        KeysetCursor after = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+        // one extra row tells whether there is a next page
+        List<Account> accounts = accountRepository.findByLastUpdatedBetween(updatedTimeFrom, updatedTimeTo, after, size + 1);
+        String nextCursor = null;
+        if (accounts.size() > size) {
+            accounts = accounts.subList(0, size);
+            Account last = accounts.get(size - 1);
+            nextCursor = new KeysetCursor(last.getLastUpdated(), last.getAccountId()).encode();
+        }
+        return new CursorPage<>(accounts, nextCursor).map(AccountDTO::of);
+    }
+
+    /**
+     * Every account of the range, newest update first, handed to {@code sink} one by one as the rows are read, so
+     * memory does not grow with the number of accounts.
+     */
+    @Transactional(readOnly = true)
+    public void exportAccounts(
+            @Nullable OffsetDateTime updatedTimeFrom,
+            @Nullable OffsetDateTime updatedTimeTo,
+            Consumer<? super AccountDTO> sink) {
+        try (Stream<Account> accounts = accountRepository.streamByLastUpdatedBetween(updatedTimeFrom, updatedTimeTo)) {
+            accounts.map(AccountDTO::of).forEach(sink);
+        }
+    }
+
+    /**
+     * Served from the {@link DtoCache} when possible. Not transactional, so a cache hit never takes a connection.
+     */
     public Optional<AccountDTO> findAccountById(Long id) {
-        return accountRepository.findById(id).map(AccountDTO::of);
+        Optional<AccountDTO> cached = dtoCache.getAccount(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<AccountDTO> account = accountRepository.findById(id).map(AccountDTO::of);
+        account.ifPresent(dtoCache::putAccount);
+        return account;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<AccountDTO> findAccountByEmail(String email) {
+        if (!Email.isValid(email)) {
+            throw new BadRequestException("Invalid email format: " + email);
+        }
+        return accountRepository.findByEmail(Email.of(email)).map(AccountDTO::of);
     }
 
     @Transactional
@@ -61,21 +151,25 @@ public class AccountApplicationService {
         if (!Email.isValid(email)) {
             throw new BadRequestException("Invalid email format: " + email);
         }
-        // check if email exists
-        if (accountRepository.existsByEmail(Email.of(email))) {
-            throw new ResourceAlreadyExistsException("Email already exists: " + email);
-        }
-
-        Account account = new Account(idGenerator.nextId(), email, emaidGenerator.generateEmaid());
-        // save and get
-        account = accountRepository.save(account);
+        Account account = new Account(idGenerator.nextId(), Email.of(email), emaidGenerator.nextEmaid());
+        // duplicates are rejected by the unique email hash
+        account = accountRepository.create(account);
+        tokenIndex.accountChanged(account);
 
         // update emaid
         return AccountDTO.of(account);
     }
 
-    @Transactional
-    public void changeAccountStatus(Long accountId, String targetStatusStr) {
+    /**
+     * The account is read, changed and saved, and all of it is retried when a concurrent update wins, see
+     * {@link OptimisticRetry}. The change goes through the managed entity rather than a bulk UPDATE, so the
+     * second-level cache drops only this account's entry. With {@code expectedVersion}, a retry after a lost race
+     * fails the version check.
+     *
+     * @param expectedVersion the version the client last read, null to apply the change to the current version
+     * @throws PreconditionFailedException when the account is no longer at {@code expectedVersion}
+     */
+    public void changeAccountStatus(Long accountId, String targetStatusStr, @Nullable Long expectedVersion) {
         log.info("change account {} status to {}", accountId, targetStatusStr);
         if (targetStatusStr == null || targetStatusStr.isEmpty()) {
             throw new BadRequestException("Invalid account status: " + targetStatusStr);
@@ -86,14 +180,34 @@ public class AccountApplicationService {
         } catch (IllegalArgumentException e) {
             throw new BadRequestException("Invalid account status: " + targetStatusStr);
         }
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found: " + accountId));
+        if (targetStatus != AccountStatus.ACTIVATED && targetStatus != AccountStatus.DEACTIVATED) {
+            throw new InvalidBusinessOperationException("Can not change account status to : " + targetStatusStr);
+        }
+        optimisticRetry.execute(() -> {
+            Account account = checkAccountExistsAndReturn(accountId);
+            if (expectedVersion != null && account.getVersion() != expectedVersion) {
+                throw new PreconditionFailedException(
+                        "Account " + accountId + " is at version " + account.getVersion() + ", not " + expectedVersion);
+            }
+            // throws for a rejected transition, a change to the current status is a no-op
+            changeStatus(account, targetStatus);
+            accountRepository.saveAndFlush(account);
+            dtoCache.evictAccount(accountId);
+            tokenIndex.accountChanged(account);
+            return null;
+        });
+    }
 
-        switch (targetStatus) {
-            case ACTIVATED -> account.activate();
-            case DEACTIVATED -> account.deactivate();
-            default -> throw new InvalidBusinessOperationException("Can not change account status to : " + targetStatusStr);
+    private static void changeStatus(Account account, AccountStatus targetStatus) {
+        if (targetStatus == AccountStatus.ACTIVATED) {
+            account.activate();
+        } else {
+            account.deactivate();
         }
-        accountRepository.save(account);
+    }
+
+    private Account checkAccountExistsAndReturn(Long accountId) {
+        return accountRepository.findByIdForWrite(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found: " + accountId));
     }
 }
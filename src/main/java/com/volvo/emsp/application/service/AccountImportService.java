@@ -0,0 +1,133 @@
+package com.volvo.emsp.application.service;
+
+import com.volvo.emsp.application.command.CreateAccountCommand;
+import com.volvo.emsp.application.command.ImportRow;
+import com.volvo.emsp.application.dto.AccountImportResultDTO;
+import com.volvo.emsp.domain.model.Account;
+import com.volvo.emsp.domain.model.Emaid;
+import com.volvo.emsp.domain.model.Email;
+import com.volvo.emsp.domain.repository.AccountRepository;
+import com.volvo.emsp.domain.service.EmaidGenerator;
+import com.volvo.emsp.domain.service.IdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Onboards account files of any size, see {@link ChunkedImport}.
+ * <p>
+ * Per chunk, emails are deduplicated in memory and against the database with one IN query, then ids and EMAIDs are
+ * leased as blocks for the rows that remain and the accounts are inserted as one JDBC batch.
+ */
+@Service
+public class AccountImportService extends ChunkedImport<CreateAccountCommand, Account, AccountImportResultDTO> {
+
+    private final IdGenerator idGenerator;
+    private final EmaidGenerator emaidGenerator;
+    private final AccountRepository accountRepository;
+    private final TokenAuthorizationIndex tokenIndex;
+
+    public AccountImportService(
+            IdGenerator idGenerator,
+            EmaidGenerator emaidGenerator,
+            AccountRepository accountRepository,
+            TokenAuthorizationIndex tokenIndex,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.import.batch-size:1000}") int batchSize) {
+        super("accounts", transactionManager, batchSize);
+        this.idGenerator = idGenerator;
+        this.emaidGenerator = emaidGenerator;
+        this.accountRepository = accountRepository;
+        this.tokenIndex = tokenIndex;
+    }
+
+    /**
+     * @param results receives the results of each chunk, one per row in file order, once the chunk is committed
+     */
+    public void importAccounts(Iterator<ImportRow<CreateAccountCommand>> rows,
+                               Consumer<List<AccountImportResultDTO>> results) {
+        importRows(rows, results);
+    }
+
+    @Override
+    void check(List<ImportRow<CreateAccountCommand>> chunk, List<AccountImportResultDTO> results,
+               List<Account> accounts, List<Integer> positions) {
+        List<Email> emails = new ArrayList<>(chunk.size());
+        List<Integer> emailPositions = new ArrayList<>(chunk.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportRow<CreateAccountCommand> row = chunk.get(i);
+            String email = row.command() == null ? null : row.command().getEmail();
+            if (row.error() != null) {
+                results.set(i, AccountImportResultDTO.rejected(row.line(), email, row.error()));
+            } else if (!Email.isValid(email)) {
+                results.set(i, AccountImportResultDTO.rejected(row.line(), email, "Invalid email format: " + email));
+            } else if (!seen.add(Email.normalize(email))) {
+                results.set(i, AccountImportResultDTO.rejected(row.line(), email, "Email already exists: " + email));
+            } else {
+                emails.add(Email.of(email));
+                emailPositions.add(i);
+            }
+        }
+
+        // equal by the normalized email, like the unique email hash
+        Set<Email> existing = new HashSet<>(accountRepository.findExistingEmails(emails));
+        List<Email> newEmails = new ArrayList<>(emails.size());
+        for (int j = 0; j < emails.size(); j++) {
+            Email email = emails.get(j);
+            if (existing.contains(email)) {
+                results.set(emailPositions.get(j), AccountImportResultDTO.rejected(
+                        chunk.get(emailPositions.get(j)).line(), email.toString(), "Email already exists: " + email));
+            } else {
+                newEmails.add(email);
+                positions.add(emailPositions.get(j));
+            }
+        }
+
+        long[] ids = idGenerator.nextIds(newEmails.size());
+        List<Emaid> emaids = emaidGenerator.nextEmaids(newEmails.size());
+        for (int j = 0; j < newEmails.size(); j++) {
+            accounts.add(new Account(ids[j], newEmails.get(j), emaids.get(j)));
+        }
+    }
+
+    @Override
+    void insertAll(List<Account> accounts) {
+        accountRepository.insertAll(accounts);
+        accounts.forEach(tokenIndex::accountChanged);
+    }
+
+    @Override
+    void insert(Account account) {
+        accountRepository.create(account);
+        tokenIndex.accountChanged(account);
+    }
+
+    @Override
+    Account copy(Account rolledBack) {
+        return new Account(rolledBack.getAccountId(), rolledBack.getEmail(), rolledBack.getContractId());
+    }
+
+    @Override
+    AccountImportResultDTO created(long line, Account account) {
+        return AccountImportResultDTO.created(
+                line, account.getAccountId(), account.getEmail().toString(), account.getContractId().toString());
+    }
+
+    @Override
+    AccountImportResultDTO rejected(long line, Account account, String reason) {
+        return AccountImportResultDTO.rejected(line, account.getEmail().toString(), reason);
+    }
+
+    @Override
+    boolean isCreated(AccountImportResultDTO result) {
+        return AccountImportResultDTO.CREATED.equals(result.getStatus());
+    }
+}
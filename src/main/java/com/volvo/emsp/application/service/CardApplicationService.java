@@ -1,46 +1,81 @@
 package com.volvo.emsp.application.service;
 
+import com.volvo.emsp.application.command.ChangeCardStatusItem;
 import com.volvo.emsp.application.command.CreateCardCommand;
 import com.volvo.emsp.application.dto.CardDTO;
+import com.volvo.emsp.application.dto.CardStatusChangeResultDTO;
+import com.volvo.emsp.application.dto.CursorPage;
+import com.volvo.emsp.application.dto.EstimatedPage;
+import com.volvo.emsp.domain.event.CardAssignedEvent;
+import com.volvo.emsp.domain.event.DomainEvent;
+import com.volvo.emsp.domain.event.EventSource;
 import com.volvo.emsp.domain.model.Account;
 import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.model.enums.CardStatus;
 import com.volvo.emsp.domain.repository.AccountRepository;
 import com.volvo.emsp.domain.repository.CardRepository;
+import com.volvo.emsp.domain.repository.KeysetCursor;
 import com.volvo.emsp.domain.service.DomainEventPublisher;
 import com.volvo.emsp.domain.service.IdGenerator;
 import com.volvo.emsp.execption.BadRequestException;
-import com.volvo.emsp.execption.ResourceAlreadyExistsException;
+import com.volvo.emsp.execption.InvalidBusinessOperationException;
+import com.volvo.emsp.execption.PreconditionFailedException;
 import com.volvo.emsp.execption.ResourceNotFoundException;
 import jakarta.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CardApplicationService {
 
     private static final Logger log = LoggerFactory.getLogger(CardApplicationService.class);
+    static final int MAX_BULK_ITEMS = 1000;
     private final IdGenerator idGenerator;
     private final CardRepository cardRepository;
     private final AccountRepository accountRepository;
     private final DomainEventPublisher eventPublisher;
-
+    private final TotalEstimateCache totalEstimates;
+    private final DtoCache dtoCache;
+    private final TokenAuthorizationIndex tokenIndex;
+    private final OptimisticRetry optimisticRetry;
+    private final CardChangeFeed changeFeed;
 
     public CardApplicationService(
             IdGenerator idGenerator,
             CardRepository cardRepository,
             AccountRepository accountRepository,
-            DomainEventPublisher eventPublisher) {
+            DomainEventPublisher eventPublisher,
+            TotalEstimateCache totalEstimates,
+            DtoCache dtoCache,
+            TokenAuthorizationIndex tokenIndex,
+            OptimisticRetry optimisticRetry,
+            CardChangeFeed changeFeed) {
         this.idGenerator = idGenerator;
         this.cardRepository = cardRepository;
         this.accountRepository = accountRepository;
         this.eventPublisher = eventPublisher;
+        this.totalEstimates = totalEstimates;
+        this.dtoCache = dtoCache;
+        this.tokenIndex = tokenIndex;
+        this.optimisticRetry = optimisticRetry;
+        this.changeFeed = changeFeed;
     }
 
     @Transactional
@@ -49,35 +84,44 @@ public class CardApplicationService {
         if (createCardCommand == null) {
             throw new BadRequestException("Create card command must not be null");
         }
-        if (cardRepository.existsByRfidUid(createCardCommand.getRfidUid())) {
-            throw new ResourceAlreadyExistsException("Card with RFID UID already exists: " + createCardCommand.getRfidUid());
-        }
-        if (cardRepository.existsByVisibleNumber(createCardCommand.getVisibleNumber())) {
-            throw new ResourceAlreadyExistsException("Card with visible number already exists: " + createCardCommand.getVisibleNumber());
-        }
         Card card = new Card(idGenerator.nextId(), createCardCommand.getRfidUid(), createCardCommand.getVisibleNumber());
-        card = cardRepository.save(card);
+        // duplicates are rejected by the unique constraints
+        card = cardRepository.create(card);
+        tokenIndex.cardChanged(card);
+        changeFeed.written(card.getLastUpdated());
         return CardDTO.of(card);
     }
 
+    /**
+     * One conditional UPDATE, see {@link #changeCardStatus(Long, CardStatus, Long, Consumer)}.
+     *
+     * @param expectedVersion the version the client last read, null to apply the change to the current version
+     */
     @Transactional
-    public void activeCard(Long cardId) {
+    public void activeCard(Long cardId, @Nullable Long expectedVersion) {
         log.info("Activating card {}", cardId);
-        Card card = checkCardExistsAndReturn(cardId);
-        card.activate();
-        cardRepository.save(card);
+        changeCardStatus(cardId, CardStatus.ACTIVATED, expectedVersion, Card::activate);
     }
 
+    /**
+     * One conditional UPDATE, see {@link #changeCardStatus(Long, CardStatus, Long, Consumer)}.
+     *
+     * @param expectedVersion the version the client last read, null to apply the change to the current version
+     */
     @Transactional
-    public void deactivateCard(Long cardId) {
+    public void deactivateCard(Long cardId, @Nullable Long expectedVersion) {
         log.info("Deactivating card {}", cardId);
-        Card card = checkCardExistsAndReturn(cardId);
-        card.deactivate();
-        cardRepository.save(card);
+        changeCardStatus(cardId, CardStatus.DEACTIVATED, expectedVersion, Card::deactivate);
     }
 
+    /**
+     * The account is read for its EMAID, the card is assigned with one conditional UPDATE that also checks the
+     * account is still ACTIVATED.
+     *
+     * @param expectedVersion the version of the card the client last read, null to assign the current version
+     */
     @Transactional
-    public void assignCardToAccount(Long cardId, Long accountId) {
+    public void assignCardToAccount(Long cardId, Long accountId, @Nullable Long expectedVersion) {
         log.info("Assigning card {} to account {}", cardId, accountId);
         if (cardId == null) {
             throw new BadRequestException("Card ID must not be null");
@@ -85,34 +129,225 @@ public class CardApplicationService {
         if (accountId == null) {
             throw new BadRequestException("Account ID must not be null");
         }
-        Optional<Card> optionalCard = cardRepository.findById(cardId);
-        if (optionalCard.isEmpty()) {
-            throw new ResourceNotFoundException("Card not found: " + cardId);
-        }
-        Optional<Account> optionalAccount = accountRepository.findById(accountId);
+        Optional<Account> optionalAccount = accountRepository.findByIdForWrite(accountId);
         if (optionalAccount.isEmpty()) {
             throw new ResourceNotFoundException("Account not found: " + accountId);
         }
-        Card card = optionalCard.get();
         Account account = optionalAccount.get();
-        card.assignTo(account);
-        cardRepository.save(card);
+        OffsetDateTime now = OffsetDateTime.now();
+        if (!cardRepository.assign(cardId, account, expectedVersion, now)) {
+            explainRejectedChange(cardId, expectedVersion, card -> card.assignTo(account));
+        }
+        dtoCache.evictCard(cardId);
+        tokenIndex.cardStatusChanged(cardId, CardStatus.ASSIGNED, account, now);
+        changeFeed.written(now);
+
+        eventPublisher.publish(new CardAssignedEvent(new EventSource(Card.class.getSimpleName(), cardId), cardId, accountId));
+    }
+
+    /**
+     * The transition is checked by the UPDATE itself, so two concurrent changes can not both pass. Only when no row
+     * was updated is the card loaded, to tell a missing card from a rejected transition.
+     */
+    private void changeCardStatus(Long cardId, CardStatus targetStatus, @Nullable Long expectedVersion,
+                                  Consumer<Card> change) {
+        if (cardId == null) {
+            throw new BadRequestException("Card ID must not be null");
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        if (!cardRepository.updateStatus(cardId, targetStatus, expectedVersion, now)) {
+            explainRejectedChange(cardId, expectedVersion, change);
+        }
+        dtoCache.evictCard(cardId);
+        tokenIndex.cardStatusChanged(cardId, targetStatus, null, now);
+        changeFeed.written(now);
+    }
+
+    /**
+     * Replays the change on the loaded card, so the domain rule that rejected it throws its own exception.
+     */
+    private void explainRejectedChange(Long cardId, @Nullable Long expectedVersion, Consumer<Card> change) {
+        Card card = checkCardExistsAndReturn(cardId);
+        if (expectedVersion != null && card.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException(
+                    "Card " + cardId + " is at version " + card.getVersion() + ", not " + expectedVersion);
+        }
+        change.accept(card);
+        // allowed by now, the card changed since the UPDATE
+        throw new InvalidBusinessOperationException("Card was changed concurrently: " + cardId);
+    }
+
+    /**
+     * Apply many status changes in one transaction. The cards and the accounts to assign them to are loaded with one
+     * IN query each, the changes are written as one JDBC batch and the assignment events are stored as one batch.
+     * <p>
+     * The accounts are read around the second-level cache and locked until commit, so a card is not assigned to an
+     * account that another node just deactivated; such an item is rejected.
+     * <p>
+     * An item that can not be applied is rejected on its own, the other items still go through. Items of the same
+     * card are applied in order. When a concurrent update wins, everything is read and applied again, see
+     * {@link OptimisticRetry}.
+     *
+     * @return one result per item, in the order of {@code items}
+     */
+    public List<CardStatusChangeResultDTO> changeCardStatuses(List<ChangeCardStatusItem> items) {
+        if (items == null) {
+            throw new BadRequestException("Change card status items must not be null");
+        }
+        if (items.size() > MAX_BULK_ITEMS) {
+            throw new BadRequestException("At most " + MAX_BULK_ITEMS + " items per request");
+        }
+        log.info("Changing the status of {} cards", items.size());
+        Set<Long> cardIds = new HashSet<>();
+        Set<Long> accountIds = new HashSet<>();
+        for (ChangeCardStatusItem item : items) {
+            if (item == null) {
+                throw new BadRequestException("Change card status item must not be null");
+            }
+            if (item.getCardId() != null) {
+                cardIds.add(item.getCardId());
+            }
+            if (item.getAssignToAccount() != null) {
+                accountIds.add(item.getAssignToAccount());
+            }
+        }
+        return optimisticRetry.execute(() -> changeCardStatuses(items, cardIds, accountIds));
+    }
 
-        card.getDomainEvents().forEach(eventPublisher::publish);
-        card.clearDomainEvents();
+    private List<CardStatusChangeResultDTO> changeCardStatuses(
+            List<ChangeCardStatusItem> items, Set<Long> cardIds, Set<Long> accountIds) {
+        // no card of this attempt is changed earlier
+        OffsetDateTime started = OffsetDateTime.now();
+        Map<Long, Card> cards = new HashMap<>();
+        cardRepository.findAllById(cardIds).forEach(card -> cards.put(card.getCardId(), card));
+        Map<Long, Account> accounts = new HashMap<>();
+        accountRepository.findAllByIdForWrite(accountIds).forEach(account -> accounts.put(account.getAccountId(), account));
+
+        List<CardStatusChangeResultDTO> results = new ArrayList<>(items.size());
+        Map<Long, Card> changed = new LinkedHashMap<>();
+        for (ChangeCardStatusItem item : items) {
+            try {
+                Card card = changeCardStatus(item, cards, accounts);
+                changed.put(card.getCardId(), card);
+                results.add(CardStatusChangeResultDTO.updated(card.getCardId(), card.getStatus()));
+            } catch (BadRequestException | ResourceNotFoundException | InvalidBusinessOperationException
+                     | IllegalArgumentException e) {
+                results.add(CardStatusChangeResultDTO.rejected(item.getCardId(), e.getMessage()));
+            }
+        }
+
+        List<Card> changedCards = new ArrayList<>(changed.values());
+        cardRepository.updateAll(changedCards);
+        List<DomainEvent> events = new ArrayList<>();
+        for (Card card : changedCards) {
+            dtoCache.evictCard(card.getCardId());
+            tokenIndex.cardChanged(card);
+            events.addAll(card.getDomainEvents());
+            card.clearDomainEvents();
+        }
+        eventPublisher.publishAll(events);
+        if (!changedCards.isEmpty()) {
+            changeFeed.written(started);
+        }
+        return results;
     }
 
 
     @Transactional(readOnly = true)
     public Page<CardDTO> findCards(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable) {
+        PageSizes.check(pageable);
         Page<Card> cards = cardRepository.findByLastUpdatedBetween(from, to, pageable);
         return cards.map(CardDTO::of);
     }
 
+    /**
+     * Like {@link #findCards(OffsetDateTime, OffsetDateTime, Pageable)}, with a cached approximate total instead of a
+     * COUNT per call.
+     */
     @Transactional(readOnly = true)
+    public EstimatedPage<CardDTO> findCardsEstimated(
+            @Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable) {
+        PageSizes.check(pageable);
+        Slice<Card> cards = cardRepository.findSliceByLastUpdatedBetween(from, to, pageable);
+        Long total = totalEstimates.estimate("cards", from, to, cardRepository::countByLastUpdatedBetween);
+        return EstimatedPage.of(cards.map(CardDTO::of), total);
+    }
+
+    /**
+     * Keyset scan for large exports: no COUNT and no OFFSET, and cards updated mid-scan do not shift later pages.
+     *
+     * @param cursor {@link CursorPage#getNextCursor()} of the previous page, null or empty for the first page
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CardDTO> findCards(
+            @Nullable OffsetDateTime from, @Nullable OffsetDateTime to, @Nullable String cursor, int size) {
+        PageSizes.check(size);
+        KeysetCursor after = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+        // one extra row tells whether there is a next page
+        List<Card> cards = cardRepository.findByLastUpdatedBetween(from, to, after, size + 1);
+        String nextCursor = null;
+        if (cards.size() > size) {
+            cards = cards.subList(0, size);
+            Card last = cards.get(size - 1);
+            nextCursor = new KeysetCursor(last.getLastUpdated(), last.getCardId()).encode();
+        }
+        return new CursorPage<>(cards, nextCursor).map(CardDTO::of);
+    }
+
+    /**
+     * Every card of the range, newest update first, handed to {@code sink} one by one as the rows are read, so memory
+     * does not grow with the number of cards.
+     */
+    @Transactional(readOnly = true)
+    public void exportCards(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Consumer<? super CardDTO> sink) {
+        try (Stream<Card> cards = cardRepository.streamByLastUpdatedBetween(from, to)) {
+            cards.map(CardDTO::of).forEach(sink);
+        }
+    }
+
+    /**
+     * Served from the {@link DtoCache} when possible. Not transactional, so a cache hit never takes a connection.
+     */
     public Optional<CardDTO> findCardById(Long id) {
-        Optional<Card> optionalCard = cardRepository.findById(id);
-        return optionalCard.map(CardDTO::of);
+        Optional<CardDTO> cached = dtoCache.getCard(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<CardDTO> card = cardRepository.findById(id).map(CardDTO::of);
+        card.ifPresent(dtoCache::putCard);
+        return card;
+    }
+
+    private static Card changeCardStatus(ChangeCardStatusItem item, Map<Long, Card> cards, Map<Long, Account> accounts) {
+        if (item.getCardId() == null) {
+            throw new BadRequestException("Card ID must not be null");
+        }
+        Card card = cards.get(item.getCardId());
+        if (card == null) {
+            throw new ResourceNotFoundException("Card not found: " + item.getCardId());
+        }
+        CardStatus targetStatus;
+        try {
+            targetStatus = CardStatus.valueOf(item.getTargetStatus().toUpperCase());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid card status: " + item.getTargetStatus());
+        }
+        switch (targetStatus) {
+            case ACTIVATED -> card.activate();
+            case DEACTIVATED -> card.deactivate();
+            case ASSIGNED -> {
+                if (item.getAssignToAccount() == null) {
+                    throw new BadRequestException("Account ID must not be null");
+                }
+                Account account = accounts.get(item.getAssignToAccount());
+                if (account == null) {
+                    throw new ResourceNotFoundException("Account not found: " + item.getAssignToAccount());
+                }
+                card.assignTo(account);
+            }
+            default -> throw new InvalidBusinessOperationException("Can not change card status to: " + item.getTargetStatus());
+        }
+        return card;
     }
 
     private Card checkCardExistsAndReturn(Long cardId) {
@@ -0,0 +1,154 @@
+package com.volvo.emsp.application.service;
+
+import com.volvo.emsp.application.dto.CardDTO;
+import com.volvo.emsp.application.dto.ChangePage;
+import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.repository.CardRepository;
+import com.volvo.emsp.domain.repository.KeysetCursor;
+import com.volvo.emsp.execption.BadRequestException;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card changes in strict {@code (lastUpdated, cardId)} order, for partners that sync by resuming from a cursor instead
+ * of rescanning time windows.
+ * <p>
+ * Changes younger than {@code app.card-changes.settle-ms} are held back: lastUpdated is set before the commit, so a
+ * slower transaction can still land behind a cursor that already moved past its timestamp. This only covers
+ * transactions that commit within settle-ms of setting lastUpdated, and nodes whose clocks agree to well within it. A
+ * change that commits later, say a bulk status change that retried with backoff or a slow import chunk, can be
+ * skipped by a partner whose cursor already passed it. The writers report such commits, see {@link #written}, and they
+ * are logged as a warning. A request without changes
+ * can wait for them. Waiting requests are held in memory and checked every {@code app.card-changes.poll-ms}, with one
+ * query for the newest change and one per request that it concerns.
+ */
+@Component
+public class CardChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(CardChangeFeed.class);
+
+    private record Waiter(@Nullable KeysetCursor after, int size, CompletableFuture<ChangePage<CardDTO>> result) {
+    }
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final CardRepository cardRepository;
+    private final Duration settle;
+    private final long maxWaitMillis;
+
+    public CardChangeFeed(
+            CardRepository cardRepository,
+            @Value("${app.card-changes.settle-ms:2000}") long settleMillis,
+            @Value("${app.card-changes.max-wait-ms:30000}") long maxWaitMillis) {
+        this.cardRepository = cardRepository;
+        this.settle = Duration.ofMillis(settleMillis);
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * @param cursor     {@link ChangePage#getCursor()} of the previous page, null or empty to start from the oldest card
+     * @param waitMillis how long to wait for a change when there is none yet, capped at
+     *                   {@code app.card-changes.max-wait-ms}; 0 answers right away
+     * @return completed once there are changes or the wait is over, with an empty page and the same cursor then
+     */
+    public CompletableFuture<ChangePage<CardDTO>> changes(@Nullable String cursor, int size, long waitMillis) {
+        PageSizes.check(size);
+        if (waitMillis < 0) {
+            throw new BadRequestException("Wait must not be negative");
+        }
+        KeysetCursor after = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+        ChangePage<CardDTO> page = find(after, size);
+        if (!page.getContent().isEmpty() || waitMillis == 0) {
+            return CompletableFuture.completedFuture(page);
+        }
+        Waiter waiter = new Waiter(after, size, new CompletableFuture<>());
+        waiters.add(waiter);
+        waiter.result()
+                .completeOnTimeout(page, Math.min(waitMillis, maxWaitMillis), TimeUnit.MILLISECONDS)
+                .whenComplete((result, e) -> waiters.remove(waiter));
+        return waiter.result();
+    }
+
+    @Scheduled(initialDelayString = "${app.card-changes.poll-ms:500}", fixedDelayString = "${app.card-changes.poll-ms:500}")
+    public void wakeWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        try {
+            List<Card> newest = cardRepository.findByLastUpdatedBetween(null, settledUntil(), null, 1);
+            if (newest.isEmpty()) {
+                return;
+            }
+            KeysetCursor newestChange = cursorOf(newest.getFirst());
+            for (Waiter waiter : waiters) {
+                if (waiter.after() != null && waiter.after().compareTo(newestChange) >= 0) {
+                    continue;
+                }
+                ChangePage<CardDTO> page = find(waiter.after(), waiter.size());
+                if (!page.getContent().isEmpty()) {
+                    waiter.result().complete(page);
+                }
+            }
+        } catch (Exception e) {
+            // the waiters stay, the next poll tries again
+            log.error("Failed to check for card changes", e);
+        }
+    }
+
+    private ChangePage<CardDTO> find(@Nullable KeysetCursor after, int size) {
+        // one extra row tells whether there are more changes
+        List<Card> cards = cardRepository.findChangesAfter(after, settledUntil(), size + 1);
+        boolean hasMore = cards.size() > size;
+        if (hasMore) {
+            cards = cards.subList(0, size);
+        }
+        KeysetCursor last = cards.isEmpty() ? after : cursorOf(cards.getLast());
+        return new ChangePage<>(cards, last == null ? "" : last.encode(), hasMore).map(CardDTO::of);
+    }
+
+    /**
+     * Call from a transaction that writes cards, with the oldest lastUpdated it set. Once the transaction commits, a
+     * warning is logged if that took longer than settle-ms: the change may have been skipped by the feed.
+     */
+    public void written(OffsetDateTime lastUpdated) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            checkSettled(lastUpdated);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                checkSettled(lastUpdated);
+            }
+        });
+    }
+
+    private void checkSettled(OffsetDateTime lastUpdated) {
+        Duration late = Duration.between(lastUpdated, OffsetDateTime.now());
+        if (late.compareTo(settle) > 0) {
+            log.warn("Card change of {} committed {} ms later, after app.card-changes.settle-ms, the feed may have "
+                    + "skipped it", lastUpdated, late.toMillis());
+        }
+    }
+
+    private OffsetDateTime settledUntil() {
+        return OffsetDateTime.now().minus(settle);
+    }
+
+    private static KeysetCursor cursorOf(Card card) {
+        return new KeysetCursor(card.getLastUpdated(), card.getCardId());
+    }
+}
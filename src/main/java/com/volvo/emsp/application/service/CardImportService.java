@@ -0,0 +1,135 @@
+package com.volvo.emsp.application.service;
+
+import com.volvo.emsp.application.command.CreateCardCommand;
+import com.volvo.emsp.application.command.ImportRow;
+import com.volvo.emsp.application.dto.CardImportResultDTO;
+import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.repository.CardRepository;
+import com.volvo.emsp.domain.service.IdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Imports card files of any size, see {@link ChunkedImport}.
+ * <p>
+ * A row is rejected, and the rest of the file still imported, when the {@link Card} constructor refuses it or its
+ * RFID UID or visible number is taken. The uniqueness checks are answered by the unique key filters for new keys.
+ */
+@Service
+public class CardImportService extends ChunkedImport<CreateCardCommand, Card, CardImportResultDTO> {
+
+    private final IdGenerator idGenerator;
+    private final CardRepository cardRepository;
+    private final TokenAuthorizationIndex tokenIndex;
+    private final CardChangeFeed changeFeed;
+
+    public CardImportService(
+            IdGenerator idGenerator,
+            CardRepository cardRepository,
+            TokenAuthorizationIndex tokenIndex,
+            CardChangeFeed changeFeed,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.import.batch-size:1000}") int batchSize) {
+        super("cards", transactionManager, batchSize);
+        this.idGenerator = idGenerator;
+        this.cardRepository = cardRepository;
+        this.tokenIndex = tokenIndex;
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * @param results receives the results of each chunk, one per row in file order, once the chunk is committed
+     */
+    public void importCards(Iterator<ImportRow<CreateCardCommand>> rows, Consumer<List<CardImportResultDTO>> results) {
+        importRows(rows, results);
+    }
+
+    @Override
+    void check(List<ImportRow<CreateCardCommand>> chunk, List<CardImportResultDTO> results, List<Card> cards,
+               List<Integer> positions) {
+        long[] ids = idGenerator.nextIds(chunk.size());
+        Set<String> rfidUids = new HashSet<>();
+        Set<String> visibleNumbers = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportRow<CreateCardCommand> row = chunk.get(i);
+            CreateCardCommand command = row.command();
+            String rfidUid = command == null ? null : command.getRfidUid();
+            String error = row.error();
+            if (error == null) {
+                error = check(ids[i], command, rfidUids, visibleNumbers, cards);
+            }
+            if (error == null) {
+                positions.add(i);
+            } else {
+                results.set(i, CardImportResultDTO.rejected(row.line(), rfidUid, error));
+            }
+        }
+    }
+
+    @Override
+    void insertAll(List<Card> cards) {
+        cardRepository.insertAll(cards);
+        cards.forEach(tokenIndex::cardChanged);
+        if (!cards.isEmpty()) {
+            // constructed in row order, the first is the oldest
+            changeFeed.written(cards.getFirst().getLastUpdated());
+        }
+    }
+
+    @Override
+    void insert(Card card) {
+        cardRepository.create(card);
+        tokenIndex.cardChanged(card);
+        changeFeed.written(card.getLastUpdated());
+    }
+
+    @Override
+    Card copy(Card rolledBack) {
+        return new Card(rolledBack.getCardId(), rolledBack.getRfidUid(), rolledBack.getVisibleNumber());
+    }
+
+    @Override
+    CardImportResultDTO created(long line, Card card) {
+        return CardImportResultDTO.created(line, card.getCardId(), card.getRfidUid());
+    }
+
+    @Override
+    CardImportResultDTO rejected(long line, Card card, String reason) {
+        return CardImportResultDTO.rejected(line, card.getRfidUid(), reason);
+    }
+
+    @Override
+    boolean isCreated(CardImportResultDTO result) {
+        return CardImportResultDTO.CREATED.equals(result.getStatus());
+    }
+
+    /**
+     * Adds the card to {@code cards} and returns null when the row can be inserted, the reason otherwise.
+     */
+    private String check(long id, CreateCardCommand command, Set<String> rfidUids, Set<String> visibleNumbers,
+                         List<Card> cards) {
+        Card card;
+        try {
+            card = new Card(id, command.getRfidUid(), command.getVisibleNumber());
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        // deduplicated by the key the unique constraints compare
+        if (!rfidUids.add(Card.uniqueKey(card.getRfidUid())) || cardRepository.existsByRfidUid(card.getRfidUid())) {
+            return "Card with RFID UID already exists: " + card.getRfidUid();
+        }
+        if (!visibleNumbers.add(Card.uniqueKey(card.getVisibleNumber()))
+                || cardRepository.existsByVisibleNumber(card.getVisibleNumber())) {
+            return "Card with visible number already exists: " + card.getVisibleNumber();
+        }
+        cards.add(card);
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.volvo.emsp.application.service;
+
+import com.volvo.emsp.application.command.ImportRow;
+import com.volvo.emsp.execption.ResourceAlreadyExistsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Imports files of any size: rows are read, checked and inserted {@code app.import.batch-size} at a time, each chunk
+ * in its own transaction, so neither the file nor the results are ever held in memory.
+ * <p>
+ * A chunk is inserted as one JDBC batch. When one of its keys was taken since the check, the batch is rolled back and
+ * the rows are inserted one by one, so only those that clash are rejected.
+ *
+ * @param <C> command of a row
+ * @param <A> aggregate created from a row
+ * @param <R> result of a row
+ */
+abstract class ChunkedImport<C, A, R> {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final String name;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    /**
+     * @param name what is imported, for the log
+     */
+    ChunkedImport(String name, PlatformTransactionManager transactionManager, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Import batch size must be positive");
+        }
+        this.name = name;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param results receives the results of each chunk, one per row in file order, once the chunk is committed
+     */
+    void importRows(Iterator<ImportRow<C>> rows, Consumer<List<R>> results) {
+        long created = 0;
+        long rejected = 0;
+        List<ImportRow<C>> chunk = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == batchSize || !rows.hasNext()) {
+                List<R> chunkResults = importChunk(chunk);
+                for (R result : chunkResults) {
+                    if (isCreated(result)) {
+                        created++;
+                    } else {
+                        rejected++;
+                    }
+                }
+                results.accept(chunkResults);
+                chunk.clear();
+            }
+        }
+        log.info("Imported {} {}, rejected {} rows", created, name, rejected);
+    }
+
+    private List<R> importChunk(List<ImportRow<C>> chunk) {
+        List<R> results = new ArrayList<>(Collections.nCopies(chunk.size(), null));
+        List<A> aggregates = new ArrayList<>(chunk.size());
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        check(chunk, results, aggregates, positions);
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertAll(aggregates));
+            for (int j = 0; j < aggregates.size(); j++) {
+                results.set(positions.get(j), created(chunk.get(positions.get(j)).line(), aggregates.get(j)));
+            }
+        } catch (ResourceAlreadyExistsException e) {
+            // taken by a concurrent insert since the check, find out which rows one by one
+            for (int j = 0; j < aggregates.size(); j++) {
+                A aggregate = copy(aggregates.get(j));
+                long line = chunk.get(positions.get(j)).line();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(aggregate));
+                    results.set(positions.get(j), created(line, aggregate));
+                } catch (ResourceAlreadyExistsException rowException) {
+                    results.set(positions.get(j), rejected(line, aggregate, rowException.getMessage()));
+                }
+            }
+        }
+        return List.copyOf(results);
+    }
+
+    /**
+     * Check the rows of a chunk. A row that can not be inserted gets its result set in {@code results}, at its index.
+     * For every other row, the aggregate to insert goes to {@code aggregates} and the row's index to
+     * {@code positions}.
+     */
+    abstract void check(List<ImportRow<C>> chunk, List<R> results, List<A> aggregates, List<Integer> positions);
+
+    /**
+     * Insert the aggregates as one batch, in the chunk's transaction.
+     *
+     * @throws ResourceAlreadyExistsException when a key is taken
+     */
+    abstract void insertAll(List<A> aggregates);
+
+    /**
+     * Insert one aggregate, in a transaction of its own.
+     *
+     * @throws ResourceAlreadyExistsException when a key is taken
+     */
+    abstract void insert(A aggregate);
+
+    /**
+     * A new copy of an aggregate whose batch insert was rolled back.
+     */
+    abstract A copy(A rolledBack);
+
+    abstract R created(long line, A aggregate);
+
+    abstract R rejected(long line, A aggregate, String reason);
+
+    abstract boolean isCreated(R result);
+}
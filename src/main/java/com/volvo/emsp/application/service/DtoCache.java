@@ -0,0 +1,27 @@
+package com.volvo.emsp.application.service;
+
+import com.volvo.emsp.application.dto.AccountDTO;
+import com.volvo.emsp.application.dto.CardDTO;
+
+import java.util.Optional;
+
+/**
+ * Cache shared by all nodes in front of the lookups by id. It is only a shortcut: an empty result means "ask the
+ * database", never "does not exist".
+ * <p>
+ * The application services evict an entry whenever they change the aggregate behind it.
+ */
+public interface DtoCache {
+
+    Optional<CardDTO> getCard(Long cardId);
+
+    void putCard(CardDTO card);
+
+    void evictCard(Long cardId);
+
+    Optional<AccountDTO> getAccount(Long accountId);
+
+    void putAccount(AccountDTO account);
+
+    void evictAccount(Long accountId);
+}
@@ -0,0 +1,73 @@
+package com.volvo.emsp.application.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write in its own transaction and starts it over, re-reading everything, when the commit loses
+ * an optimistic lock to a concurrent writer.
+ * <p>
+ * Up to {@code app.optimistic-retry.max-attempts} attempts. Before attempt n it sleeps a random time of up to
+ * {@code app.optimistic-retry.backoff-ms} times 2^(n-2), so the writers that collided do not collide again.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticRetry(
+            PlatformTransactionManager transactionManager,
+            @Value("${app.optimistic-retry.max-attempts:3}") int maxAttempts,
+            @Value("${app.optimistic-retry.backoff-ms:20}") long backoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Optimistic retry max attempts must be positive");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * @param write read, apply and save, must have no effect outside the transaction
+     * @throws OptimisticLockingFailureException when the last attempt loses as well
+     */
+    public <T> T execute(Supplier<T> write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // joins the caller's transaction, which can only be retried as a whole
+            return write.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> write.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.info("Concurrent update, retrying ({}/{}): {}", attempt, maxAttempts, e.getMessage());
+                sleep(ThreadLocalRandom.current().nextLong((backoffMillis << (attempt - 1)) + 1));
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.volvo.emsp.application.service;
+
+import com.volvo.emsp.execption.BadRequestException;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Bounds of the page size of the list endpoints. A page is built in memory, reading more goes through the exports.
+ */
+final class PageSizes {
+
+    static final int MAX = 1000;
+
+    private PageSizes() {
+    }
+
+    static void check(int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must not be less than one");
+        }
+        if (size > MAX) {
+            throw new BadRequestException("Page size must not be greater than " + MAX);
+        }
+    }
+
+    static void check(Pageable pageable) {
+        if (pageable.isPaged()) {
+            check(pageable.getPageSize());
+        }
+    }
+}
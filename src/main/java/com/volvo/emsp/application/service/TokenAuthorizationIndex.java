@@ -0,0 +1,214 @@
+package com.volvo.emsp.application.service;
+
+import com.volvo.emsp.application.dto.TokenAuthorizationDTO;
+import com.volvo.emsp.domain.model.Account;
+import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.model.enums.AccountStatus;
+import com.volvo.emsp.domain.model.enums.CardStatus;
+import com.volvo.emsp.domain.repository.AccountRepository;
+import com.volvo.emsp.domain.repository.CardRepository;
+import com.volvo.emsp.domain.repository.KeysetCursor;
+import com.volvo.emsp.execption.ResourceNotFoundException;
+import com.volvo.emsp.execption.ServiceUnavailableException;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * rfidUid to card and account status, held in memory so the charge point authorization never touches the database.
+ * <p>
+ * The first refresh loads every card and account, later ones re-read the rows updated since the previous
+ * poll through the last-updated index. The poll window starts {@code app.token-index.overlap-ms} early, for rows
+ * written by transactions that committed after their timestamp. Changes made on this node are applied right after
+ * they commit. An entry is never replaced by an older one.
+ */
+@Component
+public class TokenAuthorizationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenAuthorizationIndex.class);
+
+    private record CardToken(CardStatus status, String contractId, Long accountId, OffsetDateTime lastUpdated) {
+    }
+
+    private record AccountState(AccountStatus status, OffsetDateTime lastUpdated) {
+    }
+
+    @FunctionalInterface
+    private interface Scan<T> {
+        List<T> find(@Nullable OffsetDateTime from, @Nullable KeysetCursor after, int limit);
+    }
+
+    private final ConcurrentHashMap<String, CardToken> cards = new ConcurrentHashMap<>();
+    // cardId to rfidUid, for the status changes written without loading the card, see cardStatusChanged
+    private final ConcurrentHashMap<Long, String> rfidUids = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AccountState> accounts = new ConcurrentHashMap<>();
+    private final CardRepository cardRepository;
+    private final AccountRepository accountRepository;
+    private final int batchSize;
+    private final Duration overlap;
+
+    private OffsetDateTime polledFrom; // null until the first load, guarded by refresh
+    private volatile boolean loaded;
+
+    public TokenAuthorizationIndex(
+            CardRepository cardRepository,
+            AccountRepository accountRepository,
+            @Value("${app.token-index.batch-size:1000}") int batchSize,
+            @Value("${app.token-index.overlap-ms:10000}") long overlapMillis) {
+        this.cardRepository = cardRepository;
+        this.accountRepository = accountRepository;
+        this.batchSize = batchSize;
+        this.overlap = Duration.ofMillis(overlapMillis);
+    }
+
+    /**
+     * @throws ResourceNotFoundException    when no card has this RFID UID
+     * @throws ServiceUnavailableException while the first load is running
+     */
+    public TokenAuthorizationDTO authorize(String rfidUid) {
+        if (!loaded) {
+            throw new ServiceUnavailableException("Token index is still loading");
+        }
+        CardToken card = cards.get(rfidUid);
+        if (card == null) {
+            throw new ResourceNotFoundException("Token not found: " + rfidUid);
+        }
+        AccountState account = card.accountId() == null ? null : accounts.get(card.accountId());
+        return new TokenAuthorizationDTO(rfidUid, card.status(), card.contractId(),
+                account == null ? null : account.status());
+    }
+
+    /**
+     * The first load runs before the application reports ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${app.token-index.poll-ms:5000}", fixedDelayString = "${app.token-index.poll-ms:5000}")
+    public synchronized void refresh() {
+        OffsetDateTime pollStart = OffsetDateTime.now();
+        try {
+            scan((from, after, limit) -> accountRepository.findByLastUpdatedBetween(from, null, after, limit),
+                    account -> new KeysetCursor(account.getLastUpdated(), account.getAccountId()), this::put);
+            scan((from, after, limit) -> cardRepository.findByLastUpdatedBetween(from, null, after, limit),
+                    card -> new KeysetCursor(card.getLastUpdated(), card.getCardId()), this::put);
+        } catch (Exception e) {
+            log.error("Failed to refresh the token index, retrying from {}", polledFrom, e);
+            return;
+        }
+        if (!loaded) {
+            log.info("token index loaded {} cards and {} accounts", cards.size(), accounts.size());
+            loaded = true;
+        }
+        polledFrom = pollStart.minus(overlap);
+    }
+
+    /**
+     * Apply a card written by this node once the surrounding transaction commits.
+     */
+    public void cardChanged(Card card) {
+        Long cardId = card.getCardId();
+        String rfidUid = card.getRfidUid();
+        CardToken token = toToken(card);
+        afterCommit(() -> put(cardId, rfidUid, token));
+    }
+
+    /**
+     * Apply a status change written by this node without loading the card, once the surrounding transaction commits.
+     * A card the index does not know yet is left to the next refresh.
+     *
+     * @param account the account the card was assigned to, null when the assignment did not change
+     */
+    public void cardStatusChanged(Long cardId, CardStatus status, @Nullable Account account, OffsetDateTime lastUpdated) {
+        afterCommit(() -> {
+            String rfidUid = rfidUids.get(cardId);
+            if (rfidUid == null) {
+                return;
+            }
+            cards.computeIfPresent(rfidUid, (key, current) -> {
+                if (lastUpdated.isBefore(current.lastUpdated())) {
+                    return current;
+                }
+                return account == null
+                        ? new CardToken(status, current.contractId(), current.accountId(), lastUpdated)
+                        : new CardToken(status, account.getContractId().toString(), account.getAccountId(), lastUpdated);
+            });
+        });
+    }
+
+    /**
+     * Apply an account written by this node once the surrounding transaction commits.
+     */
+    public void accountChanged(Account account) {
+        Long accountId = account.getAccountId();
+        AccountState state = new AccountState(account.getStatus(), account.getLastUpdated());
+        afterCommit(() -> put(accountId, state));
+    }
+
+    private <T> void scan(Scan<T> scan, Function<T, KeysetCursor> cursorOf, Consumer<T> put) {
+        KeysetCursor after = null;
+        List<T> page;
+        do {
+            page = scan.find(polledFrom, after, batchSize);
+            page.forEach(put);
+            if (!page.isEmpty()) {
+                after = cursorOf.apply(page.get(page.size() - 1));
+            }
+        } while (page.size() == batchSize);
+    }
+
+    private void put(Card card) {
+        put(card.getCardId(), card.getRfidUid(), toToken(card));
+    }
+
+    private void put(Long cardId, String rfidUid, CardToken token) {
+        rfidUids.put(cardId, rfidUid);
+        cards.merge(rfidUid, token, (current, next) ->
+                next.lastUpdated().isBefore(current.lastUpdated()) ? current : next);
+    }
+
+    private void put(Account account) {
+        put(account.getAccountId(), new AccountState(account.getStatus(), account.getLastUpdated()));
+    }
+
+    private void put(Long accountId, AccountState state) {
+        accounts.merge(accountId, state, (current, next) ->
+                next.lastUpdated().isBefore(current.lastUpdated()) ? current : next);
+    }
+
+    private static CardToken toToken(Card card) {
+        return new CardToken(card.getStatus(),
+                card.getContractId() == null ? null : card.getContractId().toString(),
+                card.getAccountId(),
+                card.getLastUpdated());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package com.volvo.emsp.application.service;
+
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Approximate totals of the list filters, so clients polling a list do not run a COUNT on every call.
+ * <p>
+ * A total is served from memory and recounted in the background once it is older than
+ * {@code app.count-estimate.ttl-ms}; the first call for a filter gets no total. The time range of a filter is
+ * widened to whole minutes, so sliding windows share one count.
+ */
+@Component
+public class TotalEstimateCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TotalEstimateCache.class);
+
+    private final Executor executor;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentMap<Key, Estimate> estimates = new ConcurrentHashMap<>();
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public TotalEstimateCache(
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+            @Value("${app.count-estimate.ttl-ms:60000}") long ttlMillis,
+            @Value("${app.count-estimate.max-entries:1024}") int maxEntries) {
+        this(executor, ttlMillis, maxEntries, System::nanoTime);
+    }
+
+    TotalEstimateCache(Executor executor, long ttlMillis, int maxEntries, LongSupplier nanoClock) {
+        if (ttlMillis <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("ttl and max entries must be positive");
+        }
+        this.executor = executor;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * The last known total of {@code name} between {@code from} and {@code to}, scheduling a recount when it is
+     * missing or stale.
+     *
+     * @param counter exact count for a (widened) range, run on the background executor
+     * @return null until the filter has been counted once
+     */
+    @Nullable
+    public Long estimate(String name, @Nullable OffsetDateTime from, @Nullable OffsetDateTime to,
+                         ToLongBiFunction<OffsetDateTime, OffsetDateTime> counter) {
+        Key key = new Key(name, floorToMinute(from), ceilToMinute(to));
+        Estimate estimate = estimates.get(key);
+        if ((estimate == null || nanoClock.getAsLong() - estimate.countedAt() >= ttlNanos) && refreshing.add(key)) {
+            try {
+                executor.execute(() -> refresh(key, counter));
+            } catch (RejectedExecutionException e) {
+                refreshing.remove(key);
+                log.warn("Could not schedule count of {}", key, e);
+            }
+        }
+        return estimate == null ? null : estimate.total();
+    }
+
+    private void refresh(Key key, ToLongBiFunction<OffsetDateTime, OffsetDateTime> counter) {
+        try {
+            long total = counter.applyAsLong(key.from(), key.to());
+            if (estimates.size() >= maxEntries && !estimates.containsKey(key)) {
+                evictStale();
+            }
+            estimates.put(key, new Estimate(total, nanoClock.getAsLong()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to count {}", key, e);
+        } finally {
+            refreshing.remove(key);
+        }
+    }
+
+    private void evictStale() {
+        long now = nanoClock.getAsLong();
+        estimates.values().removeIf(estimate -> now - estimate.countedAt() >= ttlNanos);
+        if (estimates.size() >= maxEntries) {
+            // all fresh: too many distinct filters, start over rather than grow
+            estimates.clear();
+        }
+    }
+
+    int size() {
+        return estimates.size();
+    }
+
+    @Nullable
+    private static OffsetDateTime floorToMinute(@Nullable OffsetDateTime time) {
+        return time == null ? null : time.withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    @Nullable
+    private static OffsetDateTime ceilToMinute(@Nullable OffsetDateTime time) {
+        OffsetDateTime floor = floorToMinute(time);
+        return floor == null || floor.isEqual(time) ? floor : floor.plusMinutes(1);
+    }
+
+    private record Key(String name, OffsetDateTime from, OffsetDateTime to) {
+    }
+
+    private record Estimate(long total, long countedAt) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.volvo.emsp.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.volvo.emsp.domain.model.Account;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hibernate second-level cache for {@link Account}, held in process by Caffeine.
+ * <p>
+ * The region is {@code READ_WRITE}: a status change replaces the cached entry when its transaction commits, so this
+ * instance never serves an outdated status. Other instances only see the change once their entry expires, which
+ * is what {@code app.entity-cache.*.ttl-ms} bounds. Writes therefore never decide on a cached account: they read it
+ * with {@code AccountRepository.findByIdForWrite}, around the cache, and only reads by id are served from it. Hits and
+ * misses are exposed as {@code cache.gets} per region.
+ * <p>
+ * Cards are not cached here: their status changes are JPQL bulk UPDATEs, and each of those clears the whole region
+ * of the entity it updates. Lookups of a card by id are served by the {@code DtoCache} instead.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.entity-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class EntityCacheConfig {
+
+    // every application context gets its own cache manager, caches must not leak between them
+    private static final AtomicInteger CACHE_MANAGERS = new AtomicInteger();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(
+            @Value("${app.entity-cache.account.max-entries:10000}") long accountMaxEntries,
+            @Value("${app.entity-cache.account.ttl-ms:60000}") long accountTtlMillis) {
+        URI uri = URI.create("emsp-entity-cache-" + CACHE_MANAGERS.incrementAndGet());
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(uri, getClass().getClassLoader());
+        cacheManager.createCache(Account.CACHE_REGION, region(accountMaxEntries, accountTtlMillis));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheProperties(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            // the regions are created above, a missing one is a mapping error
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder entityCacheMetrics(CacheManager entityCacheManager) {
+        return registry -> {
+            for (String region : entityCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, entityCacheManager.getCache(region));
+            }
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, long ttlMillis) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,48 @@
+package com.volvo.emsp.config;
+
+import com.volvo.emsp.domain.service.impl.ClockDriftPolicy;
+import com.volvo.emsp.domain.service.impl.EmaidSnowflakeGenerator;
+import com.volvo.emsp.domain.service.impl.ShortSnowflakeIdGenerator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the clock drift of the id generators under {@code /actuator/metrics/idgen.clock.*}.
+ */
+@Configuration
+public class IdGeneratorMetricsConfig {
+
+    @Bean
+    public MeterBinder idGeneratorClockMetrics(ShortSnowflakeIdGenerator idGenerator,
+                                               EmaidSnowflakeGenerator emaidGenerator) {
+        return registry -> {
+            bind(registry, "id", idGenerator.getClockDriftPolicy());
+            bind(registry, "emaid", emaidGenerator.getClockDriftPolicy());
+        };
+    }
+
+    private static void bind(MeterRegistry registry, String generator, ClockDriftPolicy policy) {
+        Gauge.builder("idgen.clock.drift", policy, ClockDriftPolicy::getDriftMillis)
+                .description("How far the logical clock is ahead of the wall clock")
+                .baseUnit("milliseconds")
+                .tag("generator", generator)
+                .register(registry);
+        Gauge.builder("idgen.clock.drift.max", policy, ClockDriftPolicy::getMaxObservedDriftMillis)
+                .description("Largest drift observed since startup")
+                .baseUnit("milliseconds")
+                .tag("generator", generator)
+                .register(registry);
+        FunctionCounter.builder("idgen.clock.borrowed", policy, ClockDriftPolicy::getBorrowedIds)
+                .description("Ids issued ahead of the wall clock")
+                .tag("generator", generator)
+                .register(registry);
+        FunctionCounter.builder("idgen.clock.rejected", policy, ClockDriftPolicy::getRejectedIds)
+                .description("Ids refused because the drift exceeded the budget")
+                .tag("generator", generator)
+                .register(registry);
+    }
+}
@@ -0,0 +1,101 @@
+package com.volvo.emsp.config;
+
+import com.volvo.emsp.infrastructure.datasource.ReadYourWrites;
+import com.volvo.emsp.infrastructure.datasource.ReplicaDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Sends read-only transactions to a replica when {@code app.datasource.replica.url} is set.
+ * <p>
+ * The application {@link DataSource} is a {@link LazyConnectionDataSourceProxy}: the physical connection is only
+ * taken once the transaction has marked it read-only, which selects the {@link ReplicaDataSource}. Everything else
+ * goes to the primary configured under {@code spring.datasource}. The primary pool takes its settings from
+ * {@code spring.datasource.hikari} like the auto-configured one would, the replica pool from
+ * {@code app.datasource.replica.hikari}.
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replica.url")
+public class ReadReplicaConfig {
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaPoolDataSource(
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean(defaultCandidate = false)
+    public ReplicaDataSource replicaDataSource(
+            @Qualifier("replicaPoolDataSource") DataSource replica,
+            @Qualifier("primaryDataSource") DataSource primary) {
+        return new ReplicaDataSource(replica, primary);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") ReplicaDataSource replica) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(ReadYourWrites.markingWrites(primary));
+        dataSource.setReadOnlyDataSource(replica);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(@Value("${app.datasource.replica.read-your-writes-ms:2000}") long windowMillis) {
+        return new ReadYourWrites(Duration.ofMillis(windowMillis));
+    }
+
+    @Bean
+    public ReplicaHealthCheck replicaHealthCheck(@Qualifier("replicaDataSource") ReplicaDataSource replica) {
+        return new ReplicaHealthCheck(replica);
+    }
+
+    static class ReplicaHealthCheck {
+
+        private final ReplicaDataSource replica;
+
+        ReplicaHealthCheck(ReplicaDataSource replica) {
+            this.replica = replica;
+        }
+
+        @Scheduled(fixedDelayString = "${app.datasource.replica.health-check-ms:5000}")
+        void check() {
+            replica.checkHealth();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.volvo.emsp.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Async MVC requests, the NDJSON exports, run on a bounded pool of their own. On the shared task execution pool an
+ * export could hold a thread for as long as its client reads, and with it the {@code @Async} event handlers and the
+ * count refreshes queued behind.
+ * <p>
+ * Once every thread is busy and the queue is full, a new async request is answered with 503. The pool is not a bean,
+ * an {@code Executor} bean would replace the auto-configured task execution pool.
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer, DisposableBean {
+
+    static final String THREAD_NAME_PREFIX = "mvc-async-";
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public WebAsyncConfig(
+            @Value("${app.async-requests.pool-size:8}") int poolSize,
+            @Value("${app.async-requests.queue-capacity:0}") int queueCapacity) {
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        executor.initialize();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(executor);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -3,24 +3,36 @@ package com.volvo.emsp.domain.model;
 import com.volvo.emsp.domain.model.enums.AccountStatus;
 import com.volvo.emsp.execption.InvalidBusinessOperationException;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.OffsetDateTime;
 import java.util.Objects;
 
 @Entity
 @Table(name = "accounts", uniqueConstraints = {
-        @UniqueConstraint(name = "idx_email", columnNames = "email")
+        @UniqueConstraint(name = "idx_email_hash", columnNames = "email_hash")
 }, indexes = {
-        @Index(name = "account_idx_last_updated", columnList = "last_updated")
+        @Index(name = "idx_account_last_updated_id", columnList = "last_updated, account_id")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Account.CACHE_REGION)
 public class Account extends AggregateRoot {
 
+    /**
+     * Second-level cache region, see {@code EntityCacheConfig}.
+     */
+    public static final String CACHE_REGION = "account";
+
     @Id
     private Long accountId;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     @Convert(converter = EmailConverter.class)
-    private Email email; // identify an account
+    private Email email;
+
+    @Column(name = "email_hash", nullable = false, length = Email.DIGEST_LENGTH, columnDefinition = "BINARY(16)")
+    private byte[] emailHash; // identify an account, see Email#digest
 
     @Column
     @Convert(converter = EmaidConverter.class)
@@ -33,6 +45,10 @@ public class Account extends AggregateRoot {
     @Column(name = "last_updated", nullable = false)
     private OffsetDateTime lastUpdated;
 
+    @Version
+    @Column(nullable = false)
+    private long version; // optimistic lock
+
     protected Account() {
         // JPA
     }
@@ -40,6 +56,7 @@ public class Account extends AggregateRoot {
     public Account(Long accountId, String email, String contractId) {
         this.accountId = Objects.requireNonNull(accountId);
         this.email = new Email(email);
+        this.emailHash = this.email.digest();
         this.contractId = new Emaid(contractId);
         this.status = AccountStatus.CREATED;
         this.lastUpdated = OffsetDateTime.now();
@@ -48,6 +65,7 @@ public class Account extends AggregateRoot {
     public Account(Long accountId, Email email, Emaid contractId) {
         this.accountId = Objects.requireNonNull(accountId);
         this.email = email;
+        this.emailHash = email.digest();
         this.contractId = contractId;
         this.status = AccountStatus.CREATED;
         this.lastUpdated = OffsetDateTime.now();
@@ -55,7 +73,7 @@ public class Account extends AggregateRoot {
 
     @Override
     @Transient
-    protected Long getId() {
+    public Long getId() {
         return getAccountId();
     }
 
@@ -87,6 +105,10 @@ public class Account extends AggregateRoot {
         return lastUpdated;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     private void changeStatus(AccountStatus target) {
         if (this.status == target) return;
         if (!this.status.canTransitionTo(target)) {
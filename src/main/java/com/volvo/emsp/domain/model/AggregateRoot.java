@@ -2,19 +2,44 @@ package com.volvo.emsp.domain.model;
 
 import com.volvo.emsp.domain.event.DomainEvent;
 import com.volvo.emsp.domain.event.EventSource;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Ids are assigned by the application, so {@link #isNew()} tells Spring Data to persist instead of merge:
+ * a new aggregate is written with a single INSERT and no SELECT beforehand.
+ */
+@MappedSuperclass
 @SuppressWarnings("unused")
-public abstract class AggregateRoot {
+public abstract class AggregateRoot implements Persistable<Long> {
 
-    protected abstract Long getId();
+    @Override
+    public abstract Long getId();
 
     @Transient
     protected final List<DomainEvent> domainEvents = new ArrayList<>();
 
+    // true until the aggregate has been loaded or persisted
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     protected void addDomainEvent(DomainEvent event) {
         domainEvents.add(event);
     }
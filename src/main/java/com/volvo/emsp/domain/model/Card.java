@@ -8,6 +8,7 @@ import io.micrometer.common.util.StringUtils;
 import jakarta.persistence.*;
 
 import java.time.OffsetDateTime;
+import java.util.Locale;
 
 import static java.util.Objects.requireNonNull;
 
@@ -16,8 +17,11 @@ import static java.util.Objects.requireNonNull;
  * Each card has a unique identifier (cardId) and can be assigned to an account.
  */
 @Entity
-@Table(name = "cards", indexes = {
-        @Index(name = "idx_last_updated", columnList = "last_updated"),
+@Table(name = "cards", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_card_rfid_uid", columnNames = "rfid_uid"),
+        @UniqueConstraint(name = "uk_card_visible_number", columnNames = "visible_number")
+}, indexes = {
+        @Index(name = "idx_card_last_updated_id", columnList = "last_updated, card_id"),
         @Index(name = "idx_rfid_uid", columnList = "rfid_uid")
 })
 public class Card extends AggregateRoot {
@@ -36,13 +40,13 @@ public class Card extends AggregateRoot {
     /**
      * The unique RFID identifier associated with the card.
      */
-    @Column(name = "rfid_uid", nullable = false, unique = true, length = 100, updatable = false)
+    @Column(name = "rfid_uid", nullable = false, length = 100, updatable = false)
     private String rfidUid;
 
     /**
      * The visible card number that can be shown on the card.
      */
-    @Column(name = "visible_number", nullable = false, unique = true, length = 100, updatable = false)
+    @Column(name = "visible_number", nullable = false, length = 100, updatable = false)
     private String visibleNumber;
 
     /**
@@ -70,6 +74,13 @@ public class Card extends AggregateRoot {
     @Column(name = "last_updated", nullable = false)
     private OffsetDateTime lastUpdated;
 
+    /**
+     * Optimistic lock, incremented by every update.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     /**
      * Default constructor.
      */
@@ -100,9 +111,17 @@ public class Card extends AggregateRoot {
         this.lastUpdated = OffsetDateTime.now();
     }
 
+    /**
+     * The form an RFID UID or visible number is compared in for uniqueness: lower-cased, like the case-insensitive
+     * collation of the unique constraints.
+     */
+    public static String uniqueKey(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
     @Override
     @Transient
-    protected Long getId() {
+    public Long getId() {
         return getCardId();
     }
 
@@ -177,6 +196,10 @@ public class Card extends AggregateRoot {
         return lastUpdated;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     // Update card status and lastUpdated field
     private void changeStatus(CardStatus newStatus) {
         if (newStatus == null) {
@@ -1,45 +1,141 @@
 package com.volvo.emsp.domain.model;
 
-import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+/**
+ * EMAID: country (2) + provider (3) + instance (9), optionally followed by the {@link EmaidCheckDigit check character}.
+ * <p>
+ * Packed as base36 into two longs: {@code low} holds characters 3-14, {@code high} the country code times 37 plus the
+ * check character (+1, 0 when absent). EMAIDs are case-insensitive and always rendered in upper case, the rendered
+ * string is kept once built.
+ */
 public class Emaid {
 
-    private static final String REGEX_PATTERN = "^[A-Z]{2}[\\dA-Z]{3}[\\dA-Z]{9}$";
-    private static final Pattern pattern = Pattern.compile(REGEX_PATTERN, Pattern.CASE_INSENSITIVE);
+    private static final int LENGTH = EmaidCheckDigit.LENGTH;
+    private static final int COUNTRY_LENGTH = 2;
+    private static final int NO_CHECK_DIGIT = 0;
+    private static final int CHECK_DIGIT_VALUES = 37;
+    private static final char[] BASE36_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
 
     public static boolean validate(String input) {
-        if (input == null || input.isEmpty()) {
+        if (input == null || (input.length() != LENGTH && input.length() != LENGTH + 1)) {
             return false;
         }
-        Matcher matcher = pattern.matcher(input);
-        return matcher.matches();
+        for (int i = 0; i < input.length(); i++) {
+            int v = valueOf(input.charAt(i));
+            // country code is letters only
+            if (v < 0 || (i < COUNTRY_LENGTH && v < 10)) {
+                return false;
+            }
+        }
+        return input.length() == LENGTH || EmaidCheckDigit.matches(input);
+    }
+
+    /**
+     * For values that were validated before they were stored.
+     */
+    static Emaid unpack(long high, long low) {
+        return new Emaid(high, low);
     }
 
-    private final String value;
+    private final long high;
+    private final long low;
+    // racy single-check, every thread renders the same string
+    private String value;
 
     public Emaid(String value) {
-        if(!validate(value))
+        if (!validate(value))
             throw new IllegalArgumentException("Invalid Emaid " + value);
-        this.value = value;
+        this.high = packHigh(value);
+        this.low = packLow(value);
+    }
+
+    private Emaid(long high, long low) {
+        if (high < 0 || high >= 36 * 36 * CHECK_DIGIT_VALUES || low < 0)
+            throw new IllegalArgumentException("Invalid packed Emaid " + high + ":" + low);
+        this.high = high;
+        this.low = low;
+    }
+
+    static long packHigh(CharSequence value) {
+        long country = base36(value, 0, COUNTRY_LENGTH);
+        int checkDigit = value.length() > LENGTH ? digit(value.charAt(LENGTH)) + 1 : NO_CHECK_DIGIT;
+        return country * CHECK_DIGIT_VALUES + checkDigit;
+    }
+
+    static long packLow(CharSequence value) {
+        return base36(value, COUNTRY_LENGTH, LENGTH);
+    }
+
+    long high() {
+        return high;
+    }
+
+    long low() {
+        return low;
+    }
+
+    public boolean hasCheckDigit() {
+        return high % CHECK_DIGIT_VALUES != NO_CHECK_DIGIT;
+    }
+
+    private static long base36(CharSequence value, int from, int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            result = result * 36 + digit(value.charAt(i));
+        }
+        return result;
+    }
+
+    private static int digit(char c) {
+        int v = valueOf(c);
+        if (v < 0) {
+            throw new IllegalArgumentException("Invalid Emaid character " + c);
+        }
+        return v;
+    }
+
+    private static int valueOf(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 10;
+        if (c >= 'a' && c <= 'z') return c - 'a' + 10;
+        return -1;
     }
 
     @Override
     public String toString() {
+        String value = this.value;
+        if (value == null) {
+            value = render();
+            this.value = value;
+        }
         return value;
     }
 
+    private String render() {
+        int checkDigit = (int) (high % CHECK_DIGIT_VALUES);
+        char[] chars = new char[checkDigit == NO_CHECK_DIGIT ? LENGTH : LENGTH + 1];
+        long country = high / CHECK_DIGIT_VALUES;
+        chars[0] = BASE36_CHARS[(int) (country / 36)];
+        chars[1] = BASE36_CHARS[(int) (country % 36)];
+        long rest = low;
+        for (int i = LENGTH - 1; i >= COUNTRY_LENGTH; i--) {
+            chars[i] = BASE36_CHARS[(int) (rest % 36)];
+            rest /= 36;
+        }
+        if (checkDigit != NO_CHECK_DIGIT) {
+            chars[LENGTH] = BASE36_CHARS[checkDigit - 1];
+        }
+        return new String(chars);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Emaid emaid = (Emaid) o;
-        return Objects.equals(value, emaid.value);
+        return high == emaid.high && low == emaid.low;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(value);
+        return 31 * Long.hashCode(low) + (int) high;
     }
 }
-
@@ -0,0 +1,109 @@
+package com.volvo.emsp.domain.model;
+
+/**
+ * ISO 15118 / eMI3 check character of an EMAID.
+ * <p>
+ * Every alphanumeric character {@code v} (0-9, A-Z as 0-35) is split into a Z2 pair {@code q = (v / 18, v / 9 % 2)}
+ * and a Z3 pair {@code r = (v % 9 / 3, v % 3)}. The pairs of the character at position {@code i} (1-based) are
+ * multiplied by {@code P1^i} (mod 2) and {@code P2^i} (mod 3) and summed. The check character is the one that,
+ * at position 15, brings both sums back to zero.
+ */
+public final class EmaidCheckDigit {
+
+    /**
+     * Length of an EMAID without the check character.
+     */
+    public static final int LENGTH = 14;
+
+    private static final int[][] P1 = {{0, 1}, {1, 1}};
+    private static final int[][] P2 = {{0, 1}, {1, 2}};
+
+    // P1^i mod 2 and P2^i mod 3 for i = 1..15, flattened as a00 a01 a10 a11
+    private static final int[][] P1_POWERS = powers(P1, 2);
+    private static final int[][] P2_POWERS = powers(P2, 3);
+
+    // sums of the first 14 characters (q1 q2 r1 r2 packed as q1 * 18 + q2 * 9 + r1 * 3 + r2) -> check character
+    private static final char[] CHECK_CHARS = checkChars();
+
+    private EmaidCheckDigit() {
+    }
+
+    /**
+     * @param emaid at least {@link #LENGTH} characters, only the first 14 are used
+     */
+    public static char compute(CharSequence emaid) {
+        int q1 = 0, q2 = 0, r1 = 0, r2 = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int v = valueOf(emaid.charAt(i));
+            int[] p1 = P1_POWERS[i];
+            int[] p2 = P2_POWERS[i];
+            int vq1 = v / 18, vq2 = v / 9 % 2, vr1 = v % 9 / 3, vr2 = v % 3;
+            q1 += vq1 * p1[0] + vq2 * p1[2];
+            q2 += vq1 * p1[1] + vq2 * p1[3];
+            r1 += vr1 * p2[0] + vr2 * p2[2];
+            r2 += vr1 * p2[1] + vr2 * p2[3];
+        }
+        return CHECK_CHARS[(q1 % 2) * 18 + (q2 % 2) * 9 + (r1 % 3) * 3 + r2 % 3];
+    }
+
+    /**
+     * Whether the 15th character of {@code emaid} is its check character.
+     */
+    public static boolean matches(CharSequence emaid) {
+        return emaid.length() == LENGTH + 1
+                && Character.toUpperCase(emaid.charAt(LENGTH)) == compute(emaid);
+    }
+
+    private static int valueOf(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        }
+        throw new IllegalArgumentException("Invalid Emaid character " + c);
+    }
+
+    private static char charOf(int v) {
+        return (char) (v < 10 ? '0' + v : 'A' + v - 10);
+    }
+
+    private static int[][] powers(int[][] p, int mod) {
+        int[][] powers = new int[LENGTH + 1][];
+        int[][] current = p;
+        for (int i = 0; i <= LENGTH; i++) {
+            powers[i] = new int[]{current[0][0], current[0][1], current[1][0], current[1][1]};
+            current = multiply(current, p, mod);
+        }
+        return powers;
+    }
+
+    private static int[][] multiply(int[][] a, int[][] b, int mod) {
+        int[][] c = new int[2][2];
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 2; j++) {
+                c[i][j] = (a[i][0] * b[0][j] + a[i][1] * b[1][j]) % mod;
+            }
+        }
+        return c;
+    }
+
+    private static char[] checkChars() {
+        // the character at position 15 that cancels each possible sum
+        int[] p1 = P1_POWERS[LENGTH];
+        int[] p2 = P2_POWERS[LENGTH];
+        char[] checkChars = new char[36];
+        for (int v = 0; v < 36; v++) {
+            int vq1 = v / 18, vq2 = v / 9 % 2, vr1 = v % 9 / 3, vr2 = v % 3;
+            int q1 = (2 - (vq1 * p1[0] + vq2 * p1[2]) % 2) % 2;
+            int q2 = (2 - (vq1 * p1[1] + vq2 * p1[3]) % 2) % 2;
+            int r1 = (3 - (vr1 * p2[0] + vr2 * p2[2]) % 3) % 3;
+            int r2 = (3 - (vr1 * p2[1] + vr2 * p2[3]) % 3) % 3;
+            checkChars[q1 * 18 + q2 * 9 + r1 * 3 + r2] = charOf(v);
+        }
+        return checkChars;
+    }
+}
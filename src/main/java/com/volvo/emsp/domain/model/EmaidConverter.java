@@ -6,6 +6,10 @@ import jakarta.persistence.Converter;
 @Converter
 public class EmaidConverter implements AttributeConverter<Emaid, String> {
 
+    // direct-mapped cache, so the cards of one account share a single Emaid; a collision just replaces the slot
+    private static final int CACHE_SIZE = 1024;
+    private static final Emaid[] CACHE = new Emaid[CACHE_SIZE];
+
     @Override
     public String convertToDatabaseColumn(Emaid attribute) {
         return attribute != null ? attribute.toString() : null;
@@ -13,7 +17,19 @@ public class EmaidConverter implements AttributeConverter<Emaid, String> {
 
     @Override
     public Emaid convertToEntityAttribute(String dbData) {
-        return dbData != null ? new Emaid(dbData) : null;
+        // validated on write, only packed here
+        return dbData != null ? canonical(Emaid.packHigh(dbData), Emaid.packLow(dbData)) : null;
     }
-}
 
+    static Emaid canonical(long high, long low) {
+        int slot = Long.hashCode(low * 31 + high) & (CACHE_SIZE - 1);
+        Emaid cached = CACHE[slot];
+        if (cached != null && cached.high() == high && cached.low() == low) {
+            return cached;
+        }
+        // Emaid is immutable, so a racy publish is safe
+        Emaid emaid = Emaid.unpack(high, low);
+        CACHE[slot] = emaid;
+        return emaid;
+    }
+}
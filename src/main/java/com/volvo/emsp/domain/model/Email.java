@@ -2,10 +2,17 @@ package com.volvo.emsp.domain.model;
 
 import org.apache.commons.validator.routines.EmailValidator;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.Objects;
 
 public class Email {
 
+    public static final int DIGEST_LENGTH = 16;
+
     /**
      * Validates email address format without network checks
      * @param email the email to validate
@@ -19,27 +26,73 @@ public class Email {
         return validator.isValid(email);
     }
 
+    /**
+     * Trimmed and lower-cased, two emails with the same normalized form belong to one account.
+     */
+    public static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
     public static Email of(String email) {
         return new Email(email);
     }
 
+    /**
+     * For values that were validated before they were stored, skips {@link #isValid(String)}.
+     */
+    static Email trusted(String email) {
+        return new Email(Objects.requireNonNull(email), false);
+    }
+
     private final String email;
+    // lazily computed, see digest()
+    private byte[] digest;
 
     public Email(String email) {
-        if(!isValid(email)) throw new IllegalArgumentException("Invalid email format: " + email);
+        this(email, true);
+    }
+
+    private Email(String email, boolean validate) {
+        if(validate && !isValid(email)) throw new IllegalArgumentException("Invalid email format: " + email);
         this.email = email;
     }
 
+    /**
+     * First {@value #DIGEST_LENGTH} bytes of the SHA-256 of the {@link #normalize normalized} email,
+     * the fixed-width key accounts are looked up by.
+     */
+    public byte[] digest() {
+        byte[] d = digest;
+        if (d == null) {
+            d = computeDigest(normalize(email));
+            digest = d;
+        }
+        return d.clone();
+    }
+
+    private static byte[] computeDigest(String normalized) {
+        try {
+            byte[] sha256 = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(sha256, DIGEST_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * By the {@link #normalize normalized} email, like {@link #digest()}: two emails are equal when they would
+     * belong to one account.
+     */
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Email email1 = (Email) o;
-        return Objects.equals(email, email1.email);
+        return normalize(email).equals(normalize(email1.email));
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(email);
+        return normalize(email).hashCode();
     }
 
     public String toString() {
@@ -13,7 +13,8 @@ public class EmailConverter implements AttributeConverter<Email, String> {
 
     @Override
     public Email convertToEntityAttribute(String dbData) {
-        return dbData != null ? new Email(dbData) : null;
+        // validated on write
+        return dbData != null ? Email.trusted(dbData) : null;
     }
 }
 
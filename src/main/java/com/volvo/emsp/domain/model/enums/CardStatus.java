@@ -1,5 +1,8 @@
 package com.volvo.emsp.domain.model.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum CardStatus {
 
     CREATED,
@@ -18,4 +21,17 @@ public enum CardStatus {
             case DEACTIVATED -> false; // TODO this is a question
         };
     }
+
+    /**
+     * The statuses that can transition to this one, by {@link #canTransitionTo(CardStatus)}.
+     */
+    public Set<CardStatus> predecessors() {
+        Set<CardStatus> predecessors = EnumSet.noneOf(CardStatus.class);
+        for (CardStatus status : values()) {
+            if (status.canTransitionTo(this)) {
+                predecessors.add(status);
+            }
+        }
+        return predecessors;
+    }
 }
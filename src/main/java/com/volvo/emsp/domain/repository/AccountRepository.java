@@ -5,19 +5,96 @@ import com.volvo.emsp.domain.model.Email;
 import jakarta.annotation.Nullable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AccountRepository {
 
+    /**
+     * Case-insensitive, by {@link Email#digest()}.
+     */
     Optional<Account> findByEmail(Email email);
 
     Optional<Account> findById(Long accountId);
 
+    /**
+     * Like {@link #findById(Long)}, but always read from the database. The second-level cache of another instance
+     * can still hold the account as it was before a change made here, so a write must not decide on a cached status or
+     * version.
+     */
+    Optional<Account> findByIdForWrite(Long accountId);
+
+    /**
+     * The accounts of {@code accountIds} that exist, loaded with a single IN query. Read from the database, see
+     * {@link #findByIdForWrite(Long)}, and share-locked until the transaction ends. A write decided on their status
+     * can not race a change of it: that change either committed before and is read here, or waits for this
+     * transaction.
+     */
+    List<Account> findAllByIdForWrite(Collection<Long> accountIds);
+
     Page<Account> findByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable);
 
+    /**
+     * Like {@link #findByLastUpdatedBetween(OffsetDateTime, OffsetDateTime, Pageable)} without the total count.
+     */
+    Slice<Account> findSliceByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable);
+
+    long countByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to);
+
+    /**
+     * Up to {@code limit} accounts ordered by {@code (lastUpdated, id)} descending, starting after {@code after}
+     * (from the top when null). A row updated between two calls moves ahead of {@code after}, so a scan misses it.
+     */
+    List<Account> findByLastUpdatedBetween(
+            @Nullable OffsetDateTime from, @Nullable OffsetDateTime to, @Nullable KeysetCursor after, int limit);
+
+    /**
+     * Every account in the range, ordered like the keyset scan and read through a database cursor. Each account is
+     * detached once read, so the persistence context does not grow. Must be consumed and closed inside a transaction.
+     */
+    Stream<Account> streamByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to);
+
+    /**
+     * Skips the query when this node's unique key filter rules the email out. The filter only knows the emails loaded
+     * at startup and those inserted through this node, so an email that another node inserted since then is reported
+     * as free.
+     */
     boolean existsByEmail(Email email);
 
+    /**
+     * Those of {@code emails} that already belong to an account, looked up with a single IN query.
+     * Case-insensitive, by {@link Email#digest()}. Emails ruled out by this node's unique key filter are not queried,
+     * so, as with {@link #existsByEmail(Email)}, one inserted by another node since startup is missed. A batch holding
+     * it fails in {@link #insertAll(List)} on the unique constraint, and the import falls back to inserting its rows
+     * one by one.
+     */
+    List<Email> findExistingEmails(Collection<Email> emails);
+
     Account save(Account account);
+
+    /**
+     * Like {@link #save(Account)}, and written right away, so the new version is known before the transaction ends.
+     */
+    Account saveAndFlush(Account account);
+
+    /**
+     * Insert a new account in one statement.
+     *
+     * @throws com.volvo.emsp.execption.ResourceAlreadyExistsException when the email is taken
+     */
+    Account create(Account account);
+
+    List<Account> saveAll(List<Account> accounts);
+
+    /**
+     * Insert new accounts as one JDBC batch. The accounts are not kept in the persistence context afterwards.
+     *
+     * @throws com.volvo.emsp.execption.ResourceAlreadyExistsException when an email is taken
+     */
+    void insertAll(List<Account> accounts);
 }
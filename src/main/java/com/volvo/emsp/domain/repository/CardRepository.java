@@ -1,21 +1,107 @@
 package com.volvo.emsp.domain.repository;
 
+import com.volvo.emsp.domain.model.Account;
 import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.model.enums.CardStatus;
+import jakarta.annotation.Nullable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CardRepository {
 
     Optional<Card> findById(Long cardId);
 
+    /**
+     * The cards of {@code cardIds} that exist, in no particular order, loaded with a single IN query.
+     */
+    List<Card> findAllById(Collection<Long> cardIds);
+
     Page<Card> findByLastUpdatedBetween(OffsetDateTime from, OffsetDateTime to, Pageable pageable);
 
+    /**
+     * Like {@link #findByLastUpdatedBetween(OffsetDateTime, OffsetDateTime, Pageable)} without the total count.
+     */
+    Slice<Card> findSliceByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable);
+
+    long countByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to);
+
+    /**
+     * Up to {@code limit} cards ordered by {@code (lastUpdated, id)} descending, starting after {@code after}
+     * (from the top when null). A row updated between two calls moves ahead of {@code after}, so a scan misses it.
+     */
+    List<Card> findByLastUpdatedBetween(
+            @Nullable OffsetDateTime from, @Nullable OffsetDateTime to, @Nullable KeysetCursor after, int limit);
+
+    /**
+     * Every card in the range, ordered like the keyset scan and read through a database cursor. Each card is detached
+     * once read, so the persistence context does not grow. Must be consumed and closed inside a transaction.
+     */
+    Stream<Card> streamByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to);
+
+    /**
+     * Up to {@code limit} cards updated no later than {@code until}, ordered by {@code (lastUpdated, id)} ascending,
+     * starting after {@code after} (from the oldest when null).
+     */
+    List<Card> findChangesAfter(@Nullable KeysetCursor after, OffsetDateTime until, int limit);
+
     Card save(Card card);
 
+    /**
+     * Insert a new card in one statement.
+     *
+     * @throws com.volvo.emsp.execption.ResourceAlreadyExistsException when the RFID UID or visible number is taken
+     */
+    Card create(Card card);
+
+    List<Card> saveAll(List<Card> cards);
+
+    /**
+     * Insert new cards as one JDBC batch. The cards are not kept in the persistence context afterwards.
+     *
+     * @throws com.volvo.emsp.execption.ResourceAlreadyExistsException when an RFID UID or visible number is taken
+     */
+    void insertAll(List<Card> cards);
+
+    /**
+     * Write the changes made to {@code cards}, all loaded in the current transaction, as one JDBC batch.
+     */
+    void updateAll(List<Card> cards);
+
+    /**
+     * Move the card to {@code status} in one conditional UPDATE, provided it is in one of
+     * {@link CardStatus#predecessors()}. The version is incremented.
+     *
+     * @param expectedVersion when not null, the card must also still be at this version
+     * @return false when the card does not exist or a condition does not hold
+     */
+    boolean updateStatus(Long cardId, CardStatus status, @Nullable Long expectedVersion, OffsetDateTime lastUpdated);
+
+    /**
+     * Assign the card to {@code account} in one conditional UPDATE, provided the card is unassigned in one of the
+     * predecessors of ASSIGNED and the account is ACTIVATED in the database. The version is incremented.
+     *
+     * @param expectedVersion when not null, the card must also still be at this version
+     * @return false when the card does not exist or a condition does not hold
+     */
+    boolean assign(Long cardId, Account account, @Nullable Long expectedVersion, OffsetDateTime lastUpdated);
+
+    /**
+     * Skips the query when this node's unique key filter rules the key out. The filter only knows the keys loaded at
+     * startup and those inserted through this node, so a key that another node inserted since then is reported as
+     * free. A batch holding such a key fails in {@link #insertAll(List)} on the unique constraint, and the import
+     * falls back to inserting its rows one by one.
+     */
     boolean existsByRfidUid(String rfidUid);
 
+    /**
+     * Like {@link #existsByRfidUid(String)}, keys inserted by other nodes since startup are reported as free.
+     */
     boolean existsByVisibleNumber(String visibleNumber);
 }
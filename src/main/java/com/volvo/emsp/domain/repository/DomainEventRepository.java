@@ -9,6 +9,16 @@ public interface DomainEventRepository {
 
     List<DomainEvent> findUnprocessedOrderByTimestampAsc();
 
+    /**
+     * Store an event that has never been stored before.
+     */
+    void append(DomainEvent event);
+
+    /**
+     * Store events that have never been stored before, as one JDBC batch.
+     */
+    void appendAll(List<DomainEvent> events);
+
     void save(DomainEvent event);
 
     Optional<DomainEvent> findById(String eventId);
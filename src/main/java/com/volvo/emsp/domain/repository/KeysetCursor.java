@@ -0,0 +1,91 @@
+package com.volvo.emsp.domain.repository;
+
+import com.volvo.emsp.execption.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Position in a list ordered by {@code (lastUpdated, id)}: the next page starts right after this key. The scans run
+ * newest first, the change feeds oldest first.
+ * <p>
+ * Clients only see the {@link #encode() encoded} form and must treat it as opaque.
+ */
+public final class KeysetCursor implements Comparable<KeysetCursor> {
+
+    private static final Comparator<KeysetCursor> ORDER = Comparator
+            .comparing((KeysetCursor cursor) -> cursor.lastUpdated.toInstant())
+            .thenComparingLong(cursor -> cursor.id);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final OffsetDateTime lastUpdated;
+    private final long id;
+
+    public KeysetCursor(OffsetDateTime lastUpdated, long id) {
+        // the column keeps microseconds, an entity that was never reloaded may still carry nanoseconds
+        this.lastUpdated = Objects.requireNonNull(lastUpdated, "lastUpdated must not be null").truncatedTo(ChronoUnit.MICROS);
+        this.id = id;
+    }
+
+    /**
+     * @throws BadRequestException when the value was not produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String value) {
+        try {
+            String[] parts = new String(DECODER.decode(value), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("expected 3 parts, got " + parts.length);
+            }
+            Instant instant = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new KeysetCursor(instant.atOffset(ZoneOffset.UTC), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor: " + value, e);
+        }
+    }
+
+    public String encode() {
+        Instant instant = lastUpdated.toInstant();
+        String raw = instant.getEpochSecond() + ":" + instant.getNano() + ":" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public OffsetDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Oldest first, by {@code lastUpdated} as an instant and then by id.
+     */
+    @Override
+    public int compareTo(KeysetCursor other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        KeysetCursor that = (KeysetCursor) o;
+        return id == that.id && lastUpdated.toInstant().equals(that.lastUpdated.toInstant());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastUpdated.toInstant(), id);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -2,7 +2,13 @@ package com.volvo.emsp.domain.service;
 
 import com.volvo.emsp.domain.event.DomainEvent;
 
+import java.util.List;
+
 public interface DomainEventPublisher {
 
     void publish(DomainEvent event);
+
+    default void publishAll(List<DomainEvent> events) {
+        events.forEach(this::publish);
+    }
 }
\ No newline at end of file
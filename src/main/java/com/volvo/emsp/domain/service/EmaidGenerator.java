@@ -1,6 +1,33 @@
 package com.volvo.emsp.domain.service;
 
+import com.volvo.emsp.domain.model.Emaid;
+
+import java.util.ArrayList;
+import java.util.List;
+
 public interface EmaidGenerator {
 
     String generateEmaid();
+
+    /**
+     * Same as {@link #generateEmaid()}, already validated.
+     */
+    default Emaid nextEmaid() {
+        return new Emaid(generateEmaid());
+    }
+
+    /**
+     * Lease {@code count} EMAIDs at once.
+     * Implementations should reserve them in as few steps as possible instead of calling {@link #nextEmaid()} per EMAID.
+     */
+    default List<Emaid> nextEmaids(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        List<Emaid> emaids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            emaids.add(nextEmaid());
+        }
+        return emaids;
+    }
 }
@@ -2,4 +2,19 @@ package com.volvo.emsp.domain.service;
 
 public interface IdGenerator {
     long nextId();
+
+    /**
+     * Lease {@code count} ids at once, in increasing order.
+     * Implementations should reserve them in as few steps as possible instead of calling {@link #nextId()} per id.
+     */
+    default long[] nextIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId();
+        }
+        return ids;
+    }
 }
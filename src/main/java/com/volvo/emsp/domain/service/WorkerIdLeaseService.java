@@ -0,0 +1,18 @@
+package com.volvo.emsp.domain.service;
+
+import java.time.Duration;
+
+public interface WorkerIdLeaseService {
+
+    /**
+     * Take {@code workerId} for {@code owner} if it is free, expired or already held by {@code owner}.
+     */
+    boolean tryAcquire(int workerId, String owner, Duration ttl);
+
+    /**
+     * Extend the lease, fails if {@code owner} no longer holds it.
+     */
+    boolean renew(int workerId, String owner, Duration ttl);
+
+    void release(int workerId, String owner);
+}
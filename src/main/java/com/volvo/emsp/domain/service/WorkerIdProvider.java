@@ -0,0 +1,15 @@
+package com.volvo.emsp.domain.service;
+
+/**
+ * Machine id of this node, shared by the snowflake generators.
+ */
+public interface WorkerIdProvider {
+
+    int getWorkerId();
+
+    /**
+     * Whether this node may still issue ids with {@link #getWorkerId()}.
+     * A leased worker id stops being valid as soon as its lease can not be confirmed.
+     */
+    boolean isValid();
+}
@@ -0,0 +1,89 @@
+package com.volvo.emsp.domain.service.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What a snowflake generator does when the wall clock is behind its last timestamp (e.g. after an NTP step).
+ * <p>
+ * With a zero budget the generator refuses to issue ids until the clock catches up. With a positive budget it keeps
+ * issuing ids on a logical clock: it continues from the last timestamp and borrows the next millisecond once that
+ * sequence is used up, as long as the logical clock stays at most {@code maxDriftMillis} ahead of the wall clock.
+ */
+public class ClockDriftPolicy {
+
+    private final long maxDriftMillis;
+
+    private final LongAdder borrowedIds = new LongAdder();
+    private final LongAdder rejectedIds = new LongAdder();
+    private volatile long driftMillis;
+    private volatile long maxObservedDriftMillis;
+
+    public ClockDriftPolicy(long maxDriftMillis) {
+        if (maxDriftMillis < 0) {
+            throw new IllegalArgumentException("max clock drift must not be negative: " + maxDriftMillis);
+        }
+        this.maxDriftMillis = maxDriftMillis;
+    }
+
+    public static ClockDriftPolicy strict() {
+        return new ClockDriftPolicy(0);
+    }
+
+    /**
+     * Check that issuing an id at {@code logicalTimestamp} while the wall clock says {@code now} is within budget.
+     *
+     * @throws RuntimeException when the drift exceeds the budget
+     */
+    void checkDrift(long logicalTimestamp, long now) {
+        long drift = logicalTimestamp - now;
+        if (drift > maxDriftMillis) {
+            rejectedIds.increment();
+            throw new RuntimeException(String.format(
+                    "Clock moved backwards. Refusing to generate id for %d milliseconds", drift));
+        }
+    }
+
+    /**
+     * Record {@code count} ids issued ahead of the wall clock.
+     */
+    void borrowed(long logicalTimestamp, long now, int count) {
+        long drift = logicalTimestamp - now;
+        borrowedIds.add(count);
+        driftMillis = drift;
+        if (drift > maxObservedDriftMillis) {
+            maxObservedDriftMillis = drift;
+        }
+    }
+
+    /**
+     * The wall clock is at or past the logical clock again.
+     */
+    void inSync() {
+        if (driftMillis != 0) {
+            driftMillis = 0;
+        }
+    }
+
+    public long getMaxDriftMillis() {
+        return maxDriftMillis;
+    }
+
+    /**
+     * Drift of the last id issued on the logical clock, 0 once the wall clock has caught up.
+     */
+    public long getDriftMillis() {
+        return driftMillis;
+    }
+
+    public long getMaxObservedDriftMillis() {
+        return maxObservedDriftMillis;
+    }
+
+    public long getBorrowedIds() {
+        return borrowedIds.sum();
+    }
+
+    public long getRejectedIds() {
+        return rejectedIds.sum();
+    }
+}
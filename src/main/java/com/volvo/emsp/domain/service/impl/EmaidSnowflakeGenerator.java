@@ -1,13 +1,30 @@
 package com.volvo.emsp.domain.service.impl;
 
+import com.volvo.emsp.domain.model.Emaid;
+import com.volvo.emsp.domain.model.EmaidCheckDigit;
 import com.volvo.emsp.domain.service.EmaidGenerator;
+import com.volvo.emsp.domain.service.WorkerIdProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.nio.CharBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.LongSupplier;
 
 /**
  *  this is a demo, you can use other method
+ *  <p>
+ *  Snowflake46 only yields 8 ids per millisecond, so EMAIDs are pre-generated into a ring buffer of
+ *  {@code app.emaid.buffer-size} by a background refill; {@link #nextEmaid()} takes from it without blocking and
+ *  only generates inline when it has run dry.
+ *  <p>
+ *  Every EMAID ends with its ISO 15118 check character, 15 characters in all. EMAIDs issued before the check
+ *  character have 14 and stay valid, see the EMAID format in APIs.md.
  */
 
 @Component
@@ -15,21 +32,116 @@ public class EmaidSnowflakeGenerator implements EmaidGenerator {
 
     private static final String COUNTRY_CODE = "CN";
     private static final String SERVICE_CODE = "8VO";
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private final WorkerIdProvider workerIdProvider;
     private final Snowflake46 snowflake46;
+    // null when buffering is disabled
+    private final ArrayBlockingQueue<Emaid> buffer;
+    // prefix + 9 base36 chars + check char, reused for every EMAID
+    private final char[] emaidChars = (COUNTRY_CODE + SERVICE_CODE + "0000000000").toCharArray();
+    private final CharBuffer emaidCharSequence = CharBuffer.wrap(emaidChars);
+
+    public EmaidSnowflakeGenerator(int machineId) {
+        this(new StaticWorkerIdProvider(machineId), 0L);
+    }
+
+    public EmaidSnowflakeGenerator(WorkerIdProvider workerIdProvider, long maxClockDriftMillis) {
+        this(workerIdProvider, maxClockDriftMillis, DEFAULT_BUFFER_SIZE);
+    }
 
-    public EmaidSnowflakeGenerator(@Value("${app.id}") int machineId) {
+    @Autowired
+    public EmaidSnowflakeGenerator(
+            WorkerIdProvider workerIdProvider,
+            @Value("${app.snowflake.max-clock-drift-ms:0}") long maxClockDriftMillis,
+            @Value("${app.emaid.buffer-size:" + DEFAULT_BUFFER_SIZE + "}") int bufferSize) {
+        int machineId = workerIdProvider.getWorkerId();
         if (machineId < 0 || machineId > 7) {
             throw new IllegalArgumentException("Invalid machine ID, Machine ID must be 0-7.");
         }
-        this.snowflake46 = new Snowflake46(machineId);
+        if (bufferSize < 0) {
+            throw new IllegalArgumentException("EMAID buffer size must not be negative: " + bufferSize);
+        }
+        this.workerIdProvider = workerIdProvider;
+        this.buffer = bufferSize > 0 ? new ArrayBlockingQueue<>(bufferSize) : null;
+        this.snowflake46 = new Snowflake46(machineId, new ClockDriftPolicy(maxClockDriftMillis), System::currentTimeMillis);
+    }
+
+    public ClockDriftPolicy getClockDriftPolicy() {
+        return snowflake46.clockDriftPolicy;
     }
 
     public String generateEmaid() {
-        return COUNTRY_CODE +
-                SERVICE_CODE +
-                snowflake46.nextIdBase36();
+        return nextEmaid().toString();
+    }
+
+    @Override
+    public Emaid nextEmaid() {
+        if (!workerIdProvider.isValid()) {
+            throw new IllegalStateException("Worker id " + workerIdProvider.getWorkerId() + " is no longer leased, refusing to generate emaid");
+        }
+        Emaid emaid = buffer != null ? buffer.poll() : null;
+        return emaid != null ? emaid : newEmaid();
     }
 
+    /**
+     * Drains the buffer first, the rest is generated under a single lock.
+     */
+    @Override
+    public List<Emaid> nextEmaids(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        if (!workerIdProvider.isValid()) {
+            throw new IllegalStateException("Worker id " + workerIdProvider.getWorkerId() + " is no longer leased, refusing to generate emaid");
+        }
+        List<Emaid> emaids = new ArrayList<>(count);
+        if (buffer != null) {
+            buffer.drainTo(emaids, count);
+        }
+        for (String emaid : nextEmaidStrings(count - emaids.size())) {
+            emaids.add(new Emaid(emaid));
+        }
+        return emaids;
+    }
+
+    /**
+     * Top the buffer up in the background, validation included, so bursts don't wait on the 8 ids/ms ceiling.
+     */
+    @Scheduled(fixedDelayString = "${app.emaid.refill-ms:100}")
+    public void refill() {
+        if (buffer == null) {
+            return;
+        }
+        for (int missing = buffer.remainingCapacity(); missing > 0 && workerIdProvider.isValid(); missing--) {
+            if (!buffer.offer(newEmaid())) {
+                return;
+            }
+        }
+    }
+
+    int buffered() {
+        return buffer != null ? buffer.size() : 0;
+    }
+
+    private Emaid newEmaid() {
+        return new Emaid(nextEmaidString());
+    }
+
+    private synchronized String nextEmaidString() {
+        int idOffset = COUNTRY_CODE.length() + SERVICE_CODE.length();
+        Snowflake46.encodeBase36(snowflake46.nextId(), emaidChars, idOffset);
+        emaidChars[EmaidCheckDigit.LENGTH] = EmaidCheckDigit.compute(emaidCharSequence);
+        return new String(emaidChars);
+    }
+
+    private synchronized String[] nextEmaidStrings(int count) {
+        String[] emaids = new String[count];
+        for (int i = 0; i < count; i++) {
+            emaids[i] = nextEmaidString();
+        }
+        return emaids;
+    }
 
     @SuppressWarnings("all")
     static class Snowflake46 {
@@ -51,6 +163,8 @@ public class EmaidSnowflakeGenerator implements EmaidGenerator {
         private final long timestampShift = sequenceBits + machineIdBits;
 
         private final long machineId;
+        private final ClockDriftPolicy clockDriftPolicy;
+        private final LongSupplier clock;
         private long sequence = 0L;
         private long lastTimestamp = -1L;
 
@@ -58,26 +172,41 @@ public class EmaidSnowflakeGenerator implements EmaidGenerator {
         private static final char[] BASE36_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
 
         public Snowflake46(long machineId) {
+            this(machineId, ClockDriftPolicy.strict(), System::currentTimeMillis);
+        }
+
+        Snowflake46(long machineId, ClockDriftPolicy clockDriftPolicy, LongSupplier clock) {
             if (machineId < 0 || machineId > maxMachineId) {
                 throw new IllegalArgumentException("机器ID必须在0和" + maxMachineId + "之间");
             }
             this.machineId = machineId;
+            this.clockDriftPolicy = clockDriftPolicy;
+            this.clock = clock;
         }
 
         public synchronized long nextId() {
-            long timestamp = System.currentTimeMillis();
+            long timestamp = clock.getAsLong();
 
             if (timestamp < lastTimestamp) {
-                throw new RuntimeException("时钟回拨异常");
-            }
-
-            if (timestamp == lastTimestamp) {
+                // 时钟回拨：沿用逻辑时钟，序列号用完后借用下一毫秒
+                long nextSequence = (sequence + 1) & maxSequence;
+                long logicalTimestamp = nextSequence == 0 ? lastTimestamp + 1 : lastTimestamp;
+                try {
+                    clockDriftPolicy.checkDrift(logicalTimestamp, timestamp);
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("时钟回拨异常", e);
+                }
+                clockDriftPolicy.borrowed(logicalTimestamp, timestamp, 1);
+                sequence = nextSequence;
+                timestamp = logicalTimestamp;
+            } else if (timestamp == lastTimestamp) {
                 sequence = (sequence + 1) & maxSequence;
                 if (sequence == 0) {
                     timestamp = waitNextMillis(lastTimestamp);
                 }
             } else {
                 sequence = 0L;
+                clockDriftPolicy.inSync();
             }
 
             lastTimestamp = timestamp;
@@ -88,23 +217,25 @@ public class EmaidSnowflakeGenerator implements EmaidGenerator {
         }
 
         public String nextIdBase36() {
-            long id = nextId();
             char[] buf = new char[9];
-            Arrays.fill(buf, '0');
+            encodeBase36(nextId(), buf, 0);
+            return new String(buf);
+        }
 
-            int pos = 8;
+        // 写入9位36进制，左侧补0
+        static void encodeBase36(long id, char[] buf, int offset) {
+            int pos = offset + 8;
             do {
                 buf[pos--] = BASE36_CHARS[(int)(id % 36)];
                 id /= 36;
-            } while (id > 0 && pos >= 0);
-
-            return new String(buf);
+            } while (id > 0 && pos >= offset);
+            Arrays.fill(buf, offset, pos + 1, '0');
         }
 
         private long waitNextMillis(long lastTimestamp) {
-            long timestamp = System.currentTimeMillis();
+            long timestamp = clock.getAsLong();
             while (timestamp <= lastTimestamp) {
-                timestamp = System.currentTimeMillis();
+                timestamp = clock.getAsLong();
             }
             return timestamp;
         }
@@ -0,0 +1,130 @@
+package com.volvo.emsp.domain.service.impl;
+
+import com.volvo.emsp.domain.service.WorkerIdLeaseService;
+import com.volvo.emsp.domain.service.WorkerIdProvider;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Worker id leased from a shared store, so nodes can be added without assigning {@code app.id} by hand.
+ * <p>
+ * The first free slot is taken at startup, renewed by a heartbeat and released on shutdown. The id is only
+ * considered valid until {@code ttl - ttl / 5} after the last successful renewal was sent, which leaves room for
+ * clock skew between the nodes before another node may take the slot over.
+ */
+@Component
+@ConditionalOnProperty(name = "app.worker-id.lease.enabled", havingValue = "true")
+public class LeasedWorkerIdProvider implements WorkerIdProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(LeasedWorkerIdProvider.class);
+
+    private final WorkerIdLeaseService leaseService;
+    private final Duration ttl;
+    private final String owner;
+    private final LongSupplier nanoClock;
+    private final int workerId;
+
+    private volatile long validUntilNanos;
+    private volatile boolean released;
+
+    @Autowired
+    public LeasedWorkerIdProvider(
+            WorkerIdLeaseService leaseService,
+            @Value("${app.worker-id.lease.slots:8}") int slots,
+            @Value("${app.worker-id.lease.ttl-ms:30000}") long ttlMillis) {
+        this(leaseService, slots, Duration.ofMillis(ttlMillis), defaultOwner(), System::nanoTime);
+    }
+
+    LeasedWorkerIdProvider(WorkerIdLeaseService leaseService, int slots, Duration ttl, String owner,
+                           LongSupplier nanoClock) {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("worker id slots must be positive: " + slots);
+        }
+        this.leaseService = leaseService;
+        this.ttl = ttl;
+        this.owner = owner;
+        this.nanoClock = nanoClock;
+        this.workerId = acquire(slots);
+        log.info("leased worker id {} as {}", workerId, owner);
+    }
+
+    private int acquire(int slots) {
+        for (int slot = 0; slot < slots; slot++) {
+            long started = nanoClock.getAsLong();
+            if (leaseService.tryAcquire(slot, owner, ttl)) {
+                confirmed(started);
+                return slot;
+            }
+        }
+        throw new IllegalStateException("No free worker id among " + slots + " slots");
+    }
+
+    @Override
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    @Override
+    public boolean isValid() {
+        return !released && nanoClock.getAsLong() - validUntilNanos < 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.worker-id.lease.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (released) {
+            return;
+        }
+        long started = nanoClock.getAsLong();
+        try {
+            if (leaseService.renew(workerId, owner, ttl)) {
+                confirmed(started);
+            } else if (leaseService.tryAcquire(workerId, owner, ttl)) {
+                // the lease had expired but nobody took the slot over
+                log.warn("worker id {} lease expired and was re-acquired", workerId);
+                confirmed(started);
+            } else {
+                log.error("worker id {} lease lost, id generation is stopped", workerId);
+                validUntilNanos = started;
+            }
+        } catch (Exception e) {
+            log.warn("can not renew worker id {} lease: {}", workerId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        released = true;
+        try {
+            leaseService.release(workerId, owner);
+            log.info("released worker id {}", workerId);
+        } catch (Exception e) {
+            log.warn("can not release worker id {}, it will expire: {}", workerId, e.getMessage());
+        }
+    }
+
+    private void confirmed(long started) {
+        validUntilNanos = started + ttl.toNanos() - ttl.toNanos() / 5;
+    }
+
+    private static String defaultOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + ":" + UUID.randomUUID();
+    }
+}
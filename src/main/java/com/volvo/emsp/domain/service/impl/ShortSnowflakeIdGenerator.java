@@ -1,70 +1,183 @@
 package com.volvo.emsp.domain.service.impl;
 
 import com.volvo.emsp.domain.service.IdGenerator;
+import com.volvo.emsp.domain.service.WorkerIdProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free snowflake generator (44 bits timestamp / 4 bits machine / 5 bits sequence).
+ * <p>
+ * The last issued timestamp and sequence are packed into a single {@link AtomicLong}
+ * ({@code delta << sequenceBits | sequence}) and advanced with CAS, so request threads never
+ * queue on a monitor and virtual threads never pin their carrier.
+ * <p>
+ * When the wall clock moves backwards the {@link ClockDriftPolicy} decides whether ids keep coming from the logical
+ * clock ({@code app.snowflake.max-clock-drift-ms > 0}) or the call fails.
+ * <p>
+ * The machine id comes from the {@link WorkerIdProvider}; no id is issued while it is not valid.
+ */
 @Service
 @SuppressWarnings("all")
 public class ShortSnowflakeIdGenerator implements IdGenerator {
 
-    private final long epoch = 1735689600000L; // 2025-01-01 UTC
+    private static final long EPOCH = 1735689600000L; // 2025-01-01 UTC
 
-    private final long timestampBits = 44L;    // 44位时间戳 500年不超过js精度
-    private final long machineIdBits = 4L;     // 4位机器码，16台机器
-    private final long sequenceBits = 5L;      // 5位序列号，每毫秒最多32个ID
+    private static final long TIMESTAMP_BITS = 44L;    // 44位时间戳 500年不超过js精度
+    private static final long MACHINE_ID_BITS = 4L;    // 4位机器码，16台机器
+    private static final long SEQUENCE_BITS = 5L;      // 5位序列号，每毫秒最多32个ID
 
-    private final long maxMachineId = ~(-1L << machineIdBits); // 15
-    private final long maxSequence = ~(-1L << sequenceBits);   // 31
+    private static final long MAX_MACHINE_ID = ~(-1L << MACHINE_ID_BITS); // 15
+    private static final long MAX_SEQUENCE = ~(-1L << SEQUENCE_BITS);     // 31
+    private static final long MAX_DELTA = (1L << TIMESTAMP_BITS) - 1;
 
-    private final long machineIdShift = sequenceBits;
-    private final long timestampShift = sequenceBits + machineIdBits;
+    private static final long MACHINE_ID_SHIFT = SEQUENCE_BITS;
+    private static final long TIMESTAMP_SHIFT = SEQUENCE_BITS + MACHINE_ID_BITS;
+
+    // sequence exhausted: spin a little, then park until the clock ticks
+    private static final int SPIN_TRIES = 64;
+    private static final long PARK_NANOS = 50_000L;
 
     private final long machineId;
+    private final WorkerIdProvider workerIdProvider;
+    private final ClockDriftPolicy clockDriftPolicy;
+    private final LongSupplier clock;
+
+    /**
+     * (timestamp - epoch) << SEQUENCE_BITS | sequence of the last issued id, -1 before the first one.
+     */
+    private final AtomicLong state = new AtomicLong(-1L);
+
+    public ShortSnowflakeIdGenerator(long machineId) {
+        this(machineId, ClockDriftPolicy.strict(), System::currentTimeMillis);
+    }
+
+    @Autowired
+    public ShortSnowflakeIdGenerator(
+            WorkerIdProvider workerIdProvider,
+            @Value("${app.snowflake.max-clock-drift-ms:0}") long maxClockDriftMillis) {
+        this(workerIdProvider, new ClockDriftPolicy(maxClockDriftMillis), System::currentTimeMillis);
+    }
 
-    private long sequence = 0L;
-    private long lastTimestamp = -1L;
+    ShortSnowflakeIdGenerator(long machineId, ClockDriftPolicy clockDriftPolicy, LongSupplier clock) {
+        this(new StaticWorkerIdProvider(Math.toIntExact(machineId)), clockDriftPolicy, clock);
+    }
 
-    public ShortSnowflakeIdGenerator(@Value("${app.id}") long machineId) {
-        if (machineId < 0 || machineId > maxMachineId) {
-            throw new IllegalArgumentException("机器ID必须在0和" + maxMachineId + "之间");
+    ShortSnowflakeIdGenerator(WorkerIdProvider workerIdProvider, ClockDriftPolicy clockDriftPolicy, LongSupplier clock) {
+        long machineId = workerIdProvider.getWorkerId();
+        if (machineId < 0 || machineId > MAX_MACHINE_ID) {
+            throw new IllegalArgumentException("机器ID必须在0和" + MAX_MACHINE_ID + "之间");
         }
         this.machineId = machineId;
+        this.workerIdProvider = workerIdProvider;
+        this.clockDriftPolicy = clockDriftPolicy;
+        this.clock = clock;
     }
 
-    public synchronized long nextId() {
-        long timestamp = System.currentTimeMillis();
+    @Override
+    public long nextId() {
+        return toId(reserve(1));
+    }
+
+    /**
+     * Leases whole millisecond slots at once: one CAS hands out up to 32 ids.
+     */
+    @Override
+    public long[] nextIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            long first = reserve(count - filled);
+            long last = first + granted(first, count - filled) - 1;
+            for (long packed = first; packed <= last; packed++) {
+                ids[filled++] = toId(packed);
+            }
+        }
+        return ids;
+    }
 
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException("时钟回拨异常");
+    /**
+     * Reserve up to {@code count} consecutive ids within one millisecond slot.
+     *
+     * @return the packed state of the first reserved id, see {@link #granted} for how many were reserved
+     */
+    private long reserve(int count) {
+        if (!workerIdProvider.isValid()) {
+            throw new IllegalStateException("Worker id " + machineId + " is no longer leased, refusing to generate id");
         }
+        int attempt = 0;
+        for (;;) {
+            // read the state before the clock, so a concurrent winner can never look like a clock rollback
+            long current = state.get();
+            long delta = currentDelta();
+            long lastDelta = current >> SEQUENCE_BITS;
+
+            long first;
+            if (delta > lastDelta) {
+                first = delta << SEQUENCE_BITS;
+            } else if (delta == lastDelta) {
+                if ((current & MAX_SEQUENCE) == MAX_SEQUENCE) {
+                    // sequence exhausted for this millisecond
+                    backOff(attempt++);
+                    continue;
+                }
+                first = current + 1;
+            } else {
+                // wall clock is behind: continue on the logical clock, rolling over into the next millisecond
+                first = current + 1;
+                clockDriftPolicy.checkDrift(first >> SEQUENCE_BITS, delta);
+            }
 
-        if (timestamp == lastTimestamp) {
-            sequence = (sequence + 1) & maxSequence;
-            if (sequence == 0) {
-                timestamp = waitNextMillis(lastTimestamp);
+            int reserved = granted(first, count);
+            if (state.compareAndSet(current, first + reserved - 1)) {
+                long logicalDelta = first >> SEQUENCE_BITS;
+                if (logicalDelta > delta) {
+                    clockDriftPolicy.borrowed(logicalDelta, delta, reserved);
+                } else {
+                    clockDriftPolicy.inSync();
+                }
+                return first;
             }
-        } else {
-            sequence = 0L;
         }
+    }
 
-        lastTimestamp = timestamp;
+    public ClockDriftPolicy getClockDriftPolicy() {
+        return clockDriftPolicy;
+    }
 
-        long delta = timestamp - epoch;
+    private static int granted(long first, int count) {
+        long left = MAX_SEQUENCE - (first & MAX_SEQUENCE) + 1;
+        return (int) Math.min(left, count);
+    }
 
-        if (delta < 0 || delta >= (1L << timestampBits)) {
+    private long currentDelta() {
+        long delta = clock.getAsLong() - EPOCH;
+        if (delta < 0 || delta > MAX_DELTA) {
             throw new RuntimeException("时间戳超出可用范围");
         }
+        return delta;
+    }
 
-        return (delta << timestampShift) | (machineId << machineIdShift) | sequence;
+    private long toId(long packed) {
+        long delta = packed >>> SEQUENCE_BITS;
+        long sequence = packed & MAX_SEQUENCE;
+        return (delta << TIMESTAMP_SHIFT) | (machineId << MACHINE_ID_SHIFT) | sequence;
     }
 
-    private long waitNextMillis(long lastTimestamp) {
-        long timestamp = System.currentTimeMillis();
-        while (timestamp <= lastTimestamp) {
-            timestamp = System.currentTimeMillis();
+    private static void backOff(int attempt) {
+        if (attempt < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
         }
-        return timestamp;
     }
 
     // 简单测试
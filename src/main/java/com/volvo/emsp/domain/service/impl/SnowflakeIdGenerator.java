@@ -3,6 +3,8 @@ package com.volvo.emsp.domain.service.impl;
 import com.volvo.emsp.domain.service.IdGenerator;
 import org.springframework.beans.factory.annotation.Value;
 
+import java.util.function.LongSupplier;
+
 @SuppressWarnings("unused")
 public class SnowflakeIdGenerator implements IdGenerator {
 
@@ -23,10 +25,20 @@ public class SnowflakeIdGenerator implements IdGenerator {
 
     private final long workerId;
     private final long datacenterId;
+    private final ClockDriftPolicy clockDriftPolicy;
+    private final LongSupplier clock;
     private long sequence = 0L;
     private long lastTimestamp = -1L;
 
     public SnowflakeIdGenerator(@Value("${app.id}") long workerId, @Value("${app.datacenterId:0}") long datacenterId) {
+        this(workerId, datacenterId, ClockDriftPolicy.strict(), System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long workerId, long datacenterId, ClockDriftPolicy clockDriftPolicy) {
+        this(workerId, datacenterId, clockDriftPolicy, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long workerId, long datacenterId, ClockDriftPolicy clockDriftPolicy, LongSupplier clock) {
         if (workerId > MAX_WORKER_ID || workerId < 0) {
             throw new IllegalArgumentException(String.format("workerId can't be greater than %d or less than 0", MAX_WORKER_ID));
         }
@@ -35,22 +47,29 @@ public class SnowflakeIdGenerator implements IdGenerator {
         }
         this.workerId = workerId;
         this.datacenterId = datacenterId;
+        this.clockDriftPolicy = clockDriftPolicy;
+        this.clock = clock;
     }
 
     public synchronized long nextId() {
         long timestamp = timeGen();
 
         if (timestamp < lastTimestamp) {
-            throw new RuntimeException(String.format("Clock moved backwards. Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
-        }
-
-        if (lastTimestamp == timestamp) {
+            // logical clock: stay on the last timestamp, borrow the next millisecond when the sequence is used up
+            long nextSequence = (sequence + 1) & SEQUENCE_MASK;
+            long logicalTimestamp = nextSequence == 0 ? lastTimestamp + 1 : lastTimestamp;
+            clockDriftPolicy.checkDrift(logicalTimestamp, timestamp);
+            clockDriftPolicy.borrowed(logicalTimestamp, timestamp, 1);
+            sequence = nextSequence;
+            timestamp = logicalTimestamp;
+        } else if (lastTimestamp == timestamp) {
             sequence = (sequence + 1) & SEQUENCE_MASK;
             if (sequence == 0) {
                 timestamp = tilNextMillis(lastTimestamp);
             }
         } else {
             sequence = 0L;
+            clockDriftPolicy.inSync();
         }
 
         lastTimestamp = timestamp;
@@ -70,6 +89,10 @@ public class SnowflakeIdGenerator implements IdGenerator {
     }
 
     private long timeGen() {
-        return System.currentTimeMillis();
+        return clock.getAsLong();
+    }
+
+    public ClockDriftPolicy getClockDriftPolicy() {
+        return clockDriftPolicy;
     }
 }
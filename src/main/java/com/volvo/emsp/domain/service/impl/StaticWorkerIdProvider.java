@@ -0,0 +1,30 @@
+package com.volvo.emsp.domain.service.impl;
+
+import com.volvo.emsp.domain.service.WorkerIdProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hand-assigned worker id from {@code app.id}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.worker-id.lease.enabled", havingValue = "false", matchIfMissing = true)
+public class StaticWorkerIdProvider implements WorkerIdProvider {
+
+    private final int workerId;
+
+    public StaticWorkerIdProvider(@Value("${app.id}") int workerId) {
+        this.workerId = workerId;
+    }
+
+    @Override
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+}
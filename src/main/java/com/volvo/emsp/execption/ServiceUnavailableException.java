@@ -0,0 +1,12 @@
+package com.volvo.emsp.execption;
+
+@SuppressWarnings("unused")
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,132 @@
+package com.volvo.emsp.infrastructure.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps a client on the primary for a short window after it wrote, so it does not read stale data from a lagging
+ * replica.
+ * <p>
+ * The window travels in a cookie holding its expiry, so it holds across instances. Within the request that wrote,
+ * later reads are pinned right away.
+ */
+public class ReadYourWrites extends OncePerRequestFilter {
+
+    static final String COOKIE = "emsp-primary-until";
+
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    public ReadYourWrites(Duration window) {
+        this(window, System::currentTimeMillis);
+    }
+
+    ReadYourWrites(Duration window, LongSupplier clock) {
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Whether the current request must read from the primary.
+     */
+    public static boolean isPinned() {
+        Session session = CURRENT.get();
+        return session != null && session.pinned;
+    }
+
+    /**
+     * Record a write of the current request, a no-op outside of requests.
+     */
+    public static void markWrite() {
+        Session session = CURRENT.get();
+        if (session != null) {
+            session.wrote();
+        }
+    }
+
+    /**
+     * Wrap the primary so a connection taken by a read-write transaction starts the window.
+     */
+    public static DataSource markingWrites(DataSource primary) {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                // not on the lazy proxy's probe for connection defaults, which runs before the transaction is set up
+                if (TransactionSynchronizationManager.isActualTransactionActive()
+                        && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                    markWrite();
+                }
+                return super.getConnection();
+            }
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Session session = new Session(response, pinnedUntil(request) > clock.getAsLong());
+        CURRENT.set(session);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private final class Session {
+
+        private final HttpServletResponse response;
+        private boolean pinned;
+        private boolean cookieSent;
+
+        Session(HttpServletResponse response, boolean pinned) {
+            this.response = response;
+            this.pinned = pinned;
+        }
+
+        void wrote() {
+            pinned = true;
+            // writes commit before the body is written, so the response is normally still open here
+            if (!cookieSent && !response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE, Long.toString(clock.getAsLong() + windowMillis));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+                response.addCookie(cookie);
+                cookieSent = true;
+            }
+        }
+    }
+}
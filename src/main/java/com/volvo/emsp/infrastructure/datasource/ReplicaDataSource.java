@@ -0,0 +1,102 @@
+package com.volvo.emsp.infrastructure.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connections for read-only transactions: from the replica pool, or from the primary while the replica is down or
+ * the caller must read its own writes ({@link ReadYourWrites}).
+ * <p>
+ * A replica that fails to hand out a connection is taken out until {@link #checkHealth()} sees it valid again.
+ */
+public class ReplicaDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource replica;
+    private final DataSource primary;
+
+    private volatile boolean healthy = true;
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder primaryConnections = new LongAdder();
+
+    public ReplicaDataSource(DataSource replica, DataSource primary) {
+        this.replica = replica;
+        this.primary = primary;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection getConnection(ConnectionSource source) throws SQLException {
+        if (healthy && !ReadYourWrites.isPinned()) {
+            try {
+                Connection connection = source.from(replica);
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                markDown(e);
+            }
+        }
+        primaryConnections.increment();
+        return source.from(primary);
+    }
+
+    /**
+     * Validate a replica connection and take the replica in or out of rotation.
+     */
+    public void checkHealth() {
+        try (Connection connection = replica.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                throw new SQLException("Replica connection is not valid");
+            }
+            if (!healthy) {
+                log.info("Replica is back, routing read-only transactions to it again");
+                healthy = true;
+            }
+        } catch (SQLException e) {
+            markDown(e);
+        }
+    }
+
+    private void markDown(SQLException e) {
+        if (healthy) {
+            log.warn("Replica is unavailable, routing read-only transactions to the primary", e);
+            healthy = false;
+        }
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.sum();
+    }
+
+    /**
+     * Read-only connections served by the primary, because of a pinned session or an unhealthy replica.
+     */
+    public long getPrimaryConnections() {
+        return primaryConnections.sum();
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection from(DataSource dataSource) throws SQLException;
+    }
+}
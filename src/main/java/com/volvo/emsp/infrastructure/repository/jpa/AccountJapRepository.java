@@ -3,27 +3,53 @@ package com.volvo.emsp.infrastructure.repository.jpa;
 import com.volvo.emsp.domain.model.Account;
 import com.volvo.emsp.domain.model.Email;
 import com.volvo.emsp.domain.repository.AccountRepository;
+import com.volvo.emsp.domain.repository.KeysetCursor;
+import com.volvo.emsp.execption.ResourceAlreadyExistsException;
 import jakarta.annotation.Nullable;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Repository;
 
+import java.nio.ByteBuffer;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 
 @Repository
 public class AccountJapRepository implements AccountRepository {
 
+    private static final String ID = "accountId";
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final Map<String, Object> BYPASS_CACHE =
+            Map.of(SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+
     private final SpringAccountRepository springAccountRepository;
+    private final EntityManager entityManager;
+    private final UniqueKeyFilters uniqueKeyFilters;
 
-    public AccountJapRepository(SpringAccountRepository jpaRepository) {
+    public AccountJapRepository(SpringAccountRepository jpaRepository, EntityManager entityManager, UniqueKeyFilters uniqueKeyFilters) {
         this.springAccountRepository = jpaRepository;
+        this.entityManager = entityManager;
+        this.uniqueKeyFilters = uniqueKeyFilters;
     }
 
     @Override
     public Optional<Account> findByEmail(Email email) {
-        return springAccountRepository.findByEmail(email);
+        return springAccountRepository.findByEmailHash(email.digest());
     }
 
     @Override
@@ -31,19 +57,123 @@ public class AccountJapRepository implements AccountRepository {
         return springAccountRepository.findById(accountId);
     }
 
+    @Override
+    public Optional<Account> findByIdForWrite(Long accountId) {
+        return Optional.ofNullable(entityManager.find(Account.class, accountId, BYPASS_CACHE));
+    }
+
+    @Override
+    public List<Account> findAllByIdForWrite(Collection<Long> accountIds) {
+        if (accountIds.isEmpty()) {
+            return List.of();
+        }
+        // in id order, so two writers lock shared accounts in the same order
+        return entityManager.createQuery(
+                        "select a from Account a where a.accountId in :accountIds order by a.accountId", Account.class)
+                .setParameter("accountIds", accountIds)
+                .setHint(SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS)
+                .setLockMode(LockModeType.PESSIMISTIC_READ)
+                .getResultList();
+    }
+
     @Override
     public Page<Account> findByLastUpdatedBetween(
             @Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable) {
-        return springAccountRepository.findByLastUpdatedBetween(from, to, pageable);
+        return springAccountRepository.findAll(LastUpdatedSpecifications.between(from, to), pageable);
+    }
+
+    @Override
+    public Slice<Account> findSliceByLastUpdatedBetween(
+            @Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable) {
+        return LastUpdatedSpecifications.findSlice(
+                entityManager, Account.class, LastUpdatedSpecifications.between(from, to), pageable);
+    }
+
+    @Override
+    public long countByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to) {
+        return springAccountRepository.count(LastUpdatedSpecifications.between(from, to));
+    }
+
+    @Override
+    public List<Account> findByLastUpdatedBetween(
+            @Nullable OffsetDateTime from, @Nullable OffsetDateTime to, @Nullable KeysetCursor after, int limit) {
+        Specification<Account> spec = LastUpdatedSpecifications.between(from, to);
+        if (after != null) {
+            spec = spec.and(LastUpdatedSpecifications.after(after, ID));
+        }
+        return springAccountRepository.findBy(spec, query -> query.sortBy(LastUpdatedSpecifications.newestFirst(ID)).limit(limit).all());
+    }
+
+    @Override
+    public Stream<Account> streamByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to) {
+        return LastUpdatedSpecifications.stream(
+                        entityManager, Account.class, LastUpdatedSpecifications.between(from, to), ID, EXPORT_FETCH_SIZE)
+                .peek(entityManager::detach);
     }
 
     @Override
     public boolean existsByEmail(Email email) {
-        return springAccountRepository.existsByEmail(email);
+        byte[] digest = email.digest();
+        return uniqueKeyFilters.emails().exists(digest, () -> springAccountRepository.existsByEmailHash(digest));
+    }
+
+    @Override
+    public List<Email> findExistingEmails(Collection<Email> emails) {
+        return uniqueKeyFilters.emails().existing(emails, Email::digest, candidates -> {
+            Set<ByteBuffer> existing = new HashSet<>();
+            for (byte[] emailHash : springAccountRepository.findEmailHashesIn(candidates.stream().map(Email::digest).toList())) {
+                existing.add(ByteBuffer.wrap(emailHash));
+            }
+            return candidates.stream().filter(email -> existing.contains(ByteBuffer.wrap(email.digest()))).toList();
+        });
     }
 
     @Override
     public Account save(Account account) {
+        uniqueKeyFilters.emails().add(account.getEmail().digest());
         return springAccountRepository.save(account);
     }
+
+    @Override
+    public Account saveAndFlush(Account account) {
+        uniqueKeyFilters.emails().add(account.getEmail().digest());
+        return springAccountRepository.saveAndFlush(account);
+    }
+
+    @Override
+    public Account create(Account account) {
+        try {
+            entityManager.persist(account);
+            entityManager.flush();
+            uniqueKeyFilters.emails().add(account.getEmail().digest());
+            return account;
+        } catch (PersistenceException | DataIntegrityViolationException e) {
+            if (UniqueConstraints.isViolated(e, UniqueConstraints.ACCOUNT_EMAIL_HASH)) {
+                throw new ResourceAlreadyExistsException("Email already exists: " + account.getEmail());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Account> saveAll(List<Account> accounts) {
+        accounts.forEach(account -> uniqueKeyFilters.emails().add(account.getEmail().digest()));
+        return springAccountRepository.saveAll(accounts);
+    }
+
+    @Override
+    public void insertAll(List<Account> accounts) {
+        try {
+            JdbcBatches.flush(entityManager, accounts.size(), () -> accounts.forEach(entityManager::persist));
+        } catch (PersistenceException | DataIntegrityViolationException e) {
+            if (UniqueConstraints.isViolated(e, UniqueConstraints.ACCOUNT_EMAIL_HASH)) {
+                throw new ResourceAlreadyExistsException("Email already exists");
+            }
+            throw e;
+        }
+        accounts.forEach(account -> {
+            uniqueKeyFilters.emails().add(account.getEmail().digest());
+            entityManager.detach(account);
+        });
+    }
 }
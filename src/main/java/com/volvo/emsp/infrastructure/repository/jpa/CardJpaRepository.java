@@ -1,22 +1,43 @@
 package com.volvo.emsp.infrastructure.repository.jpa;
 
+import com.volvo.emsp.domain.model.Account;
 import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.model.enums.AccountStatus;
+import com.volvo.emsp.domain.model.enums.CardStatus;
 import com.volvo.emsp.domain.repository.CardRepository;
+import com.volvo.emsp.domain.repository.KeysetCursor;
+import com.volvo.emsp.execption.ResourceAlreadyExistsException;
 import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public class CardJpaRepository implements CardRepository {
 
+    private static final String ID = "cardId";
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
     private final SpringCardRepository springCardRepository;
+    private final EntityManager entityManager;
+    private final UniqueKeyFilters uniqueKeyFilters;
 
-    public CardJpaRepository(SpringCardRepository cardRepository) {
+    public CardJpaRepository(SpringCardRepository cardRepository, EntityManager entityManager, UniqueKeyFilters uniqueKeyFilters) {
         this.springCardRepository = cardRepository;
+        this.entityManager = entityManager;
+        this.uniqueKeyFilters = uniqueKeyFilters;
     }
 
     @Override
@@ -24,27 +45,144 @@ public class CardJpaRepository implements CardRepository {
         return springCardRepository.findById(cardId);
     }
 
+    @Override
+    public List<Card> findAllById(Collection<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return List.of();
+        }
+        return springCardRepository.findAllById(cardIds);
+    }
+
     @Override
     public Page<Card> findByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable) {
-        return springCardRepository.findByLastUpdatedBetween(from, to, pageable);
+        return springCardRepository.findAll(LastUpdatedSpecifications.between(from, to), pageable);
+    }
+
+    @Override
+    public Slice<Card> findSliceByLastUpdatedBetween(
+            @Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable) {
+        return LastUpdatedSpecifications.findSlice(
+                entityManager, Card.class, LastUpdatedSpecifications.between(from, to), pageable);
+    }
+
+    @Override
+    public long countByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to) {
+        return springCardRepository.count(LastUpdatedSpecifications.between(from, to));
+    }
+
+    @Override
+    public List<Card> findByLastUpdatedBetween(
+            @Nullable OffsetDateTime from, @Nullable OffsetDateTime to, @Nullable KeysetCursor after, int limit) {
+        Specification<Card> spec = LastUpdatedSpecifications.between(from, to);
+        if (after != null) {
+            spec = spec.and(LastUpdatedSpecifications.after(after, ID));
+        }
+        return springCardRepository.findBy(spec, query -> query.sortBy(LastUpdatedSpecifications.newestFirst(ID)).limit(limit).all());
+    }
+
+    @Override
+    public List<Card> findChangesAfter(@Nullable KeysetCursor after, OffsetDateTime until, int limit) {
+        Specification<Card> spec = LastUpdatedSpecifications.between(null, until);
+        if (after != null) {
+            spec = spec.and(LastUpdatedSpecifications.newerThan(after, ID));
+        }
+        return springCardRepository.findBy(spec, query -> query.sortBy(LastUpdatedSpecifications.oldestFirst(ID)).limit(limit).all());
+    }
+
+    @Override
+    public Stream<Card> streamByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to) {
+        return LastUpdatedSpecifications.stream(
+                        entityManager, Card.class, LastUpdatedSpecifications.between(from, to), ID, EXPORT_FETCH_SIZE)
+                .peek(entityManager::detach);
     }
 
     @Override
     public Card save(Card card) {
+        addUniqueKeys(card);
         return springCardRepository.save(card);
     }
 
+    @Override
+    public Card create(Card card) {
+        try {
+            entityManager.persist(card);
+            entityManager.flush();
+            addUniqueKeys(card);
+            return card;
+        } catch (PersistenceException | DataIntegrityViolationException e) {
+            if (UniqueConstraints.isViolated(e, UniqueConstraints.CARD_RFID_UID)) {
+                throw new ResourceAlreadyExistsException("Card with RFID UID already exists: " + card.getRfidUid());
+            }
+            if (UniqueConstraints.isViolated(e, UniqueConstraints.CARD_VISIBLE_NUMBER)) {
+                throw new ResourceAlreadyExistsException("Card with visible number already exists: " + card.getVisibleNumber());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void insertAll(List<Card> cards) {
+        try {
+            JdbcBatches.flush(entityManager, cards.size(), () -> cards.forEach(entityManager::persist));
+        } catch (PersistenceException | DataIntegrityViolationException e) {
+            if (UniqueConstraints.isViolated(e, UniqueConstraints.CARD_RFID_UID)
+                    || UniqueConstraints.isViolated(e, UniqueConstraints.CARD_VISIBLE_NUMBER)) {
+                throw new ResourceAlreadyExistsException("Card with RFID UID or visible number already exists");
+            }
+            throw e;
+        }
+        cards.forEach(card -> {
+            addUniqueKeys(card);
+            entityManager.detach(card);
+        });
+    }
+
+    @Override
+    public void updateAll(List<Card> cards) {
+        // managed entities, dirty checking issues the updates on flush
+        JdbcBatches.flush(entityManager, cards.size(), () -> {
+        });
+    }
+
+    @Override
+    public boolean updateStatus(Long cardId, CardStatus status, @Nullable Long expectedVersion, OffsetDateTime lastUpdated) {
+        Set<CardStatus> from = status.predecessors();
+        return !from.isEmpty()
+                && springCardRepository.updateStatus(cardId, from, status, expectedVersion, lastUpdated) == 1;
+    }
+
+    @Override
+    public boolean assign(Long cardId, Account account, @Nullable Long expectedVersion, OffsetDateTime lastUpdated) {
+        return springCardRepository.assign(cardId, CardStatus.ASSIGNED.predecessors(), CardStatus.ASSIGNED,
+                expectedVersion, account.getAccountId(), account.getContractId(), AccountStatus.ACTIVATED,
+                lastUpdated) == 1;
+    }
+
+    @Override
+    public List<Card> saveAll(List<Card> cards) {
+        cards.forEach(this::addUniqueKeys);
+        return springCardRepository.saveAll(cards);
+    }
+
     @Override
     public boolean existsByRfidUid(String rfidUid) {
-        return springCardRepository.existsByRfidUid(rfidUid);
+        return uniqueKeyFilters.rfidUids().exists(UniqueKeyFilters.key(rfidUid),
+                () -> springCardRepository.existsByRfidUid(rfidUid));
     }
 
     @Override
     public boolean existsByVisibleNumber(String visibleNumber) {
-        return springCardRepository.existsByVisibleNumber(visibleNumber);
+        return uniqueKeyFilters.visibleNumbers().exists(UniqueKeyFilters.key(visibleNumber),
+                () -> springCardRepository.existsByVisibleNumber(visibleNumber));
     }
 
     public Optional<Card> findByRfidUid(String rfidUid) {
         return springCardRepository.findByRfidUid(rfidUid);
     }
+
+    // keys never change, adding them again on an update is harmless
+    private void addUniqueKeys(Card card) {
+        uniqueKeyFilters.rfidUids().add(UniqueKeyFilters.key(card.getRfidUid()));
+        uniqueKeyFilters.visibleNumbers().add(UniqueKeyFilters.key(card.getVisibleNumber()));
+    }
 }
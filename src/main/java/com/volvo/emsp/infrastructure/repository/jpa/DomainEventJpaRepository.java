@@ -6,6 +6,7 @@ import com.volvo.emsp.domain.event.DomainEvent;
 import com.volvo.emsp.domain.event.EventSource;
 import com.volvo.emsp.domain.event.enums.EventStatus;
 import com.volvo.emsp.domain.repository.DomainEventRepository;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -21,10 +22,12 @@ public class DomainEventJpaRepository implements DomainEventRepository {
     private static final Logger log = LoggerFactory.getLogger(DomainEventJpaRepository.class);
     private final SpringDomainEventRepository repository;
     private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
 
-    public DomainEventJpaRepository(SpringDomainEventRepository repository, ObjectMapper objectMapper) {
+    public DomainEventJpaRepository(SpringDomainEventRepository repository, ObjectMapper objectMapper, EntityManager entityManager) {
         this.repository = repository;
         this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
     }
 
 
@@ -37,20 +40,30 @@ public class DomainEventJpaRepository implements DomainEventRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void append(DomainEvent event) {
+        DomainEventStoreModel model = new DomainEventStoreModel();
+        model.setEventId(event.getEventId());
+        // new model, persisted without looking it up first
+        repository.save(fill(model, event));
+    }
+
+    @Override
+    public void appendAll(List<DomainEvent> events) {
+        JdbcBatches.flush(entityManager, events.size(), () -> events.forEach(this::append));
+    }
+
     @Override
     public void save(DomainEvent event) {
-        // try to get from repository
         Optional<DomainEventStoreModel> optionalDomainEventModel = repository.findById(event.getEventId());
-
-        DomainEventStoreModel model;
-        if (optionalDomainEventModel.isPresent()) {
-            // yes
-            model = optionalDomainEventModel.get();
-        } else {
-            // no
-            model = new DomainEventStoreModel();
-            model.setEventId(event.getEventId());
+        if (optionalDomainEventModel.isEmpty()) {
+            append(event);
+            return;
         }
+        repository.save(fill(optionalDomainEventModel.get(), event));
+    }
+
+    private DomainEventStoreModel fill(DomainEventStoreModel model, DomainEvent event) {
         model.setEventType(event.getClass().getName());
         EventSource eventSource = event.getEventSource();
         if (eventSource != null) {
@@ -64,7 +77,7 @@ public class DomainEventJpaRepository implements DomainEventRepository {
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Could not serialize event", e);
         }
-        repository.save(model);
+        return model;
     }
 
     public void saveAll(List<DomainEvent> event1) {
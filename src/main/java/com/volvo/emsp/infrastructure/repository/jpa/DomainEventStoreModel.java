@@ -3,6 +3,7 @@ package com.volvo.emsp.infrastructure.repository.jpa;
 import jakarta.persistence.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 
@@ -11,7 +12,7 @@ import java.time.Instant;
         @Index(name = "idx_status_timestamp", columnList = "status, timestamp")
 })
 @SuppressWarnings("unused")
-public class DomainEventStoreModel {
+public class DomainEventStoreModel implements Persistable<String> {
     @Id
     private String eventId;
     
@@ -37,6 +38,25 @@ public class DomainEventStoreModel {
     @Version
     private Long version;
 
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public String getId() {
+        return eventId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     public String getEventId() {
         return eventId;
     }
@@ -0,0 +1,28 @@
+package com.volvo.emsp.infrastructure.repository.jpa;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+/**
+ * No JDBC batch size is configured globally, the bulk paths switch it on for the one flush that needs it.
+ */
+final class JdbcBatches {
+
+    private JdbcBatches() {
+    }
+
+    /**
+     * Run {@code work} and flush the statements it leaves pending as JDBC batches of up to {@code size} rows.
+     */
+    static void flush(EntityManager entityManager, int size, Runnable work) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer batchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(Math.max(1, size));
+        try {
+            work.run();
+            entityManager.flush();
+        } finally {
+            session.setJdbcBatchSize(batchSize);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.volvo.emsp.infrastructure.repository.jpa;
+
+import com.volvo.emsp.domain.repository.KeysetCursor;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Criteria for the last-updated list filters, backed by the {@code (last_updated, id)} indexes.
+ * <p>
+ * Only the bounds that are present become predicates. A {@code :from IS NULL OR ...} guard would be evaluated per
+ * row and keeps MySQL from using the index for the range.
+ */
+final class LastUpdatedSpecifications {
+
+    static final String LAST_UPDATED = "lastUpdated";
+
+    private LastUpdatedSpecifications() {
+    }
+
+    static <T> Specification<T> between(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to) {
+        return (root, query, cb) -> {
+            Path<OffsetDateTime> lastUpdated = root.get(LAST_UPDATED);
+            List<Predicate> predicates = new ArrayList<>(2);
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(lastUpdated, from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThanOrEqualTo(lastUpdated, to));
+            }
+            return predicates.isEmpty() ? null : cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Rows after {@code cursor} in {@link #newestFirst} order. The leading {@code lastUpdated <= ?} keeps the seek a
+     * plain range on the index.
+     */
+    static <T> Specification<T> after(KeysetCursor cursor, String idAttribute) {
+        return (root, query, cb) -> {
+            Path<OffsetDateTime> lastUpdated = root.get(LAST_UPDATED);
+            Path<Long> id = root.get(idAttribute);
+            return cb.and(
+                    cb.lessThanOrEqualTo(lastUpdated, cursor.getLastUpdated()),
+                    cb.or(cb.lessThan(lastUpdated, cursor.getLastUpdated()), cb.lessThan(id, cursor.getId())));
+        };
+    }
+
+    /**
+     * Rows after {@code cursor} in {@link #oldestFirst} order, the mirror of {@link #after}.
+     */
+    static <T> Specification<T> newerThan(KeysetCursor cursor, String idAttribute) {
+        return (root, query, cb) -> {
+            Path<OffsetDateTime> lastUpdated = root.get(LAST_UPDATED);
+            Path<Long> id = root.get(idAttribute);
+            return cb.and(
+                    cb.greaterThanOrEqualTo(lastUpdated, cursor.getLastUpdated()),
+                    cb.or(cb.greaterThan(lastUpdated, cursor.getLastUpdated()), cb.greaterThan(id, cursor.getId())));
+        };
+    }
+
+    static Sort newestFirst(String idAttribute) {
+        return Sort.by(Sort.Direction.DESC, LAST_UPDATED, idAttribute);
+    }
+
+    static Sort oldestFirst(String idAttribute) {
+        return Sort.by(Sort.Direction.ASC, LAST_UPDATED, idAttribute);
+    }
+
+    /**
+     * One page and whether there is a next one, read as {@code size + 1} rows instead of a COUNT.
+     */
+    static <T> Slice<T> findSlice(EntityManager entityManager, Class<T> type, Specification<T> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        List<T> rows = entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(pageable.getOffset()))
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    /**
+     * Every row in {@link #newestFirst} order, read through a forward-only cursor {@code fetchSize} rows at a time.
+     * The rows are loaded read-only and kept out of the second-level cache, an export must not evict the hot entries.
+     */
+    static <T> Stream<T> stream(
+            EntityManager entityManager, Class<T> type, Specification<T> spec, String idAttribute, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(newestFirst(idAttribute), root, cb));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS)
+                .getResultStream();
+    }
+}
@@ -1,29 +1,33 @@
 package com.volvo.emsp.infrastructure.repository.jpa;
 
-
 import com.volvo.emsp.domain.model.Account;
-import com.volvo.emsp.domain.model.Email;
-import jakarta.annotation.Nullable;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface SpringAccountRepository extends JpaRepository<Account, Long> {
+public interface SpringAccountRepository extends JpaRepository<Account, Long>, JpaSpecificationExecutor<Account> {
+
+    Optional<Account> findByEmailHash(byte[] emailHash);
 
-    Optional<Account> findByEmail(Email email);
+    boolean existsByEmailHash(byte[] emailHash);
 
-    @Query("""
-        SELECT a FROM Account a
-        WHERE (:from IS NULL OR a.lastUpdated >= :from)
-          AND (:to IS NULL OR a.lastUpdated <= :to)
-    """)
-    Page<Account> findByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable);
+    /**
+     * Email hash of every account, must be consumed inside a transaction.
+     */
+    @Query("select a.emailHash from Account a")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<byte[]> streamEmailHashes();
 
-    boolean existsByEmail(Email email);
+    @Query("select a.emailHash from Account a where a.emailHash in :emailHashes")
+    List<byte[]> findEmailHashesIn(Collection<byte[]> emailHashes);
 }
@@ -1,29 +1,53 @@
 package com.volvo.emsp.infrastructure.repository.jpa;
 
 import com.volvo.emsp.domain.model.Card;
-import jakarta.annotation.Nullable;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.volvo.emsp.domain.model.Emaid;
+import com.volvo.emsp.domain.model.enums.AccountStatus;
+import com.volvo.emsp.domain.model.enums.CardStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface SpringCardRepository extends JpaRepository<Card, Long> {
-
-    @Query("""
-        SELECT c FROM Card c
-        WHERE (:from IS NULL OR c.lastUpdated >= :from)
-          AND (:to IS NULL OR c.lastUpdated <= :to)
-    """)
-    Page<Card> findByLastUpdatedBetween(@Nullable OffsetDateTime from, @Nullable OffsetDateTime to, Pageable pageable);
+public interface SpringCardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card> {
 
     Optional<Card> findByRfidUid(String rfidUid);
 
     boolean existsByRfidUid(String rfidUid);
 
     boolean existsByVisibleNumber(String visibleNumber);
+
+    /**
+     * rfidUid and visibleNumber of every card, must be consumed inside a transaction.
+     */
+    @Query("select c.rfidUid, c.visibleNumber from Card c")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamUniqueKeys();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Card c set c.status = :status, c.lastUpdated = :lastUpdated, c.version = c.version + 1
+            where c.cardId = :cardId and c.status in :from and (:version is null or c.version = :version)""")
+    int updateStatus(Long cardId, Collection<CardStatus> from, CardStatus status, Long version,
+                     OffsetDateTime lastUpdated);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Card c set c.status = :status, c.accountId = :accountId, c.contractId = :contractId,
+                c.lastUpdated = :lastUpdated, c.version = c.version + 1
+            where c.cardId = :cardId and c.status in :from and c.accountId is null
+                and (:version is null or c.version = :version)
+                and exists (select 1 from Account a where a.accountId = :accountId and a.status = :accountStatus)""")
+    int assign(Long cardId, Collection<CardStatus> from, CardStatus status, Long version, Long accountId,
+               Emaid contractId, AccountStatus accountStatus, OffsetDateTime lastUpdated);
 }
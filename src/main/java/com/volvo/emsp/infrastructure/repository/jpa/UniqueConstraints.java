@@ -0,0 +1,34 @@
+package com.volvo.emsp.infrastructure.repository.jpa;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.util.Locale;
+
+/**
+ * Names of the unique constraints the create paths rely on, and how to recognise them in a failed insert.
+ */
+final class UniqueConstraints {
+
+    static final String CARD_RFID_UID = "uk_card_rfid_uid";
+    static final String CARD_VISIBLE_NUMBER = "uk_card_visible_number";
+    static final String ACCOUNT_EMAIL_HASH = "idx_email_hash";
+
+    private UniqueConstraints() {
+    }
+
+    /**
+     * Whether {@code e} (or one of its causes) is a violation of {@code constraintName}.
+     * Databases report the name decorated differently (H2: {@code PUBLIC.UK_..._INDEX_1}, MySQL: {@code cards.uk_...}),
+     * so it is matched case-insensitively as a substring.
+     */
+    static boolean isViolated(Throwable e, String constraintName) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(constraintName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
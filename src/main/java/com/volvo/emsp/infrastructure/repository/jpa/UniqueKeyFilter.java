@@ -0,0 +1,109 @@
+package com.volvo.emsp.infrastructure.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * {@link BloomFilter} in front of the database probe of one unique key.
+ * <p>
+ * Until the filter is {@link #markLoaded() loaded} every check goes to the database. After that a key the filter
+ * has never seen is reported absent without a query, and only the filter's positives are verified.
+ */
+public class UniqueKeyFilter {
+
+    private final String name;
+    private final BloomFilter filter;
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private volatile boolean loaded;
+
+    public UniqueKeyFilter(String name, BloomFilter filter) {
+        this.name = name;
+        this.filter = filter;
+    }
+
+    /**
+     * @param probe the database lookup, run when the filter cannot rule the key out
+     */
+    public boolean exists(byte[] key, BooleanSupplier probe) {
+        if (!loaded) {
+            return probe.getAsBoolean();
+        }
+        if (!filter.mightContain(key)) {
+            negatives.increment();
+            return false;
+        }
+        boolean exists = probe.getAsBoolean();
+        if (exists) {
+            positives.increment();
+        } else {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    /**
+     * Batch form of {@link #exists}: only the keys the filter can not rule out are passed to the probe.
+     *
+     * @param probe the database lookup of a batch of keys, returns those that exist
+     * @return the keys that exist
+     */
+    public <K> List<K> existing(Collection<K> keys, Function<K, byte[]> keyOf, Function<List<K>, List<K>> probe) {
+        boolean loaded = this.loaded;
+        List<K> candidates = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            if (!loaded || filter.mightContain(keyOf.apply(key))) {
+                candidates.add(key);
+            }
+        }
+        if (loaded) {
+            negatives.add(keys.size() - candidates.size());
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        List<K> existing = probe.apply(candidates);
+        if (loaded) {
+            positives.add(existing.size());
+            falsePositives.add(candidates.size() - existing.size());
+        }
+        return existing;
+    }
+
+    public void add(byte[] key) {
+        filter.put(key);
+    }
+
+    void markLoaded() {
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BloomFilter getFilter() {
+        return filter;
+    }
+
+    public long getNegatives() {
+        return negatives.sum();
+    }
+
+    public long getPositives() {
+        return positives.sum();
+    }
+
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+}
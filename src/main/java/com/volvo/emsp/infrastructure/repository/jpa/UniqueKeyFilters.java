@@ -0,0 +1,143 @@
+package com.volvo.emsp.infrastructure.repository.jpa;
+
+import com.volvo.emsp.domain.model.Card;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Per-node Bloom filters of the card RFID UIDs, card visible numbers and account email hashes, so the uniqueness
+ * pre-checks of a create skip the database for keys that were never stored.
+ * <p>
+ * The filters are filled by streaming the key columns when the application becomes ready, and every insert through
+ * the repositories adds its keys. Keys inserted by other nodes after the load are not in this node's filters, so the
+ * checks here report them as free. The unique constraints still reject those on insert, at the price of the import
+ * chunk that holds one being retried row by row. Memory, expected false-positive rate and check outcomes are
+ * exposed as {@code unique.filter.*}.
+ */
+@Component
+public class UniqueKeyFilters implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(UniqueKeyFilters.class);
+
+    private final UniqueKeyFilter rfidUids;
+    private final UniqueKeyFilter visibleNumbers;
+    private final UniqueKeyFilter emails;
+    private final SpringCardRepository springCardRepository;
+    private final SpringAccountRepository springAccountRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    public UniqueKeyFilters(
+            SpringCardRepository springCardRepository,
+            SpringAccountRepository springAccountRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.unique-key-filter.enabled:true}") boolean enabled,
+            @Value("${app.unique-key-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${app.unique-key-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.springCardRepository = springCardRepository;
+        this.springAccountRepository = springAccountRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.rfidUids = new UniqueKeyFilter("card.rfid_uid", BloomFilter.create(expectedInsertions, falsePositiveRate));
+        this.visibleNumbers = new UniqueKeyFilter("card.visible_number", BloomFilter.create(expectedInsertions, falsePositiveRate));
+        this.emails = new UniqueKeyFilter("account.email", BloomFilter.create(expectedInsertions, falsePositiveRate));
+    }
+
+    /**
+     * Stream the stored keys into the filters. Until this has finished every check goes to the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long[] counts = new long[2];
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (var keys = springCardRepository.streamUniqueKeys()) {
+                    keys.forEach(key -> {
+                        rfidUids.add(key(key[0]));
+                        visibleNumbers.add(key(key[1]));
+                        counts[0]++;
+                    });
+                }
+                try (var keys = springAccountRepository.streamEmailHashes()) {
+                    keys.forEach(key -> {
+                        emails.add(key);
+                        counts[1]++;
+                    });
+                }
+            });
+            rfidUids.markLoaded();
+            visibleNumbers.markLoaded();
+            emails.markLoaded();
+            log.info("unique key filters loaded {} cards and {} accounts", counts[0], counts[1]);
+        } catch (Exception e) {
+            log.error("Failed to load the unique key filters, uniqueness checks keep querying the database", e);
+        }
+    }
+
+    public UniqueKeyFilter rfidUids() {
+        return rfidUids;
+    }
+
+    public UniqueKeyFilter visibleNumbers() {
+        return visibleNumbers;
+    }
+
+    public UniqueKeyFilter emails() {
+        return emails;
+    }
+
+    /**
+     * By {@link Card#uniqueKey(String)}, so a case-insensitive collation can not turn a filter negative into a missed
+     * duplicate.
+     */
+    public static byte[] key(Object value) {
+        return Card.uniqueKey(value.toString()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (UniqueKeyFilter filter : List.of(rfidUids, visibleNumbers, emails)) {
+            Gauge.builder("unique.filter.memory", filter, f -> f.getFilter().sizeInBytes())
+                    .description("Size of the Bloom filter bit array")
+                    .baseUnit("bytes")
+                    .tag("key", filter.getName())
+                    .register(registry);
+            Gauge.builder("unique.filter.false_positive_rate", filter, f -> f.getFilter().expectedFalsePositiveRate())
+                    .description("Expected share of absent keys the filter reports as present, from its current fill")
+                    .tag("key", filter.getName())
+                    .register(registry);
+            FunctionCounter.builder("unique.filter.checks", filter, UniqueKeyFilter::getNegatives)
+                    .description("Uniqueness checks by outcome, only positives and false positives queried the database")
+                    .tag("key", filter.getName())
+                    .tag("result", "negative")
+                    .register(registry);
+            FunctionCounter.builder("unique.filter.checks", filter, UniqueKeyFilter::getPositives)
+                    .description("Uniqueness checks by outcome, only positives and false positives queried the database")
+                    .tag("key", filter.getName())
+                    .tag("result", "positive")
+                    .register(registry);
+            FunctionCounter.builder("unique.filter.checks", filter, UniqueKeyFilter::getFalsePositives)
+                    .description("Uniqueness checks by outcome, only positives and false positives queried the database")
+                    .tag("key", filter.getName())
+                    .tag("result", "false_positive")
+                    .register(registry);
+        }
+    }
+}
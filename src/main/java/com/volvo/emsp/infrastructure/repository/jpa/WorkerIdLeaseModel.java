@@ -0,0 +1,41 @@
+package com.volvo.emsp.infrastructure.repository.jpa;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "worker_id_leases")
+@SuppressWarnings("unused")
+public class WorkerIdLeaseModel {
+
+    @Id
+    private Integer workerId;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false, columnDefinition = "TIMESTAMP")
+    private Instant expiresAt;
+
+    protected WorkerIdLeaseModel() {
+    }
+
+    public WorkerIdLeaseModel(Integer workerId, String owner, Instant expiresAt) {
+        this.workerId = workerId;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+
+    public Integer getWorkerId() {
+        return workerId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,43 @@
+package com.volvo.emsp.infrastructure.service;
+
+import com.volvo.emsp.application.dto.AccountDTO;
+import com.volvo.emsp.application.dto.CardDTO;
+import com.volvo.emsp.application.service.DtoCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Used without redis: every lookup goes to the database.
+ */
+@Service
+@ConditionalOnMissingBean(DtoCacheRedisImpl.class)
+public class DtoCacheNoopImpl implements DtoCache {
+
+    @Override
+    public Optional<CardDTO> getCard(Long cardId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void putCard(CardDTO card) {
+    }
+
+    @Override
+    public void evictCard(Long cardId) {
+    }
+
+    @Override
+    public Optional<AccountDTO> getAccount(Long accountId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void putAccount(AccountDTO account) {
+    }
+
+    @Override
+    public void evictAccount(Long accountId) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.volvo.emsp.infrastructure.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.volvo.emsp.application.dto.AccountDTO;
+import com.volvo.emsp.application.dto.CardDTO;
+import com.volvo.emsp.application.service.DtoCache;
+import com.volvo.emsp.domain.model.enums.CardStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * DTOs are stored as positional JSON arrays under {@code dto:v2:card:<id>} and {@code dto:v2:account:<id>}, bump the
+ * version when the layout changes.
+ * <p>
+ * Evictions wait for the surrounding transaction to commit, otherwise a concurrent read could put the old state back
+ * before the commit. A read that started before the commit, or that a lagging replica answered, can still finish after
+ * it. So an eviction leaves a marker for {@code app.dto-cache.hold-off-ms} that turns puts away, and a put never
+ * replaces an entry of the same or a newer version. Both checks run in one script.
+ * <p>
+ * When redis fails the cache stays out of the way for {@code app.dto-cache.retry-ms}; evictions missed in that window
+ * are bounded by {@code app.dto-cache.ttl-ms}.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "spring.data.redis.host")
+public class DtoCacheRedisImpl implements DtoCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DtoCacheRedisImpl.class);
+    private static final String CARD_KEY_PREFIX = "dto:v2:card:";
+    private static final String ACCOUNT_KEY_PREFIX = "dto:v2:account:";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String EVICTED = "-";
+    // positions of the version in the layouts, 1-based for lua
+    private static final int CARD_VERSION_INDEX = 9;
+    private static final int ACCOUNT_VERSION_INDEX = 6;
+
+    // KEYS[1] key, ARGV: eviction marker, version index, version (empty when unknown), value, ttl in ms
+    private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('get', KEYS[1]) " +
+                    "if current == ARGV[1] then return 0 end " +
+                    "local version = tonumber(ARGV[3]) " +
+                    "if current and version then " +
+                    "  local ok, cached = pcall(cjson.decode, current) " +
+                    "  if ok and type(cached[tonumber(ARGV[2])]) == 'number' " +
+                    "      and cached[tonumber(ARGV[2])] >= version then return 0 end " +
+                    "end " +
+                    "redis.call('set', KEYS[1], ARGV[4], 'px', ARGV[5]) " +
+                    "return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Duration holdOff;
+    private final long retryMillis;
+
+    private volatile long unavailableUntil;
+
+    public DtoCacheRedisImpl(
+            StringRedisTemplate redisTemplate,
+            @Value("${app.dto-cache.ttl-ms:300000}") long ttlMillis,
+            @Value("${app.dto-cache.hold-off-ms:2000}") long holdOffMillis,
+            @Value("${app.dto-cache.retry-ms:5000}") long retryMillis) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.holdOff = Duration.ofMillis(holdOffMillis);
+        this.retryMillis = retryMillis;
+        log.info("using DtoCacheRedisImpl for card and account lookups");
+    }
+
+    @Override
+    public Optional<CardDTO> getCard(Long cardId) {
+        return get(CARD_KEY_PREFIX + cardId).map(DtoCacheRedisImpl::decodeCard);
+    }
+
+    @Override
+    public void putCard(CardDTO card) {
+        put(CARD_KEY_PREFIX + card.getCardId(), encode(card), CARD_VERSION_INDEX, card.getVersion());
+    }
+
+    @Override
+    public void evictCard(Long cardId) {
+        evict(CARD_KEY_PREFIX + cardId);
+    }
+
+    @Override
+    public Optional<AccountDTO> getAccount(Long accountId) {
+        return get(ACCOUNT_KEY_PREFIX + accountId).map(DtoCacheRedisImpl::decodeAccount);
+    }
+
+    @Override
+    public void putAccount(AccountDTO account) {
+        put(ACCOUNT_KEY_PREFIX + account.getAccountId(), encode(account), ACCOUNT_VERSION_INDEX, account.getVersion());
+    }
+
+    @Override
+    public void evictAccount(Long accountId) {
+        evict(ACCOUNT_KEY_PREFIX + accountId);
+    }
+
+    private Optional<JsonNode> get(String key) {
+        String value = call(() -> redisTemplate.opsForValue().get(key), null);
+        if (value == null || EVICTED.equals(value)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(MAPPER.readTree(value));
+        } catch (JsonProcessingException e) {
+            log.warn("ignore unreadable cache entry {}", key);
+            return Optional.empty();
+        }
+    }
+
+    private void put(String key, String value, int versionIndex, Long version) {
+        call(() -> redisTemplate.execute(PUT_SCRIPT, List.of(key), EVICTED, String.valueOf(versionIndex),
+                version == null ? "" : version.toString(), value, String.valueOf(ttl.toMillis())), null);
+    }
+
+    private void evict(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delete(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delete(key);
+            }
+        });
+    }
+
+    private void delete(String key) {
+        if (holdOff.isZero()) {
+            call(() -> redisTemplate.delete(key), null);
+            return;
+        }
+        call(() -> {
+            redisTemplate.opsForValue().set(key, EVICTED, holdOff);
+            return null;
+        }, null);
+    }
+
+    private <T> T call(Supplier<T> operation, T fallback) {
+        if (System.currentTimeMillis() < unavailableUntil) {
+            return fallback;
+        }
+        try {
+            return operation.get();
+        } catch (DataAccessException e) {
+            unavailableUntil = System.currentTimeMillis() + retryMillis;
+            log.warn("redis dto cache unavailable, using the database for {} ms: {}", retryMillis, e.getMessage());
+            return fallback;
+        }
+    }
+
+    static String encode(CardDTO card) {
+        ArrayNode node = MAPPER.createArrayNode()
+                .add(card.getCardId())
+                .add(card.getRfidUid())
+                .add(card.getVisibleNumber())
+                .add(card.getContractId())
+                .add(card.getStatus() == null ? null : card.getStatus().name())
+                .add(format(card.getLastUpdated()))
+                .add(format(card.getCreatedAt()))
+                .add(card.getAccountId())
+                .add(card.getVersion());
+        return node.toString();
+    }
+
+    static CardDTO decodeCard(JsonNode node) {
+        CardDTO card = new CardDTO();
+        card.setCardId(longValue(node.get(0)));
+        card.setRfidUid(text(node.get(1)));
+        card.setVisibleNumber(text(node.get(2)));
+        card.setContractId(text(node.get(3)));
+        String status = text(node.get(4));
+        card.setStatus(status == null ? null : CardStatus.valueOf(status));
+        card.setLastUpdated(parse(node.get(5)));
+        card.setCreatedAt(parse(node.get(6)));
+        card.setAccountId(longValue(node.get(7)));
+        card.setVersion(longValue(node.get(8)));
+        return card;
+    }
+
+    static String encode(AccountDTO account) {
+        ArrayNode node = MAPPER.createArrayNode()
+                .add(account.getAccountId())
+                .add(account.getEmail())
+                .add(account.getEmaid())
+                .add(account.getStatus())
+                .add(format(account.getLastUpdated()))
+                .add(account.getVersion());
+        return node.toString();
+    }
+
+    static AccountDTO decodeAccount(JsonNode node) {
+        AccountDTO account = new AccountDTO(
+                longValue(node.get(0)),
+                text(node.get(1)),
+                text(node.get(2)),
+                text(node.get(3)),
+                parse(node.get(4)));
+        account.setVersion(longValue(node.get(5)));
+        return account;
+    }
+
+    private static String format(OffsetDateTime time) {
+        return time == null ? null : time.toString();
+    }
+
+    private static OffsetDateTime parse(JsonNode node) {
+        String text = text(node);
+        return text == null ? null : OffsetDateTime.parse(text);
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static Long longValue(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asLong();
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Component
 public class PersistentDomainEventPublisher implements DomainEventPublisher {
 
@@ -29,9 +31,26 @@ public class PersistentDomainEventPublisher implements DomainEventPublisher {
     @Transactional(propagation = Propagation.REQUIRED)
     public void publish(DomainEvent event) {
         // save event
-        eventRepository.save(event);
+        eventRepository.append(event);
 
         // Spring event
+        publishSpringEvent(event);
+    }
+
+    /**
+     * The events are stored as one batch before any Spring event is published.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void publishAll(List<DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        eventRepository.appendAll(events);
+        events.forEach(this::publishSpringEvent);
+    }
+
+    private void publishSpringEvent(DomainEvent event) {
         try {
             applicationEventPublisher.publishEvent(event);
         } catch (Exception e) {
@@ -0,0 +1,93 @@
+package com.volvo.emsp.infrastructure.service;
+
+import com.volvo.emsp.domain.service.WorkerIdLeaseService;
+import com.volvo.emsp.infrastructure.repository.jpa.WorkerIdLeaseModel;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Worker id leases as rows of {@code worker_id_leases}, one per slot.
+ * Every call runs in its own transaction so a heartbeat never joins a business transaction.
+ */
+@Service
+@ConditionalOnMissingBean(WorkerIdLeaseServiceRedisImpl.class)
+public class WorkerIdLeaseServiceJpaImpl implements WorkerIdLeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerIdLeaseServiceJpaImpl.class);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public WorkerIdLeaseServiceJpaImpl(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        log.info("using WorkerIdLeaseServiceJpaImpl for worker id leases");
+    }
+
+    @Override
+    public boolean tryAcquire(int workerId, String owner, Duration ttl) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                Instant now = Instant.now();
+                int updated = entityManager
+                        .createQuery("UPDATE WorkerIdLeaseModel l " +
+                                " SET l.owner = :owner, l.expiresAt = :expiresAt " +
+                                " WHERE l.workerId = :workerId " +
+                                " AND (l.owner = :owner OR l.expiresAt < :now)")
+                        .setParameter("owner", owner)
+                        .setParameter("expiresAt", now.plus(ttl))
+                        .setParameter("workerId", workerId)
+                        .setParameter("now", now)
+                        .executeUpdate();
+                if (updated == 1) {
+                    return true;
+                }
+                if (entityManager.find(WorkerIdLeaseModel.class, workerId) != null) {
+                    return false;
+                }
+                entityManager.persist(new WorkerIdLeaseModel(workerId, owner, now.plus(ttl)));
+                entityManager.flush();
+                return true;
+            }));
+        } catch (PersistenceException | DataAccessException e) {
+            // another node inserted the same slot first
+            log.warn("worker id {} is taken concurrently: {}", workerId, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean renew(int workerId, String owner, Duration ttl) {
+        Integer updated = transactionTemplate.execute(status -> entityManager
+                .createQuery("UPDATE WorkerIdLeaseModel l " +
+                        " SET l.expiresAt = :expiresAt " +
+                        " WHERE l.workerId = :workerId AND l.owner = :owner")
+                .setParameter("expiresAt", Instant.now().plus(ttl))
+                .setParameter("workerId", workerId)
+                .setParameter("owner", owner)
+                .executeUpdate());
+        return updated != null && updated == 1;
+    }
+
+    @Override
+    public void release(int workerId, String owner) {
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createQuery("DELETE FROM WorkerIdLeaseModel l " +
+                        " WHERE l.workerId = :workerId AND l.owner = :owner")
+                .setParameter("workerId", workerId)
+                .setParameter("owner", owner)
+                .executeUpdate());
+    }
+}
@@ -0,0 +1,63 @@
+package com.volvo.emsp.infrastructure.service;
+
+import com.volvo.emsp.domain.service.WorkerIdLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Worker id leases as expiring keys, {@code worker_id_lease:<id>} holds the owner.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "spring.data.redis.host")
+public class WorkerIdLeaseServiceRedisImpl implements WorkerIdLeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerIdLeaseServiceRedisImpl.class);
+    private static final String LEASE_KEY_PREFIX = "worker_id_lease:";
+
+    // only the owner may extend or delete its lease
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public WorkerIdLeaseServiceRedisImpl(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        log.info("using WorkerIdLeaseServiceRedisImpl for worker id leases");
+    }
+
+    @Override
+    public boolean tryAcquire(int workerId, String owner, Duration ttl) {
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(leaseKey(workerId), owner, ttl);
+        return Boolean.TRUE.equals(acquired) || renew(workerId, owner, ttl);
+    }
+
+    @Override
+    public boolean renew(int workerId, String owner, Duration ttl) {
+        Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(leaseKey(workerId)),
+                owner, String.valueOf(ttl.toMillis()));
+        return renewed != null && renewed == 1L;
+    }
+
+    @Override
+    public void release(int workerId, String owner) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey(workerId)), owner);
+    }
+
+    private static String leaseKey(int workerId) {
+        return LEASE_KEY_PREFIX + workerId;
+    }
+}
@@ -2,8 +2,14 @@ package com.volvo.emsp.rest;
 
 import com.volvo.emsp.application.command.ChangeAccountStatusCommand;
 import com.volvo.emsp.application.command.CreateAccountCommand;
+import com.volvo.emsp.application.command.ImportRow;
 import com.volvo.emsp.application.dto.AccountDTO;
+import com.volvo.emsp.application.dto.AccountImportResultDTO;
+import com.volvo.emsp.application.dto.CursorPage;
+import com.volvo.emsp.application.dto.EstimatedPage;
 import com.volvo.emsp.application.service.AccountApplicationService;
+import com.volvo.emsp.application.service.AccountImportService;
+import com.volvo.emsp.execption.BadRequestException;
 import com.volvo.emsp.execption.ResourceNotFoundException;
 import com.volvo.emsp.rest.model.ErrorResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,27 +20,42 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.net.URI;
 import java.time.OffsetDateTime;
-import java.util.Optional;
+import java.util.Iterator;
 
 @RestController
 @Tag(name = "Account Management", description = "APIs for managing account operations")
 public class AccountResource {
 
     private final AccountApplicationService accountApplicationService;
+    private final AccountImportService accountImportService;
+    private final ImportStreams importStreams;
+    private final ExportStreams exportStreams;
 
-    public AccountResource(AccountApplicationService accountApplicationService) {
+    public AccountResource(AccountApplicationService accountApplicationService,
+                           AccountImportService accountImportService,
+                           ImportStreams importStreams,
+                           ExportStreams exportStreams) {
         this.accountApplicationService = accountApplicationService;
+        this.accountImportService = accountImportService;
+        this.importStreams = importStreams;
+        this.exportStreams = exportStreams;
     }
 
     @Operation(summary = "Create account",
@@ -84,6 +105,51 @@ public class AccountResource {
         return ResponseEntity.created(location).body(accountDTO);
     }
 
+    @Operation(summary = "Import accounts",
+            description = """
+                    Create accounts from a stream of rows, NDJSON objects or CSV lines with the single column email.</br>
+                    Per batch of app.import.batch-size rows, emails are deduplicated within the batch and against the database with one query,
+                    ids and EMAIDs are leased as blocks and the accounts are inserted in one transaction.
+                    A rejected row does not stop the import. The response is an NDJSON stream with one result per row, in file order.
+                    """,
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+                    @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            examples = @ExampleObject(value = """
+                                    {"email": "driver1@example.com"}
+                                    {"email": "driver2@example.com"}
+                                    """)),
+                    @Content(mediaType = ImportStreams.TEXT_CSV_VALUE,
+                            examples = @ExampleObject(value = """
+                                    email
+                                    driver1@example.com
+                                    driver2@example.com
+                                    """))
+            }))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One result per row",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = AccountImportResultDTO.class),
+                            examples = @ExampleObject(value = """
+                                    {"line":1,"status":"CREATED","accountId":12391298439,"email":"driver1@example.com","emaid":"CN8VO000ABCDEFA"}
+                                    {"line":2,"status":"REJECTED","email":"driver2@example.com","error":"Email already exists: driver2@example.com"}
+                                    """)
+                    )
+            ),
+            @ApiResponse(responseCode = "415", description = "Body is neither NDJSON nor CSV",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @PostMapping(value = "/api/accounts/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, ImportStreams.TEXT_CSV_VALUE})
+    public void importAccounts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Iterator<ImportRow<CreateAccountCommand>> rows = importStreams.read(request, CreateAccountCommand.class, "email");
+        importStreams.start(response);
+        accountImportService.importAccounts(rows, results -> importStreams.write(response, results));
+    }
+
     @Operation(summary = "Get accounts",
             description = "Retrieve a paginated list of accounts with optional time range filtering")
     @ApiResponses(value = {
@@ -121,14 +187,192 @@ public class AccountResource {
             @RequestParam(value = "lastUpdatedTo", required = false) OffsetDateTime to,
             @Parameter(description = "Page number (0-based)", example = "0")
             @RequestParam(name = "pageNumber", defaultValue = "0") int page,
-            @Parameter(description = "Size of each page", example = "10")
+            @Parameter(description = "Size of each page, at most 1000", example = "10")
             @RequestParam(name = "pageSize", defaultValue = "10") int size
     ) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("lastUpdated").descending());
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "lastUpdated", "accountId"));
         Page<AccountDTO> accountDTOS = accountApplicationService.findAccounts(from, to, pageable);
         return new PagedModel<>(accountDTOS);
     }
 
+    @Operation(summary = "Get accounts with an estimated total",
+            description = """
+                    Same as Get accounts, but the page carries hasNext and an approximate total instead of an exact one.
+                    The total is counted in the background and cached per filter, it is null until the first count is done.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the account list"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 400,
+                                      "title": "Validation Failed",
+                                      "details": [
+                                        "Page index must not be less than zero"
+                                      ],
+                                      "path": "/api/accounts",
+                                      "timestamp": "2025-06-24T15:23:45.740Z"
+                                    }
+                                    """
+                            )
+                    )
+            )
+    })
+    @GetMapping(value = "/api/accounts", params = "count=estimated")
+    public EstimatedPage<AccountDTO> findAccountsEstimated(
+            @Parameter(description = "Start date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-05-01T10:15:30Z")
+            @RequestParam(value = "lastUpdatedFrom", required = false) OffsetDateTime from,
+            @Parameter(description = "End date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-12-31T10:15:30Z")
+            @RequestParam(value = "lastUpdatedTo", required = false) OffsetDateTime to,
+            @Parameter(description = "Page number (0-based)", example = "0")
+            @RequestParam(name = "pageNumber", defaultValue = "0") int page,
+            @Parameter(description = "Page size, at most 1000", example = "10")
+            @RequestParam(name = "pageSize", defaultValue = "10") int size
+    ) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "lastUpdated", "accountId"));
+        return accountApplicationService.findAccountsEstimated(from, to, pageable);
+    }
+
+    @Operation(summary = "Scan accounts",
+            description = """
+                    Retrieve accounts page by page with a cursor, newest update first.</br>
+                    Pass an empty cursor for the first page, then the nextCursor of the previous page.
+                    No total count is returned, and every page costs the same at any depth.
+                    Rows updated during the scan move ahead of the cursor and are skipped.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 400,
+                                      "title": "Validation Failed",
+                                      "details": [
+                                        "Invalid cursor: abc"
+                                      ],
+                                      "path": "/api/accounts",
+                                      "timestamp": "2025-06-24T15:23:45.740Z"
+                                    }
+                                    """
+                            )
+                    )
+            )
+    })
+    @GetMapping(value = "/api/accounts", params = "cursor")
+    public CursorPage<AccountDTO> scanAccounts(
+            @Parameter(description = "Start date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-05-01T10:15:30Z")
+            @RequestParam(value = "lastUpdatedFrom", required = false) OffsetDateTime from,
+            @Parameter(description = "End date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-12-31T10:15:30Z")
+            @RequestParam(value = "lastUpdatedTo", required = false) OffsetDateTime to,
+            @Parameter(description = "nextCursor of the previous page, empty for the first page")
+            @RequestParam(name = "cursor") String cursor,
+            @Parameter(description = "Page size, at most 1000", example = "10")
+            @RequestParam(name = "pageSize", defaultValue = "10") int size
+    ) {
+        return accountApplicationService.findAccounts(from, to, cursor, size);
+    }
+
+    /**
+     * Without this, a request with both parameters matches the estimated and the cursor mapping alike and fails as
+     * ambiguous.
+     */
+    @Operation(hidden = true)
+    @GetMapping(value = "/api/accounts", params = {"count", "cursor"})
+    public ResponseEntity<Void> scanAccountsWithCount() {
+        throw new BadRequestException("count and cursor cannot be combined");
+    }
+
+    @Operation(summary = "Export accounts",
+            description = """
+                    Stream every account as NDJSON, one AccountDTO per line, newest update first.</br>
+                    The rows are read through a database cursor and written as they are read, use this instead of
+                    large pages, which are limited to 1000 accounts.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One account per line",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = AccountDTO.class),
+                            examples = @ExampleObject(value = """
+                                    {"accountId":123456789,"email":"user1@example.com","emaid":"CN8VO000ABCDEFA","status":"CREATED","version":0}
+                                    {"accountId":123456788,"email":"user2@example.com","emaid":"CN8VO000ABCDEG1","status":"ACTIVATED","version":1}
+                                    """)
+                    )
+            )
+    })
+    @GetMapping("/api/accounts/export")
+    public ResponseEntity<StreamingResponseBody> exportAccounts(
+            @Parameter(description = "Start date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-05-01T10:15:30Z")
+            @RequestParam(value = "lastUpdatedFrom", required = false) OffsetDateTime from,
+            @Parameter(description = "End date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-12-31T10:15:30Z")
+            @RequestParam(value = "lastUpdatedTo", required = false) OffsetDateTime to
+    ) {
+        return exportStreams.ndjson(sink -> accountApplicationService.exportAccounts(from, to, sink));
+    }
+
+    @Operation(summary = "Get account by email",
+            description = "Retrieve the account of an email, the match is case-insensitive")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Account found"),
+            @ApiResponse(responseCode = "400", description = "Invalid email",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 400,
+                                      "title": "Validation Failed",
+                                      "details": [
+                                        "Invalid email format: user@example"
+                                      ],
+                                      "path": "/api/accounts",
+                                      "timestamp": "2025-06-24T15:16:20.379Z"
+                                    }
+                                    """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "404", description = "Account not found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 404,
+                                      "title": "Resource not found",
+                                      "details": [
+                                        "Account not found: user@example.com"
+                                      ],
+                                      "path": "/api/accounts",
+                                      "timestamp": "2025-06-24T16:02:47.747Z"
+                                    }
+                                    """
+                            )
+                    )
+            )
+    })
+    @GetMapping(value = "/api/accounts", params = "email")
+    public ResponseEntity<AccountDTO> findAccountByEmail(
+            @Parameter(description = "Email of the account", example = "user@example.com")
+            @RequestParam("email") String email
+    ) {
+        return accountApplicationService.findAccountByEmail(email)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found: " + email));
+    }
+
     @Operation(summary = "Get account by ID",
             description = "Retrieve a specific account by its ID")
     @ApiResponses(value = {
@@ -155,15 +399,20 @@ public class AccountResource {
     })
     @GetMapping ("/api/accounts/{id}")
     public ResponseEntity<AccountDTO> findAccount(@PathVariable Long id) {
-        Optional<AccountDTO> optionalAccountDTO = accountApplicationService.findAccountById(id);
-        return optionalAccountDTO.map(ResponseEntity::ok)
+        AccountDTO account = accountApplicationService.findAccountById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Account not found: " + id));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (account.getVersion() != null) {
+            response.eTag(ETags.of(account.getVersion()));
+        }
+        return response.body(account);
     }
 
     @Operation(summary = "Update account status",
             description = """
                     Activate or deactivate an account.</br>
-                   The targetStatus to change the account to, Valid values are ACTIVATED, DEACTIVATED.
+                   The targetStatus to change the account to, Valid values are ACTIVATED, DEACTIVATED.</br>
+                   With If-Match, the account is only changed while it is still at that version
                    """)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Status updated successfully"),
@@ -220,14 +469,34 @@ public class AccountResource {
                                     """
                             )
                     )
+            ),
+            @ApiResponse(responseCode = "412", description = "The account changed since the If-Match version",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 412,
+                                      "title": "Precondition Failed",
+                                      "details": [
+                                        "Account 1 is at version 2, not 1"
+                                      ],
+                                      "path": "/api/accounts/1/status",
+                                      "timestamp": "2025-06-25T01:12:26.708Z"
+                                    }
+                                    """
+                            )
+                    )
             )
     })
     @PatchMapping ("/api/accounts/{id}/status")
     public ResponseEntity<Void> changeStatus(
             @PathVariable Long id,
-            @RequestBody ChangeAccountStatusCommand request
+            @RequestBody ChangeAccountStatusCommand request,
+            @Parameter(description = "ETag of the account as last read", example = "\"1\"")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        accountApplicationService.changeAccountStatus(id, request.getTargetStatus());
+        accountApplicationService.changeAccountStatus(id, request.getTargetStatus(), ETags.parseIfMatch(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
@@ -1,10 +1,20 @@
 package com.volvo.emsp.rest;
 
 import com.volvo.emsp.application.command.ChangeCardStatusCommand;
+import com.volvo.emsp.application.command.ChangeCardStatusItem;
 import com.volvo.emsp.application.command.CreateCardCommand;
+import com.volvo.emsp.application.command.ImportRow;
+import com.volvo.emsp.application.dto.CardImportResultDTO;
 import com.volvo.emsp.application.dto.CardDTO;
+import com.volvo.emsp.application.dto.CardStatusChangeResultDTO;
+import com.volvo.emsp.application.dto.ChangePage;
+import com.volvo.emsp.application.dto.CursorPage;
+import com.volvo.emsp.application.dto.EstimatedPage;
 import com.volvo.emsp.application.service.CardApplicationService;
+import com.volvo.emsp.application.service.CardChangeFeed;
+import com.volvo.emsp.application.service.CardImportService;
 import com.volvo.emsp.domain.model.enums.CardStatus;
+import com.volvo.emsp.execption.BadRequestException;
 import com.volvo.emsp.execption.InvalidBusinessOperationException;
 import com.volvo.emsp.execption.ResourceNotFoundException;
 import com.volvo.emsp.rest.model.ErrorResponse;
@@ -16,6 +26,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,12 +36,18 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.net.URI;
 import java.time.OffsetDateTime;
-import java.util.Optional;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @Tag(name = "Card Management", description = "APIs for managing card operations")
@@ -37,9 +55,21 @@ public class CardResource {
 
     private static final Logger log = LoggerFactory.getLogger(CardResource.class);
     private final CardApplicationService cardApplicationService;
+    private final CardImportService cardImportService;
+    private final ImportStreams importStreams;
+    private final ExportStreams exportStreams;
+    private final CardChangeFeed cardChangeFeed;
 
-    public CardResource(CardApplicationService cardApplicationService) {
+    public CardResource(CardApplicationService cardApplicationService,
+                        CardImportService cardImportService,
+                        ImportStreams importStreams,
+                        ExportStreams exportStreams,
+                        CardChangeFeed cardChangeFeed) {
         this.cardApplicationService = cardApplicationService;
+        this.cardImportService = cardImportService;
+        this.importStreams = importStreams;
+        this.exportStreams = exportStreams;
+        this.cardChangeFeed = cardChangeFeed;
     }
 
     @Operation(summary = "Create card",
@@ -89,11 +119,57 @@ public class CardResource {
         return ResponseEntity.created(uri).body(cardDTO);
     }
 
+    @Operation(summary = "Import cards",
+            description = """
+                    Create cards from a stream of rows, NDJSON objects or CSV lines with the columns rfidUid,visibleNumber.</br>
+                    Rows are checked like Create card and inserted in batches of app.import.batch-size, each batch in its own transaction.
+                    A rejected row does not stop the import. The response is an NDJSON stream with one result per row, in file order.
+                    """,
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+                    @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            examples = @ExampleObject(value = """
+                                    {"rfidUid": "04A2B3C4D5E6F7", "visibleNumber": "NL-TNM-000001"}
+                                    {"rfidUid": "04A2B3C4D5E6F8", "visibleNumber": "NL-TNM-000002"}
+                                    """)),
+                    @Content(mediaType = ImportStreams.TEXT_CSV_VALUE,
+                            examples = @ExampleObject(value = """
+                                    rfidUid,visibleNumber
+                                    04A2B3C4D5E6F7,NL-TNM-000001
+                                    04A2B3C4D5E6F8,NL-TNM-000002
+                                    """))
+            }))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One result per row",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = CardImportResultDTO.class),
+                            examples = @ExampleObject(value = """
+                                    {"line":1,"status":"CREATED","cardId":123456789,"rfidUid":"04A2B3C4D5E6F7"}
+                                    {"line":2,"status":"REJECTED","rfidUid":"04A2B3C4D5E6F8","error":"Card with RFID UID already exists: 04A2B3C4D5E6F8"}
+                                    """)
+                    )
+            ),
+            @ApiResponse(responseCode = "415", description = "Body is neither NDJSON nor CSV",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @PostMapping(value = "/api/cards/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, ImportStreams.TEXT_CSV_VALUE})
+    public void importCards(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Iterator<ImportRow<CreateCardCommand>> rows =
+                importStreams.read(request, CreateCardCommand.class, "rfidUid", "visibleNumber");
+        importStreams.start(response);
+        cardImportService.importCards(rows, results -> importStreams.write(response, results));
+    }
+
     @Operation(summary = "Update card status",
             description = """
                    Change card status (activate, deactivate, or assign to account).</br>
                    The targetStatus to change the card to, Valid values are ASSIGNED, ACTIVATED, DEACTIVATED.</br>
-                   The assignToAccount is required when targetStatus is ASSIGNED
+                   The assignToAccount is required when targetStatus is ASSIGNED.</br>
+                   With If-Match, the card is only changed while it is still at that version
                    """)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Status updated successfully"),
@@ -150,12 +226,32 @@ public class CardResource {
                                     """
                             )
                     )
+            ),
+            @ApiResponse(responseCode = "412", description = "The card changed since the If-Match version",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 412,
+                                      "title": "Precondition Failed",
+                                      "details": [
+                                        "Card 1 is at version 2, not 1"
+                                      ],
+                                      "path": "/api/cards/1/status",
+                                      "timestamp": "2025-06-24T16:46:16.255Z"
+                                    }
+                                    """
+                            )
+                    )
             )
     })
     @PatchMapping("/api/cards/{id}/status")
     public ResponseEntity<Void> changeStatus(
             @PathVariable Long id,
-            @RequestBody ChangeCardStatusCommand command
+            @RequestBody ChangeCardStatusCommand command,
+            @Parameter(description = "ETag of the card as last read", example = "\"1\"")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         CardStatus targetStatus;
         if (command == null) {
@@ -167,15 +263,50 @@ public class CardResource {
             log.error("Invalid card status: {}", command.getTargetStatus(), e);
             throw new IllegalArgumentException("Invalid card status: " + command.getTargetStatus());
         }
+        Long expectedVersion = ETags.parseIfMatch(ifMatch);
         switch (targetStatus) {
-            case ACTIVATED -> cardApplicationService.activeCard(id);
-            case DEACTIVATED -> cardApplicationService.deactivateCard(id);
-            case ASSIGNED -> cardApplicationService.assignCardToAccount(id, command.getAssignToAccount());
+            case ACTIVATED -> cardApplicationService.activeCard(id, expectedVersion);
+            case DEACTIVATED -> cardApplicationService.deactivateCard(id, expectedVersion);
+            case ASSIGNED -> cardApplicationService.assignCardToAccount(id, command.getAssignToAccount(), expectedVersion);
             default -> throw new InvalidBusinessOperationException("Can not change card status to: " + command.getTargetStatus());
         }
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Update card statuses in bulk",
+            description = """
+                   Change the status of up to 1000 cards in one request, each item as in the single card update.</br>
+                   Items are applied in order in one transaction, an item that can not be applied is rejected on its own.</br>
+                   Returns one result per item, in the order of the request
+                   """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Items applied, see the results"),
+            @ApiResponse(responseCode = "400", description = "More than 1000 items",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 400,
+                                      "title": "Validation Failed",
+                                      "details": [
+                                        "At most 1000 items per request"
+                                      ],
+                                      "path": "/api/cards/status",
+                                      "timestamp": "2025-06-24T15:16:20.379Z"
+                                    }
+                                    """
+                            )
+                    )
+            )
+    })
+    @PatchMapping("/api/cards/status")
+    public ResponseEntity<List<CardStatusChangeResultDTO>> changeStatuses(
+            @RequestBody List<ChangeCardStatusItem> items
+    ) {
+        return ResponseEntity.ok(cardApplicationService.changeCardStatuses(items));
+    }
+
     @Operation(summary = "Get cards",
             description = "Retrieve a paginated list of cards with optional time range filtering")
     @ApiResponses(value = {
@@ -210,14 +341,181 @@ public class CardResource {
             @RequestParam(value = "lastUpdatedTo", required = false) OffsetDateTime to,
             @Parameter(description = "Page number (0-based)", example = "0")
             @RequestParam(name = "pageNumber", defaultValue = "0") int page,
-            @Parameter(description = "Page size", example = "10")
+            @Parameter(description = "Page size, at most 1000", example = "10")
             @RequestParam(name = "pageSize", defaultValue = "10") int size
     ) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("lastUpdated").descending());
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "lastUpdated", "cardId"));
         Page<CardDTO> cardDTOS = cardApplicationService.findCards(from, to, pageable);
         return ResponseEntity.ok(new PagedModel<>(cardDTOS));
     }
 
+    @Operation(summary = "Get cards with an estimated total",
+            description = """
+                    Same as Get cards, but the page carries hasNext and an approximate total instead of an exact one.
+                    The total is counted in the background and cached per filter, it is null until the first count is done.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the card list"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 400,
+                                      "title": "Validation Failed",
+                                      "details": [
+                                        "Page index must not be less than zero"
+                                      ],
+                                      "path": "/api/cards",
+                                      "timestamp": "2025-06-24T15:23:45.740Z"
+                                    }
+                                    """
+                            )
+                    )
+            )
+    })
+    @GetMapping(value = "/api/cards", params = "count=estimated")
+    public ResponseEntity<EstimatedPage<CardDTO>> findCardsEstimated(
+            @Parameter(description = "Start date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-05-01T10:15:30Z")
+            @RequestParam(value = "lastUpdatedFrom", required = false) OffsetDateTime from,
+            @Parameter(description = "End date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-12-31T10:15:30Z")
+            @RequestParam(value = "lastUpdatedTo", required = false) OffsetDateTime to,
+            @Parameter(description = "Page number (0-based)", example = "0")
+            @RequestParam(name = "pageNumber", defaultValue = "0") int page,
+            @Parameter(description = "Page size, at most 1000", example = "10")
+            @RequestParam(name = "pageSize", defaultValue = "10") int size
+    ) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "lastUpdated", "cardId"));
+        return ResponseEntity.ok(cardApplicationService.findCardsEstimated(from, to, pageable));
+    }
+
+    @Operation(summary = "Scan cards",
+            description = """
+                    Retrieve cards page by page with a cursor, newest update first.</br>
+                    Pass an empty cursor for the first page, then the nextCursor of the previous page.
+                    No total count is returned, and every page costs the same at any depth.
+                    Rows updated during the scan move ahead of the cursor and are skipped.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 400,
+                                      "title": "Validation Failed",
+                                      "details": [
+                                        "Invalid cursor: abc"
+                                      ],
+                                      "path": "/api/cards",
+                                      "timestamp": "2025-06-24T15:23:45.740Z"
+                                    }
+                                    """
+                            )
+                    )
+            )
+    })
+    @GetMapping(value = "/api/cards", params = "cursor")
+    public ResponseEntity<CursorPage<CardDTO>> scanCards(
+            @Parameter(description = "Start date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-05-01T10:15:30Z")
+            @RequestParam(value = "lastUpdatedFrom", required = false) OffsetDateTime from,
+            @Parameter(description = "End date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-12-31T10:15:30Z")
+            @RequestParam(value = "lastUpdatedTo", required = false) OffsetDateTime to,
+            @Parameter(description = "nextCursor of the previous page, empty for the first page")
+            @RequestParam(name = "cursor") String cursor,
+            @Parameter(description = "Page size, at most 1000", example = "10")
+            @RequestParam(name = "pageSize", defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(cardApplicationService.findCards(from, to, cursor, size));
+    }
+
+    /**
+     * Without this, a request with both parameters matches the estimated and the cursor mapping alike and fails as
+     * ambiguous.
+     */
+    @Operation(hidden = true)
+    @GetMapping(value = "/api/cards", params = {"count", "cursor"})
+    public ResponseEntity<Void> scanCardsWithCount() {
+        throw new BadRequestException("count and cursor cannot be combined");
+    }
+
+    @Operation(summary = "Export cards",
+            description = """
+                    Stream every card as NDJSON, one CardDTO per line, newest update first.</br>
+                    The rows are read through a database cursor and written as they are read, use this instead of
+                    large pages, which are limited to 1000 cards.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One card per line",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = CardDTO.class),
+                            examples = @ExampleObject(value = """
+                                    {"cardId":123456789,"rfidUid":"04A2B3C4D5E6F7","visibleNumber":"NL-TNM-000001","status":"CREATED","version":0}
+                                    {"cardId":123456788,"rfidUid":"04A2B3C4D5E6F8","visibleNumber":"NL-TNM-000002","status":"ACTIVATED","version":2}
+                                    """)
+                    )
+            )
+    })
+    @GetMapping("/api/cards/export")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @Parameter(description = "Start date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-05-01T10:15:30Z")
+            @RequestParam(value = "lastUpdatedFrom", required = false) OffsetDateTime from,
+            @Parameter(description = "End date-time for last updated filter (Format: yyyy-MM-dd'T'HH:mm:ssZ)",
+                    example = "2025-12-31T10:15:30Z")
+            @RequestParam(value = "lastUpdatedTo", required = false) OffsetDateTime to
+    ) {
+        return exportStreams.ndjson(sink -> cardApplicationService.exportCards(from, to, sink));
+    }
+
+    @Operation(summary = "Get card changes",
+            description = """
+                    Cards changed after the cursor, oldest change first in strict (lastUpdated, cardId) order.</br>
+                    Pass an empty cursor to start from the oldest card, then the cursor of the previous page. When
+                    hasMore is true, fetch again right away; otherwise wait or long-poll with waitMs.</br>
+                    Changes show up a couple of seconds after they are made, once no earlier change can still commit.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The changes, empty when the wait is over without any"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, page size or wait",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 400,
+                                      "title": "Validation Failed",
+                                      "details": [
+                                        "Invalid cursor: abc"
+                                      ],
+                                      "path": "/api/cards/changes",
+                                      "timestamp": "2025-06-24T15:23:45.740Z"
+                                    }
+                                    """
+                            )
+                    )
+            )
+    })
+    @GetMapping("/api/cards/changes")
+    public CompletableFuture<ChangePage<CardDTO>> findCardChanges(
+            @Parameter(description = "cursor of the previous page, empty to start from the oldest card")
+            @RequestParam(name = "cursor", defaultValue = "") String cursor,
+            @Parameter(description = "Page size, at most 1000", example = "100")
+            @RequestParam(name = "pageSize", defaultValue = "100") int size,
+            @Parameter(description = "Milliseconds to wait for a change when there is none, at most 30000", example = "30000")
+            @RequestParam(name = "waitMs", defaultValue = "0") long waitMillis
+    ) {
+        return cardChangeFeed.changes(cursor, size, waitMillis);
+    }
+
     @Operation(summary = "Get card by ID",
             description = "Retrieve a card by its unique identifier")
     @ApiResponses(value = {
@@ -243,9 +541,13 @@ public class CardResource {
     })
     @GetMapping("/api/cards/{id}")
     public ResponseEntity<CardDTO> findCard(@PathVariable Long id) {
-        Optional<CardDTO> optionalCard = cardApplicationService.findCardById(id);
-        return optionalCard.map(ResponseEntity::ok)
+        CardDTO card = cardApplicationService.findCardById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Card not found: " + id));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (card.getVersion() != null) {
+            response.eTag(ETags.of(card.getVersion()));
+        }
+        return response.body(card);
     }
 
     // for doc schema
@@ -0,0 +1,37 @@
+package com.volvo.emsp.rest;
+
+import com.volvo.emsp.execption.BadRequestException;
+import jakarta.annotation.Nullable;
+
+/**
+ * Aggregate versions as strong ETags, version 3 is {@code "3"}.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @return the version an {@code If-Match} header asks for, null when there is no header or it is {@code *}
+     * @throws BadRequestException when it is not a single ETag of this API
+     */
+    @Nullable
+    static Long parseIfMatch(@Nullable String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            try {
+                return Long.parseLong(etag.substring(1, etag.length() - 1));
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+        }
+        throw new BadRequestException("Invalid If-Match: " + ifMatch);
+    }
+}
@@ -0,0 +1,198 @@
+package com.volvo.emsp.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.volvo.emsp.application.command.ImportRow;
+import com.volvo.emsp.infrastructure.datasource.ReadYourWrites;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads bulk import bodies line by line and writes the per-row results back as NDJSON, so neither side of an import
+ * is held in memory.
+ * <p>
+ * The body is either NDJSON, one JSON object per line, or CSV with the given columns, one row per line. A CSV header
+ * line naming the columns is optional; quoted fields may contain commas and {@code ""} but no line breaks. Blank
+ * lines are skipped but still counted in the line numbers.
+ */
+@Component
+public class ImportStreams {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final ObjectMapper objectMapper;
+
+    public ImportStreams(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <T> Iterator<ImportRow<T>> read(HttpServletRequest request, Class<T> rowType, String... csvColumns)
+            throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), charset));
+        boolean csv = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE));
+        return new Iterator<>() {
+
+            private long line;
+            private String next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    String read = readLine(reader);
+                    if (read == null) {
+                        return false;
+                    }
+                    line++;
+                    if (read.isBlank() || csv && line == 1 && isHeader(read, csvColumns)) {
+                        continue;
+                    }
+                    next = read;
+                }
+                return true;
+            }
+
+            @Override
+            public ImportRow<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String text = next;
+                next = null;
+                return csv ? parseCsv(line, text, rowType, csvColumns) : parseJson(line, text, rowType);
+            }
+        };
+    }
+
+    /**
+     * Commit the response headers, results follow with {@link #write}.
+     * <p>
+     * The chunks commit after the headers, too late for their writes to set the read-your-writes cookie, so the window
+     * is started here. It counts from the start of the import.
+     */
+    public void start(HttpServletResponse response) throws IOException {
+        ReadYourWrites.markWrite();
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.flushBuffer();
+    }
+
+    /**
+     * Write one NDJSON line per result and flush them to the client.
+     */
+    public void write(HttpServletResponse response, List<?> results) {
+        try {
+            OutputStream out = response.getOutputStream();
+            for (Object result : results) {
+                out.write(objectMapper.writeValueAsBytes(result));
+                out.write(NEW_LINE);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> ImportRow<T> parseJson(long line, String text, Class<T> rowType) {
+        try {
+            T command = objectMapper.readValue(text, rowType);
+            return command == null ? ImportRow.invalid(line, "Row must be a JSON object") : ImportRow.of(line, command);
+        } catch (JsonProcessingException e) {
+            return ImportRow.invalid(line, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private <T> ImportRow<T> parseCsv(long line, String text, Class<T> rowType, String[] columns) {
+        List<String> fields = splitCsv(text);
+        if (fields == null) {
+            return ImportRow.invalid(line, "Unterminated quoted field");
+        }
+        if (fields.size() != columns.length) {
+            return ImportRow.invalid(line, "Expected " + columns.length + " columns: " + String.join(",", columns));
+        }
+        ObjectNode node = objectMapper.createObjectNode();
+        for (int i = 0; i < columns.length; i++) {
+            node.put(columns[i], fields.get(i));
+        }
+        try {
+            return ImportRow.of(line, objectMapper.treeToValue(node, rowType));
+        } catch (JsonProcessingException e) {
+            return ImportRow.invalid(line, "Invalid row: " + e.getOriginalMessage());
+        }
+    }
+
+    private static boolean isHeader(String text, String[] columns) {
+        List<String> fields = splitCsv(text);
+        if (fields == null || fields.size() != columns.length) {
+            return false;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (!fields.get(i).trim().equalsIgnoreCase(columns[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fields of one CSV line, null when a quoted field is not closed.
+     */
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String readLine(BufferedReader reader) {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
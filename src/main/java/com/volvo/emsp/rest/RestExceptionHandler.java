@@ -2,12 +2,16 @@ package com.volvo.emsp.rest;
 
 import com.volvo.emsp.execption.BadRequestException;
 import com.volvo.emsp.execption.InvalidBusinessOperationException;
+import com.volvo.emsp.execption.PreconditionFailedException;
 import com.volvo.emsp.execption.ResourceAlreadyExistsException;
 import com.volvo.emsp.execption.ResourceNotFoundException;
+import com.volvo.emsp.execption.ServiceUnavailableException;
 import com.volvo.emsp.rest.model.ErrorResponse;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -121,6 +125,7 @@ public class RestExceptionHandler {
 
     @ExceptionHandler({
             InvalidBusinessOperationException.class,
+            OptimisticLockingFailureException.class,
             UnsupportedOperationException.class,
             IllegalStateException.class}
     )
@@ -128,7 +133,7 @@ public class RestExceptionHandler {
             Exception ex,
             WebRequest request
     ) {
-        if (ex instanceof InvalidBusinessOperationException) {
+        if (ex instanceof InvalidBusinessOperationException || ex instanceof OptimisticLockingFailureException) {
             log.warn(ex.getMessage());
         } else {
             log.error(ex.getMessage(), ex);
@@ -185,6 +190,48 @@ public class RestExceptionHandler {
         );
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailed(
+            PreconditionFailedException ex,
+            WebRequest request
+    ) {
+        log.warn(ex.getMessage());
+        String path = getRequestURI(request);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED.value()).body(
+                new ErrorResponse(
+                        HttpStatus.PRECONDITION_FAILED.value(),
+                        "Precondition Failed",
+                        List.of(ex.getMessage()),
+                        path,
+                        new Date()
+                )
+        );
+    }
+
+    @ExceptionHandler({
+            ServiceUnavailableException.class,
+            TaskRejectedException.class,
+    })
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(
+            Exception ex,
+            WebRequest request
+    ) {
+        log.warn(ex.getMessage());
+        String path = getRequestURI(request);
+        // the async request pool is full, see WebAsyncConfig
+        String message = ex instanceof TaskRejectedException
+                ? "Too many streaming requests, try again later" : ex.getMessage();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE.value()).body(
+                new ErrorResponse(
+                        HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "Service Unavailable",
+                        List.of(message),
+                        path,
+                        new Date()
+                )
+        );
+    }
+
     @ExceptionHandler(Throwable.class)
     public ResponseEntity<ErrorResponse> all(
             Throwable ex,
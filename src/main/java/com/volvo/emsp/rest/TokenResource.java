@@ -0,0 +1,64 @@
+package com.volvo.emsp.rest;
+
+import com.volvo.emsp.application.dto.TokenAuthorizationDTO;
+import com.volvo.emsp.application.service.TokenAuthorizationIndex;
+import com.volvo.emsp.rest.model.ErrorResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "Token Authorization", description = "APIs for charge points to check RFID tokens")
+public class TokenResource {
+
+    private final TokenAuthorizationIndex tokenAuthorizationIndex;
+
+    public TokenResource(TokenAuthorizationIndex tokenAuthorizationIndex) {
+        this.tokenAuthorizationIndex = tokenAuthorizationIndex;
+    }
+
+    @Operation(summary = "Authorize token",
+            description = """
+                    Check whether a charge point may start a session for an RFID token.</br>
+                    Answered from memory: changes made on another node show up within app.token-index.poll-ms.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Token found, see allowed"),
+            @ApiResponse(responseCode = "404", description = "Token not found",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                      "status": 404,
+                                      "title": "Resource not found",
+                                      "details": [
+                                        "Token not found: 04A2B3C4D5E6F7"
+                                      ],
+                                      "path": "/api/tokens/04A2B3C4D5E6F7/authorization",
+                                      "timestamp": "2025-06-24T15:16:20.379Z"
+                                    }
+                                    """
+                            )
+                    )
+            ),
+            @ApiResponse(responseCode = "503", description = "The token index is still loading",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @GetMapping("/api/tokens/{rfidUid}/authorization")
+    public ResponseEntity<TokenAuthorizationDTO> authorize(@PathVariable String rfidUid) {
+        return ResponseEntity.ok(tokenAuthorizationIndex.authorize(rfidUid));
+    }
+}
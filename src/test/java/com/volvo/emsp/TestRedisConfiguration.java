@@ -30,7 +30,8 @@ public class TestRedisConfiguration {
     }
 
     @Bean
-    public LettuceConnectionFactory redisConnectionFactory() {
+    public LettuceConnectionFactory redisConnectionFactory(RedisServer redisServer) {
+        // the server picks the port
         RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration();
         redisConfig.setHostName("localhost");
         redisConfig.setPort(redisPort); //
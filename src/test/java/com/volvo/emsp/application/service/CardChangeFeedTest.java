@@ -0,0 +1,66 @@
+package com.volvo.emsp.application.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(OutputCaptureExtension.class)
+class CardChangeFeedTest {
+
+    private static final String WARNING = "the feed may have skipped it";
+
+    private final CardChangeFeed feed = new CardChangeFeed(null, 2000, 30000);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testLateCommitIsReportedOnCommit(CapturedOutput output) {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        feed.written(OffsetDateTime.now().minusSeconds(5));
+
+        // then
+        assertFalse(output.getOut().contains(WARNING), "nothing is committed yet");
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        assertTrue(output.getOut().contains(WARNING));
+    }
+
+    @Test
+    void testCommitWithinSettleIsNotReported(CapturedOutput output) {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        feed.written(OffsetDateTime.now());
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+
+        // then
+        assertFalse(output.getOut().contains(WARNING));
+    }
+
+    @Test
+    void testRolledBackWriteIsNotReported(CapturedOutput output) {
+        // when
+        TransactionSynchronizationManager.initSynchronization();
+        feed.written(OffsetDateTime.now().minusSeconds(5));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // then
+        assertFalse(output.getOut().contains(WARNING));
+    }
+}
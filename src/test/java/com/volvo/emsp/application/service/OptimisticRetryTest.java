@@ -0,0 +1,88 @@
+package com.volvo.emsp.application.service;
+
+import com.volvo.emsp.execption.InvalidBusinessOperationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicInteger rollbacks = new AtomicInteger();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final OptimisticRetry retry = new OptimisticRetry(new CountingTransactionManager(), 3, 0);
+
+    @Test
+    void testRetriesUntilCommitSucceeds() {
+        // when
+        String result = retry.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("stale");
+            }
+            return "done";
+        });
+
+        // then
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, rollbacks.get());
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        // when
+        assertThrows(OptimisticLockingFailureException.class, () -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale");
+        }));
+
+        // then
+        assertEquals(3, attempts.get());
+        assertEquals(0, commits.get());
+    }
+
+    @Test
+    void testOtherFailuresAreNotRetried() {
+        // when
+        assertThrows(InvalidBusinessOperationException.class, () -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new InvalidBusinessOperationException("invalid");
+        }));
+
+        // then
+        assertEquals(1, attempts.get());
+        assertEquals(1, rollbacks.get());
+    }
+
+    @Test
+    void testMaxAttemptsMustBePositive() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new OptimisticRetry(new CountingTransactionManager(), 0, 0));
+    }
+
+    private class CountingTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            commits.incrementAndGet();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            rollbacks.incrementAndGet();
+        }
+    }
+}
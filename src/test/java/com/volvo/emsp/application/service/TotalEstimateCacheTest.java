@@ -0,0 +1,143 @@
+package com.volvo.emsp.application.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TotalEstimateCacheTest {
+
+    private static final long TTL_MS = 1000;
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger counts = new AtomicInteger();
+    private final TotalEstimateCache cache = new TotalEstimateCache(scheduled::add, TTL_MS, 2, nanos::get);
+
+    @Test
+    void testFirstCallHasNoTotalAndSchedulesCount() {
+        // when
+        Long total = estimate(null, null);
+
+        // then
+        assertNull(total);
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    void testTotalIsServedFromCacheUntilStale() {
+        // given
+        estimate(null, null);
+        runScheduled();
+
+        // when
+        Long cached = estimate(null, null);
+
+        // then
+        assertEquals(42L, cached);
+        assertTrue(scheduled.isEmpty(), "fresh total must not be recounted");
+        assertEquals(1, counts.get());
+
+        // when stale
+        nanos.addAndGet(TTL_MS * 1_000_000);
+        Long stale = estimate(null, null);
+
+        // then the stale total is served while the recount runs
+        assertEquals(42L, stale);
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    void testOneCountInFlightPerFilter() {
+        // when
+        estimate(null, null);
+        estimate(null, null);
+        estimate(null, null);
+
+        // then
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    void testRangesWithinTheSameMinutesShareACount() {
+        // given
+        OffsetDateTime from = OffsetDateTime.of(2025, 6, 24, 10, 15, 1, 0, ZoneOffset.UTC);
+        OffsetDateTime to = OffsetDateTime.of(2025, 6, 24, 12, 30, 1, 0, ZoneOffset.UTC);
+        estimate(from, to);
+        runScheduled();
+
+        // when
+        Long total = estimate(from.plusSeconds(30).withOffsetSameInstant(ZoneOffset.ofHours(8)), to.plusSeconds(30));
+
+        // then
+        assertEquals(42L, total);
+        assertTrue(scheduled.isEmpty());
+    }
+
+    @Test
+    void testCountUsesWidenedRange() {
+        // given
+        OffsetDateTime from = OffsetDateTime.of(2025, 6, 24, 10, 15, 1, 0, ZoneOffset.UTC);
+        OffsetDateTime to = OffsetDateTime.of(2025, 6, 24, 12, 30, 1, 0, ZoneOffset.UTC);
+        List<OffsetDateTime> counted = new ArrayList<>();
+
+        // when
+        cache.estimate("cards", from, to, (f, t) -> {
+            counted.add(f);
+            counted.add(t);
+            return 1;
+        });
+        runScheduled();
+
+        // then
+        assertEquals(OffsetDateTime.of(2025, 6, 24, 10, 15, 0, 0, ZoneOffset.UTC), counted.get(0));
+        assertEquals(OffsetDateTime.of(2025, 6, 24, 12, 31, 0, 0, ZoneOffset.UTC), counted.get(1));
+    }
+
+    @Test
+    void testFailedCountIsRetried() {
+        // given
+        cache.estimate("cards", null, null, (f, t) -> {
+            throw new IllegalStateException("database down");
+        });
+        runScheduled();
+
+        // when
+        Long total = estimate(null, null);
+
+        // then
+        assertNull(total);
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    void testEntriesAreBounded() {
+        // given
+        for (int i = 0; i < 5; i++) {
+            estimate(OffsetDateTime.of(2025, 6, 24, 10, i, 0, 0, ZoneOffset.UTC), null);
+            runScheduled();
+        }
+
+        // then
+        assertTrue(cache.size() <= 2, "size " + cache.size());
+    }
+
+    private Long estimate(OffsetDateTime from, OffsetDateTime to) {
+        return cache.estimate("cards", from, to, (f, t) -> {
+            counts.incrementAndGet();
+            return 42;
+        });
+    }
+
+    private void runScheduled() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        tasks.forEach(Runnable::run);
+    }
+}
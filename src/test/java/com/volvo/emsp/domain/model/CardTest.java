@@ -10,6 +10,8 @@ import com.volvo.emsp.testmodel.Emails;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CardTest {
@@ -140,6 +142,14 @@ class CardTest {
         assertEquals(CardStatus.DEACTIVATED, card.getStatus());
     }
 
+    @Test
+    void testStatusPredecessors() {
+        assertEquals(Set.of(), CardStatus.CREATED.predecessors());
+        assertEquals(Set.of(CardStatus.CREATED), CardStatus.ASSIGNED.predecessors());
+        assertEquals(Set.of(CardStatus.ASSIGNED), CardStatus.ACTIVATED.predecessors());
+        assertEquals(Set.of(CardStatus.ACTIVATED), CardStatus.DEACTIVATED.predecessors());
+    }
+
     private Card newCard(String rfidUid, String visibleNumber) {
         return new Card(idGenerator.nextId(), rfidUid, visibleNumber);
     }
@@ -0,0 +1,66 @@
+package com.volvo.emsp.domain.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of hydrating the value objects of one page of 1000 cards spread over 50 accounts:
+ * validating constructors (before) vs the converters' trusted path (after).
+ * Run {@link #main} after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterHydrationBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final int ACCOUNTS = 50;
+
+    private final EmaidConverter emaidConverter = new EmaidConverter();
+    private final EmailConverter emailConverter = new EmailConverter();
+
+    private String[] emaids;
+    private String[] emails;
+
+    @Setup
+    public void setUp() {
+        emaids = new String[PAGE_SIZE];
+        emails = new String[PAGE_SIZE];
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            int account = i % ACCOUNTS;
+            // fresh strings, as the JDBC driver returns them
+            emaids[i] = new String(String.format("CN8VO%09d", account));
+            emails[i] = new String("user" + account + "@example.com");
+        }
+    }
+
+    @Benchmark
+    public void validating(Blackhole blackhole) {
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            blackhole.consume(new Emaid(emaids[i]));
+            blackhole.consume(new Email(emails[i]));
+        }
+    }
+
+    @Benchmark
+    public void trusted(Blackhole blackhole) {
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            blackhole.consume(emaidConverter.convertToEntityAttribute(emaids[i]));
+            blackhole.consume(emailConverter.convertToEntityAttribute(emails[i]));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConverterHydrationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
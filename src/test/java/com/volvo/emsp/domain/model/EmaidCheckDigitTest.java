@@ -0,0 +1,37 @@
+package com.volvo.emsp.domain.model;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmaidCheckDigitTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            // examples from the eMI3 contract id check digit specification
+            "NN123ABCDEFGHI, T",
+            "FRXYZ123456789, 2",
+            "ITA1B2C3E4F5G6, 4",
+            "ESZU8WOX834H1D, R",
+            "PT73902837ABCZ, Z",
+            "DE83DUIEN83QGZ, D",
+            "DE83DUIEN83ZGQ, M",
+            "DE8AA001234567, 0",
+    })
+    void testCompute(String emaid, char checkDigit) {
+        assertEquals(checkDigit, EmaidCheckDigit.compute(emaid));
+        assertEquals(checkDigit, EmaidCheckDigit.compute(emaid.toLowerCase()));
+        assertTrue(EmaidCheckDigit.matches(emaid + checkDigit));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "NN123ABCDEFGHIX",
+            // transposed characters
+            "DE83DUIEN83ZGQD",
+    })
+    void testMismatch(String emaid) {
+        assertFalse(EmaidCheckDigit.matches(emaid));
+    }
+}
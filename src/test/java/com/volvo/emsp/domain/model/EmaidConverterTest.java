@@ -42,4 +42,20 @@ class EmaidConverterTest {
         // then
         assertNull(result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testConvertToEntityAttribute_SharesInstance() {
+        // when
+        Emaid first = converter.convertToEntityAttribute(EAMID);
+        Emaid second = new EmaidConverter().convertToEntityAttribute(new String(EAMID));
+
+        // then
+        assertSame(first, second);
+    }
+
+    @Test
+    void testConvertToEntityAttribute_SkipsValidation() {
+        // stored values were validated on write
+        assertEquals("NN123ABCDEFGHIX", converter.convertToEntityAttribute("NN123ABCDEFGHIX").toString());
+    }
+}
@@ -14,6 +14,7 @@ class EmaidTest {
 
         // when & then
         assertDoesNotThrow(() -> new Emaid(validEmaid));
+        assertDoesNotThrow(() -> new Emaid("NN123ABCDEFGHIT"));
     }
 
     @Test
@@ -26,7 +27,8 @@ class EmaidTest {
             "CN8VOLSXZGQEN0123",   // too long
             "12345LSXZGQEN0",      // invalid country code
             "CN&&￥LSXZGQEN0",      // invalid provider code
-            "CN8VO!SXZGQEN0"       // invalid characters
+            "CN8VO!SXZGQEN0",      // invalid characters
+            "NN123ABCDEFGHIX"      // wrong check character
         };
 
         // when & then
@@ -48,4 +50,46 @@ class EmaidTest {
         assertEquals(emaid1, emaid2, "Equal EMAIDs should be equal");
         assertEquals(emaidStr, emaid1.toString(), "EMAID toString should return original string");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testEmaidIsCaseInsensitive() {
+        // given
+        Emaid lower = new Emaid("nn123abcdefghit");
+        Emaid upper = new Emaid("NN123ABCDEFGHIT");
+
+        // then
+        assertEquals(upper, lower);
+        assertEquals(upper.hashCode(), lower.hashCode());
+        assertEquals("NN123ABCDEFGHIT", lower.toString());
+    }
+
+    @Test
+    void testEmaidWithAndWithoutCheckDigit() {
+        Emaid withoutCheckDigit = new Emaid("NN123ABCDEFGHI");
+        Emaid withCheckDigit = new Emaid("NN123ABCDEFGHIT");
+
+        assertNotEquals(withoutCheckDigit, withCheckDigit);
+        assertFalse(withoutCheckDigit.hasCheckDigit());
+        assertTrue(withCheckDigit.hasCheckDigit());
+        assertEquals("NN123ABCDEFGHI", withoutCheckDigit.toString());
+        assertEquals("NN123ABCDEFGHIT", withCheckDigit.toString());
+    }
+
+    @Test
+    void testEmaidRoundTripsLargestValues() {
+        String emaid = "ZZZZZZZZZZZZZZ";
+        String withCheckDigit = emaid + EmaidCheckDigit.compute(emaid);
+        assertEquals(emaid, new Emaid(emaid).toString());
+        assertEquals(withCheckDigit, new Emaid(withCheckDigit).toString());
+    }
+
+    @Test
+    void testToStringIsKept() {
+        // given
+        Emaid emaid = EmaidConverter.canonical(Emaid.packHigh(Emaids.CONTRACT_ID1), Emaid.packLow(Emaids.CONTRACT_ID1));
+
+        // when & then
+        assertSame(emaid.toString(), emaid.toString());
+        assertEquals(Emaids.CONTRACT_ID1, emaid.toString());
+    }
+}
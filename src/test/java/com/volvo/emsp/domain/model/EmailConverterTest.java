@@ -48,4 +48,10 @@ class EmailConverterTest {
         // then
         assertNull(result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testConvertToEntityAttribute_SkipsValidation() {
+        // stored values were validated on write
+        assertEquals("legacy@localhost", converter.convertToEntityAttribute("legacy@localhost").toString());
+    }
+}
@@ -1,5 +1,6 @@
 package com.volvo.emsp.domain.model;
 import com.volvo.emsp.testmodel.Emails;
+import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -63,4 +64,19 @@ class EmailTest {
         assertNotEquals(email1, differentEmail, "Different emails should not be equal");
         assertEquals(emailStr, email1.toString(), "Email toString should return original string");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDigestIsNormalized() {
+        // given
+        Email lower = new Email("user@example.com");
+        Email mixed = new Email("User@Example.COM");
+
+        // then
+        assertEquals(Email.DIGEST_LENGTH, lower.digest().length);
+        assertArrayEquals(lower.digest(), mixed.digest());
+        assertEquals(lower, mixed, "emails of one account should be equal");
+        assertEquals(lower.hashCode(), mixed.hashCode());
+        assertEquals("User@Example.COM", mixed.toString(), "the email itself is kept as entered");
+        assertFalse(Arrays.equals(lower.digest(), new Email("user2@example.com").digest()));
+    }
+}
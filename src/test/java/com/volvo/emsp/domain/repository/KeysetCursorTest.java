@@ -0,0 +1,61 @@
+package com.volvo.emsp.domain.repository;
+
+import com.volvo.emsp.execption.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void testEncodeDecode() {
+        // given
+        KeysetCursor cursor = new KeysetCursor(OffsetDateTime.of(2025, 6, 24, 15, 16, 20, 379_123_000, ZoneOffset.ofHours(8)), 12391298439L);
+
+        // when
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        // then
+        assertEquals(cursor, decoded);
+        assertEquals(cursor.getLastUpdated().toInstant(), decoded.getLastUpdated().toInstant());
+        assertEquals(12391298439L, decoded.getId());
+    }
+
+    @Test
+    void testEncodedIsUrlSafe() {
+        // given
+        KeysetCursor cursor = new KeysetCursor(OffsetDateTime.now(), Long.MAX_VALUE);
+
+        // when
+        String encoded = cursor.encode();
+
+        // then
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void testOrderIsByInstantThenId() {
+        // given
+        OffsetDateTime time = OffsetDateTime.of(2025, 6, 24, 15, 16, 20, 0, ZoneOffset.UTC);
+        KeysetCursor cursor = new KeysetCursor(time, 2);
+
+        // then
+        assertEquals(0, cursor.compareTo(new KeysetCursor(time.withOffsetSameInstant(ZoneOffset.ofHours(8)), 2)));
+        assertTrue(cursor.compareTo(new KeysetCursor(time, 3)) < 0);
+        assertTrue(cursor.compareTo(new KeysetCursor(time.plusNanos(1_000), 1)) < 0);
+        assertTrue(cursor.compareTo(new KeysetCursor(time.minusNanos(1_000), 9)) > 0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abc", "!!!", "MTIz", "YTpiOmM"})
+    void testDecodeInvalid(String value) {
+        // when & then
+        BadRequestException e = assertThrows(BadRequestException.class, () -> KeysetCursor.decode(value));
+        assertEquals("Invalid cursor: " + value, e.getMessage());
+    }
+}
@@ -1,12 +1,17 @@
 package com.volvo.emsp.domain.service.impl;
 
+import com.volvo.emsp.domain.model.Emaid;
+import com.volvo.emsp.domain.model.EmaidCheckDigit;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,4 +68,93 @@ class EmaidSnowflakeGeneratorTest {
                 "Should handle counter overflow by using timestamp and random chars");
     }
 
+    @Test
+    void testGenerateEmaid_WithCheckDigit() {
+        String emaid = emaidGenerator.generateEmaid();
+        assertEquals(15, emaid.length());
+        assertTrue(emaid.startsWith("CN8VO"));
+        assertTrue(EmaidCheckDigit.matches(emaid));
+    }
+
+    @Test
+    void testRefillBuffer() {
+        // given
+        EmaidSnowflakeGenerator generator = new EmaidSnowflakeGenerator(new StaticWorkerIdProvider(MACHINE_ID), 0, 64);
+
+        // when
+        generator.refill();
+
+        // then
+        assertEquals(64, generator.buffered());
+        Set<Emaid> emaids = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            emaids.add(generator.nextEmaid());
+        }
+        assertEquals(100, emaids.size(), "buffered and inline EMAIDs should not overlap");
+        assertEquals(0, generator.buffered());
+    }
+
+    @Test
+    void testNextEmaidsDrainsBufferFirst() {
+        // given
+        EmaidSnowflakeGenerator generator = new EmaidSnowflakeGenerator(new StaticWorkerIdProvider(MACHINE_ID), 0, 64);
+        generator.refill();
+
+        // when
+        List<Emaid> emaids = generator.nextEmaids(100);
+
+        // then
+        assertEquals(100, emaids.size());
+        assertEquals(100, new HashSet<>(emaids).size(), "buffered and inline EMAIDs should not overlap");
+        assertTrue(emaids.stream().allMatch(emaid -> EmaidCheckDigit.matches(emaid.toString())));
+        assertEquals(0, generator.buffered());
+        assertTrue(generator.nextEmaids(0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> generator.nextEmaids(-1));
+    }
+
+    @Test
+    void testBufferDisabled() {
+        EmaidSnowflakeGenerator generator = new EmaidSnowflakeGenerator(new StaticWorkerIdProvider(MACHINE_ID), 0, 0);
+        generator.refill();
+        assertEquals(0, generator.buffered());
+        assertNotNull(generator.nextEmaid());
+    }
+
+    @Test
+    void testClockMovedBackwardsWithinDriftBudget() {
+        // given
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ClockDriftPolicy policy = new ClockDriftPolicy(10);
+        EmaidSnowflakeGenerator.Snowflake46 generator = new EmaidSnowflakeGenerator.Snowflake46(MACHINE_ID, policy, now::get);
+        long previous = generator.nextId();
+        now.addAndGet(-5);
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "ids should keep increasing through a clock rollback");
+            previous = id;
+        }
+
+        // then
+        assertEquals(20, policy.getBorrowedIds());
+        assertEquals(0, policy.getRejectedIds());
+    }
+
+    @Test
+    void testClockMovedBackwardsBeyondDriftBudget() {
+        // given
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ClockDriftPolicy policy = ClockDriftPolicy.strict();
+        EmaidSnowflakeGenerator.Snowflake46 generator = new EmaidSnowflakeGenerator.Snowflake46(MACHINE_ID, policy, now::get);
+        generator.nextId();
+
+        // when
+        now.addAndGet(-5);
+
+        // then
+        assertThrows(RuntimeException.class, generator::nextId);
+        assertEquals(1, policy.getRejectedIds());
+    }
+
 }
\ No newline at end of file
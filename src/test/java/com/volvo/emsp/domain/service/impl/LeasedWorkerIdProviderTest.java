@@ -0,0 +1,151 @@
+package com.volvo.emsp.domain.service.impl;
+
+import com.volvo.emsp.domain.service.WorkerIdLeaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeasedWorkerIdProviderTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private InMemoryLeaseService leaseService;
+    private AtomicLong nanos;
+
+    @BeforeEach
+    void setUp() {
+        leaseService = new InMemoryLeaseService();
+        nanos = new AtomicLong();
+    }
+
+    @Test
+    void testAcquiresFirstFreeSlot() {
+        // given
+        leaseService.leases.put(0, "other");
+
+        // when
+        LeasedWorkerIdProvider provider = newProvider("me", 8);
+
+        // then
+        assertEquals(1, provider.getWorkerId());
+        assertTrue(provider.isValid());
+        assertEquals("me", leaseService.leases.get(1));
+    }
+
+    @Test
+    void testNoFreeSlot() {
+        leaseService.leases.put(0, "other");
+        leaseService.leases.put(1, "other");
+        assertThrows(IllegalStateException.class, () -> newProvider("me", 2));
+    }
+
+    @Test
+    void testLeaseExpiresWithoutHeartbeat() {
+        // given
+        LeasedWorkerIdProvider provider = newProvider("me", 8);
+
+        // when the heartbeat keeps up
+        nanos.addAndGet(Duration.ofSeconds(20).toNanos());
+        provider.heartbeat();
+        nanos.addAndGet(Duration.ofSeconds(20).toNanos());
+
+        // then
+        assertTrue(provider.isValid());
+
+        // when the store can not be reached
+        leaseService.unavailable = true;
+        provider.heartbeat();
+        nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        // then the id is no longer valid before the store lets another node take it
+        assertFalse(provider.isValid());
+    }
+
+    @Test
+    void testLeaseTakenOver() {
+        // given
+        LeasedWorkerIdProvider provider = newProvider("me", 8);
+
+        // when
+        leaseService.leases.put(provider.getWorkerId(), "other");
+        provider.heartbeat();
+
+        // then
+        assertFalse(provider.isValid());
+    }
+
+    @Test
+    void testGeneratorsStopWhenLeaseIsLost() {
+        // given
+        LeasedWorkerIdProvider provider = newProvider("me", 8);
+        ShortSnowflakeIdGenerator idGenerator =
+                new ShortSnowflakeIdGenerator(provider, ClockDriftPolicy.strict(), System::currentTimeMillis);
+        EmaidSnowflakeGenerator emaidGenerator = new EmaidSnowflakeGenerator(provider, 0);
+        idGenerator.nextId();
+        emaidGenerator.generateEmaid();
+
+        // when
+        leaseService.leases.put(provider.getWorkerId(), "other");
+        provider.heartbeat();
+
+        // then
+        assertThrows(IllegalStateException.class, idGenerator::nextId);
+        assertThrows(IllegalStateException.class, () -> idGenerator.nextIds(10));
+        assertThrows(IllegalStateException.class, emaidGenerator::generateEmaid);
+    }
+
+    @Test
+    void testReleaseOnShutdown() {
+        // given
+        LeasedWorkerIdProvider provider = newProvider("me", 8);
+
+        // when
+        provider.release();
+
+        // then
+        assertFalse(provider.isValid());
+        assertFalse(leaseService.leases.containsKey(provider.getWorkerId()));
+    }
+
+    private LeasedWorkerIdProvider newProvider(String owner, int slots) {
+        return new LeasedWorkerIdProvider(leaseService, slots, TTL, owner, nanos::get);
+    }
+
+    private static class InMemoryLeaseService implements WorkerIdLeaseService {
+
+        private final Map<Integer, String> leases = new HashMap<>();
+        private boolean unavailable;
+
+        @Override
+        public boolean tryAcquire(int workerId, String owner, Duration ttl) {
+            checkAvailable();
+            return Objects.equals(leases.putIfAbsent(workerId, owner), null)
+                    || owner.equals(leases.get(workerId));
+        }
+
+        @Override
+        public boolean renew(int workerId, String owner, Duration ttl) {
+            checkAvailable();
+            return owner.equals(leases.get(workerId));
+        }
+
+        @Override
+        public void release(int workerId, String owner) {
+            checkAvailable();
+            leases.remove(workerId, owner);
+        }
+
+        private void checkAvailable() {
+            if (unavailable) {
+                throw new IllegalStateException("store unavailable");
+            }
+        }
+    }
+}
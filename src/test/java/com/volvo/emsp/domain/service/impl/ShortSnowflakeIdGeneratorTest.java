@@ -7,6 +7,12 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,4 +69,158 @@ class ShortSnowflakeIdGeneratorTest {
                 "Should handle counter overflow by using timestamp and random chars");
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void testConcurrentUniqueness() throws InterruptedException {
+        // given
+        int threads = 16;
+        int idsPerThread = 2000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids.add(idGenerator.nextId());
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        // then
+        assertEquals(threads * idsPerThread, ids.size(), "ids generated concurrently should be unique");
+    }
+
+    @Test
+    void testIdsAreMonotonic() {
+        long previous = idGenerator.nextId();
+        for (int i = 0; i < 10000; i++) {
+            long id = idGenerator.nextId();
+            assertTrue(id > previous, "ids should be strictly increasing");
+            previous = id;
+        }
+    }
+
+    @Test
+    void testSequenceExhaustedWaitsForNextMillisecond() {
+        // given a clock that only ticks after 40 reads
+        AtomicLong reads = new AtomicLong();
+        long now = System.currentTimeMillis();
+        ShortSnowflakeIdGenerator generator = new ShortSnowflakeIdGenerator(MACHINE_ID, ClockDriftPolicy.strict(),
+                () -> reads.incrementAndGet() < 40 ? now : now + 1);
+
+        // when 33 ids are requested, the 33rd can not fit in the first millisecond
+        long first = generator.nextId();
+        long last = first;
+        for (int i = 0; i < 32; i++) {
+            last = generator.nextId();
+        }
+
+        // then
+        assertEquals((first >> 9) + 1, last >> 9, "33rd id should move to the next millisecond");
+        assertEquals(0, last & 31, "sequence should restart at 0");
+    }
+
+    @Test
+    void testClockMovedBackwards() {
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ShortSnowflakeIdGenerator generator = new ShortSnowflakeIdGenerator(MACHINE_ID, ClockDriftPolicy.strict(), now::get);
+        generator.nextId();
+        now.addAndGet(-5);
+        assertThrows(RuntimeException.class, generator::nextId);
+    }
+
+    @Test
+    void testClockMovedBackwardsWithinDriftBudget() {
+        // given
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ClockDriftPolicy policy = new ClockDriftPolicy(10);
+        ShortSnowflakeIdGenerator generator = new ShortSnowflakeIdGenerator(MACHINE_ID, policy, now::get);
+        long previous = generator.nextId();
+        now.addAndGet(-5);
+
+        // when 100 ids are requested while the clock is 5ms behind, the logical clock borrows 3 more milliseconds
+        for (int i = 0; i < 100; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "ids should keep increasing through a clock rollback");
+            previous = id;
+        }
+
+        // then
+        assertEquals(100, policy.getBorrowedIds());
+        assertEquals(8, policy.getDriftMillis());
+        assertEquals(0, policy.getRejectedIds());
+
+        // and once the clock catches up the drift is cleared
+        now.addAndGet(10);
+        assertTrue(generator.nextId() > previous);
+        assertEquals(0, policy.getDriftMillis());
+        assertEquals(8, policy.getMaxObservedDriftMillis());
+    }
+
+    @Test
+    void testClockMovedBackwardsBeyondDriftBudget() {
+        // given
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ClockDriftPolicy policy = new ClockDriftPolicy(2);
+        ShortSnowflakeIdGenerator generator = new ShortSnowflakeIdGenerator(MACHINE_ID, policy, now::get);
+        generator.nextId();
+
+        // when
+        now.addAndGet(-5);
+
+        // then
+        assertThrows(RuntimeException.class, generator::nextId);
+        assertEquals(1, policy.getRejectedIds());
+        assertEquals(0, policy.getBorrowedIds());
+    }
+
+    @Test
+    void testNextIdsLeasesUniqueIncreasingBlock() {
+        // given
+        int count = 10000;
+
+        // when
+        long first = idGenerator.nextId();
+        long[] ids = idGenerator.nextIds(count);
+        long after = idGenerator.nextId();
+
+        // then
+        assertEquals(count, ids.length);
+        long previous = first;
+        for (long id : ids) {
+            assertTrue(id > previous, "leased ids should be strictly increasing");
+            previous = id;
+        }
+        assertTrue(after > previous, "ids after a lease should not overlap it");
+    }
+
+    @Test
+    void testNextIdsReservesWholeMillisecondSlots() {
+        // given a frozen clock, only one slot of 32 ids is available
+        long now = System.currentTimeMillis();
+        ShortSnowflakeIdGenerator generator = new ShortSnowflakeIdGenerator(MACHINE_ID, ClockDriftPolicy.strict(), () -> now);
+
+        // when
+        long[] ids = generator.nextIds(32);
+
+        // then
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, ids[i] & 31, "sequence should cover the whole slot");
+        }
+    }
+
+    @Test
+    void testNextIdsWithInvalidCount() {
+        assertEquals(0, idGenerator.nextIds(0).length);
+        assertThrows(IllegalArgumentException.class, () -> idGenerator.nextIds(-1));
+    }
+
+}
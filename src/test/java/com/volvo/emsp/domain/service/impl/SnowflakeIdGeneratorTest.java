@@ -7,6 +7,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -64,4 +65,41 @@ class SnowflakeIdGeneratorTest {
                 "Should handle counter overflow by using timestamp and random chars");
     }
 
+    @Test
+    void testClockMovedBackwardsWithinDriftBudget() {
+        // given
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ClockDriftPolicy policy = new ClockDriftPolicy(10);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(MACHINE_ID, DATACENTER_ID, policy, now::get);
+        long previous = generator.nextId();
+        now.addAndGet(-5);
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "ids should keep increasing through a clock rollback");
+            previous = id;
+        }
+
+        // then
+        assertEquals(20, policy.getBorrowedIds());
+        assertEquals(0, policy.getRejectedIds());
+    }
+
+    @Test
+    void testClockMovedBackwardsBeyondDriftBudget() {
+        // given
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ClockDriftPolicy policy = ClockDriftPolicy.strict();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(MACHINE_ID, DATACENTER_ID, policy, now::get);
+        generator.nextId();
+
+        // when
+        now.addAndGet(-5);
+
+        // then
+        assertThrows(RuntimeException.class, generator::nextId);
+        assertEquals(1, policy.getRejectedIds());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.volvo.emsp.infrastructure.datasource;
+
+import com.volvo.emsp.BaseIntegrationTest;
+import com.volvo.emsp.application.command.CreateCardCommand;
+import com.volvo.emsp.application.dto.CardDTO;
+import com.volvo.emsp.application.service.CardApplicationService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The JPA read path marks its connections read-only, so the lazy proxy hands them to the replica pool.
+ * Both pools point at the same in-memory database here, only the routing is checked. The entity cache is off so
+ * that loads by id reach the database.
+ */
+@TestPropertySource(properties = {
+        "app.datasource.replica.url=jdbc:h2:mem:emsp;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.entity-cache.enabled=false",
+        "spring.datasource.hikari.maximum-pool-size=7",
+        "app.datasource.replica.hikari.maximum-pool-size=3"
+})
+class ReadReplicaRoutingIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private CardApplicationService cardApplicationService;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private ReplicaDataSource replicaDataSource;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaPoolDataSource")
+    private HikariDataSource replicaPoolDataSource;
+
+    @Test
+    void readOnlyServiceMethodsUseReplica() {
+        // given
+        CreateCardCommand command = new CreateCardCommand();
+        command.setRfidUid("replicaRfidUid01");
+        command.setVisibleNumber("replica01");
+        long before = replicaDataSource.getReplicaConnections();
+        CardDTO card = cardApplicationService.createCard(command);
+        assertEquals(before, replicaDataSource.getReplicaConnections(), "writes must not touch the replica");
+
+        // when
+        cardApplicationService.findCardById(card.getCardId());
+        cardApplicationService.findCards(null, null, PageRequest.of(0, 10));
+
+        // then
+        assertTrue(replicaDataSource.getReplicaConnections() >= before + 2);
+    }
+
+    @Test
+    void poolsTakeTheirHikariSettings() {
+        assertEquals(7, primaryDataSource.getMaximumPoolSize());
+        assertEquals("primary", primaryDataSource.getPoolName());
+        assertEquals(3, replicaPoolDataSource.getMaximumPoolSize());
+        assertTrue(replicaPoolDataSource.isReadOnly());
+    }
+}
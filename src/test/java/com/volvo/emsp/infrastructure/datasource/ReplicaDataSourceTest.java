@@ -0,0 +1,238 @@
+package com.volvo.emsp.infrastructure.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volvo.emsp.rest.ImportStreams;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing between two local H2 databases, each of which knows its own name.
+ */
+class ReplicaDataSourceTest {
+
+    private final AtomicBoolean replicaDown = new AtomicBoolean();
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private ReplicaDataSource replicaDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+    private ReadYourWrites readYourWrites;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("primary");
+        DataSource replica = new DelegatingDataSource(h2("replica")) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (replicaDown.get()) {
+                    throw new SQLException("Connection refused");
+                }
+                return super.getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                if (replicaDown.get()) {
+                    throw new SQLException("Connection refused");
+                }
+                return super.getConnection(username, password);
+            }
+        };
+        replicaDataSource = new ReplicaDataSource(replica, primary);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(ReadYourWrites.markingWrites(primary));
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        readYourWrites = new ReadYourWrites(Duration.ofSeconds(2), now::get);
+    }
+
+    @Test
+    void testReadOnlyTransactionGoesToReplica() {
+        // when
+        String node = readOnly.execute(status -> node());
+
+        // then
+        assertEquals("replica", node);
+        assertEquals(1, replicaDataSource.getReplicaConnections());
+    }
+
+    @Test
+    void testReadWriteTransactionGoesToPrimary() {
+        // when
+        String node = readWrite.execute(status -> node());
+
+        // then
+        assertEquals("primary", node);
+        assertEquals(0, replicaDataSource.getReplicaConnections());
+    }
+
+    @Test
+    void testUnavailableReplicaFallsBackToPrimary() {
+        // given
+        replicaDown.set(true);
+
+        // when
+        String node = readOnly.execute(status -> node());
+
+        // then
+        assertEquals("primary", node);
+        assertFalse(replicaDataSource.isHealthy());
+    }
+
+    @Test
+    void testConnectionWithCredentialsIsRoutedAlike() throws SQLException {
+        // when
+        String fromReplica = node(replicaDataSource.getConnection("", ""));
+        replicaDown.set(true);
+        String fromPrimary = node(replicaDataSource.getConnection("", ""));
+
+        // then
+        assertEquals("replica", fromReplica);
+        assertEquals("primary", fromPrimary);
+        assertFalse(replicaDataSource.isHealthy());
+    }
+
+    @Test
+    void testReplicaIsUsedAgainAfterHealthCheck() {
+        // given
+        replicaDown.set(true);
+        readOnly.execute(status -> node());
+        replicaDown.set(false);
+
+        // when
+        String beforeCheck = readOnly.execute(status -> node());
+        replicaDataSource.checkHealth();
+        String afterCheck = readOnly.execute(status -> node());
+
+        // then
+        assertEquals("primary", beforeCheck, "unhealthy replica stays out until checked");
+        assertEquals("replica", afterCheck);
+        assertTrue(replicaDataSource.isHealthy());
+    }
+
+    @Test
+    void testReadAfterWriteInSameRequestGoesToPrimary() throws Exception {
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<String> nodes = new ArrayList<>();
+
+        // when
+        readYourWrites.doFilter(new MockHttpServletRequest(), response, (req, res) -> {
+            nodes.add(readOnly.execute(status -> node()));
+            nodes.add(readWrite.execute(status -> node()));
+            nodes.add(readOnly.execute(status -> node()));
+        });
+
+        // then
+        assertEquals(List.of("replica", "primary", "primary"), nodes);
+        Cookie cookie = response.getCookie(ReadYourWrites.COOKIE);
+        assertNotNull(cookie);
+        assertEquals(Long.toString(now.get() + 2000), cookie.getValue());
+        assertEquals(2, cookie.getMaxAge());
+    }
+
+    @Test
+    void testStreamedImportSetsCookieBeforeCommit() throws Exception {
+        // given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ImportStreams importStreams = new ImportStreams(new ObjectMapper());
+
+        // when
+        readYourWrites.doFilter(new MockHttpServletRequest(), response, (req, res) -> {
+            importStreams.start((HttpServletResponse) res);
+            readWrite.execute(status -> node());
+        });
+
+        // then
+        assertTrue(response.isCommitted());
+        assertNotNull(response.getCookie(ReadYourWrites.COOKIE));
+    }
+
+    @Test
+    void testReadWithinWindowGoesToPrimary() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReadYourWrites.COOKIE, Long.toString(now.get() + 500)));
+        List<String> nodes = new ArrayList<>();
+
+        // when
+        readYourWrites.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> nodes.add(readOnly.execute(status -> node())));
+
+        // then
+        assertEquals(List.of("primary"), nodes);
+        assertEquals(1, replicaDataSource.getPrimaryConnections());
+    }
+
+    @Test
+    void testReadAfterWindowGoesToReplica() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReadYourWrites.COOKIE, Long.toString(now.get() - 1)));
+        List<String> nodes = new ArrayList<>();
+
+        // when
+        readYourWrites.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> nodes.add(readOnly.execute(status -> node())));
+
+        // then
+        assertEquals(List.of("replica"), nodes);
+    }
+
+    @Test
+    void testWriteOutsideRequestPinsNothing() {
+        // when
+        readWrite.execute(status -> node());
+        String node = readOnly.execute(status -> node());
+
+        // then
+        assertEquals("replica", node);
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static String node(Connection connection) throws SQLException {
+        try (connection; var resultSet = connection.createStatement().executeQuery("SELECT name FROM node")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:replica-test-" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(16))");
+        jdbcTemplate.update("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,79 @@
+package com.volvo.emsp.infrastructure.repository.jpa;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void testNoFalseNegatives() {
+        // given
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(key("rfid" + i));
+        }
+
+        // then
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(key("rfid" + i)), "missed rfid" + i);
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateAtCapacity() {
+        // given
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(key("rfid" + i));
+        }
+
+        // when
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(key("absent" + i))) {
+                falsePositives++;
+            }
+        }
+
+        // then
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test
+    void testEmptyFilterContainsNothing() {
+        // given
+        BloomFilter filter = BloomFilter.create(1_000, 0.01);
+
+        // then
+        assertFalse(filter.mightContain(key("rfid")));
+        assertEquals(0.0, filter.expectedFalsePositiveRate());
+    }
+
+    @Test
+    void testSizing() {
+        // when
+        BloomFilter filter = BloomFilter.create(1_000_000, 0.01);
+
+        // then: about 9.6 bits and 7 hashes per key
+        assertEquals(7, filter.hashCount());
+        assertEquals(9_585_088, filter.bitSize());
+        assertEquals(filter.bitSize() / 8, filter.sizeInBytes());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(1_000, 0));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(1_000, 1));
+    }
+
+    private static byte[] key(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -5,7 +5,9 @@ import com.volvo.emsp.domain.model.Account;
 import com.volvo.emsp.domain.model.Email;
 import com.volvo.emsp.domain.service.IdGenerator;
 import com.volvo.emsp.domain.service.impl.TestIdGenerator;
+import com.volvo.emsp.execption.ResourceAlreadyExistsException;
 import com.volvo.emsp.infrastructure.repository.jpa.AccountJapRepository;
+import com.volvo.emsp.infrastructure.repository.jpa.UniqueKeyFilters;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +23,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@Import({JpaConfig.class, AccountJapRepository.class}) // custom repository need this
+@Import({JpaConfig.class, UniqueKeyFilters.class, AccountJapRepository.class}) // custom repository need this
 @Transactional
 public class AccountJpaRepositoryTest extends BaseDataJpaIntegrationTest {
 
@@ -95,6 +97,22 @@ public class AccountJpaRepositoryTest extends BaseDataJpaIntegrationTest {
         assertEquals(email, savedAccount.getEmail().toString(), "email should same");
     }
 
+    @Test
+    void findByEmailIgnoresCase() {
+        Optional<Account> optionalAccount = accountJpaRepository.findByEmail(Email.of("LeoAbby@Outlook.com"));
+
+        // assert
+        assertTrue(optionalAccount.isPresent(), "account should exist");
+        assertEquals("leoabby@outlook.com", optionalAccount.get().getEmail().toString(), "stored email should be kept");
+    }
+
+    @Test
+    void createWithExistsEmail() {
+        ResourceAlreadyExistsException e = assertThrows(ResourceAlreadyExistsException.class,
+                () -> accountJpaRepository.create(newAccount("LEOABBY@outlook.com", "CN8VOLSXZGQEN8")));
+        assertEquals("Email already exists: LEOABBY@outlook.com", e.getMessage());
+    }
+
     @Test
     void findById() {
         Account account = newAccount("leoabby@outlook5.com", "CN8VOLSXZGQEN9");
@@ -116,6 +134,17 @@ public class AccountJpaRepositoryTest extends BaseDataJpaIntegrationTest {
         assertTrue(exists, "account should exist");
     }
 
+    @Test
+    void findExistingEmails() {
+        // when
+        List<Email> existing = accountJpaRepository.findExistingEmails(List.of(
+                Email.of("LeoAbby@outlook.com"), Email.of("new@outlook.com"), Email.of("leoabby3@outlook.com")));
+
+        // then
+        assertEquals(List.of(Email.of("LeoAbby@outlook.com"), Email.of("leoabby3@outlook.com")), existing);
+        assertTrue(accountJpaRepository.findExistingEmails(List.of()).isEmpty());
+    }
+
     @SuppressWarnings("SameParameterValue")
     private Account newAccount(String email, String contractId) {
         return new Account(idGenerator.nextId(), email, contractId);
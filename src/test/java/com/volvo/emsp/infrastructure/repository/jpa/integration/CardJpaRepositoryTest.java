@@ -1,10 +1,16 @@
 package com.volvo.emsp.infrastructure.repository.jpa.integration;
 
 import com.volvo.emsp.BaseDataJpaIntegrationTest;
+import com.volvo.emsp.domain.model.Account;
 import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.model.enums.CardStatus;
+import com.volvo.emsp.domain.repository.KeysetCursor;
 import com.volvo.emsp.domain.service.IdGenerator;
 import com.volvo.emsp.domain.service.impl.TestIdGenerator;
+import com.volvo.emsp.execption.ResourceAlreadyExistsException;
 import com.volvo.emsp.infrastructure.repository.jpa.CardJpaRepository;
+import com.volvo.emsp.infrastructure.repository.jpa.UniqueKeyFilters;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,19 +19,26 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
-@Import({JpaConfig.class, CardJpaRepository.class}) // custom repository need this
+@Import({JpaConfig.class, UniqueKeyFilters.class, CardJpaRepository.class}) // custom repository need this
 public class CardJpaRepositoryTest extends BaseDataJpaIntegrationTest {
 
     @Autowired
     private CardJpaRepository cardJapRepository;
+    @Autowired
+    private EntityManager entityManager;
     private final IdGenerator idGenerator = new TestIdGenerator();
 
     private static final List<String[]> cards = Arrays.asList(
@@ -44,6 +57,68 @@ public class CardJpaRepositoryTest extends BaseDataJpaIntegrationTest {
         }
     }
 
+    @Test
+    void testUpdateStatusOnlyFromPredecessor() {
+        // given
+        Long cardId = cardJapRepository.findByRfidUid("rfidUid0001").orElseThrow().getCardId();
+
+        // when
+        boolean activated = cardJapRepository.updateStatus(cardId, CardStatus.ACTIVATED, null, OffsetDateTime.now());
+        boolean missing = cardJapRepository.updateStatus(999L, CardStatus.ASSIGNED, null, OffsetDateTime.now());
+
+        // then
+        assertFalse(activated);
+        assertFalse(missing);
+        assertEquals(CardStatus.CREATED, cardJapRepository.findById(cardId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testAssignOnlyToActivatedAccount() {
+        // given
+        Account created = new Account(idGenerator.nextId(), "leoabby@outlook.com", "CN8VOLSXZGQEN0");
+        Account activated = new Account(idGenerator.nextId(), "leoabby2@outlook.com", "CN8VOLSXZGQEN1");
+        activated.activate();
+        entityManager.persist(created);
+        entityManager.persist(activated);
+        Long cardId = cardJapRepository.findByRfidUid("rfidUid0001").orElseThrow().getCardId();
+
+        // when
+        boolean toCreated = cardJapRepository.assign(cardId, created, null, OffsetDateTime.now());
+        boolean toActivated = cardJapRepository.assign(cardId, activated, null, OffsetDateTime.now());
+        boolean again = cardJapRepository.assign(cardId, activated, null, OffsetDateTime.now());
+
+        // then
+        assertFalse(toCreated);
+        assertTrue(toActivated);
+        assertFalse(again);
+        Card card = cardJapRepository.findById(cardId).orElseThrow();
+        assertEquals(CardStatus.ASSIGNED, card.getStatus());
+        assertEquals(activated.getAccountId(), card.getAccountId());
+        assertEquals(activated.getContractId(), card.getContractId());
+        assertTrue(cardJapRepository.updateStatus(cardId, CardStatus.ACTIVATED, null, OffsetDateTime.now()));
+    }
+
+    @Test
+    void testUpdateStatusOnlyAtExpectedVersion() {
+        // given
+        Account account = new Account(idGenerator.nextId(), "leoabby@outlook.com", "CN8VOLSXZGQEN0");
+        account.activate();
+        entityManager.persist(account);
+        Long cardId = cardJapRepository.findByRfidUid("rfidUid0001").orElseThrow().getCardId();
+        long version = cardJapRepository.findById(cardId).orElseThrow().getVersion();
+
+        // when
+        boolean stale = cardJapRepository.assign(cardId, account, version + 1, OffsetDateTime.now());
+        boolean current = cardJapRepository.assign(cardId, account, version, OffsetDateTime.now());
+
+        // then
+        assertFalse(stale);
+        assertTrue(current);
+        assertEquals(version + 1, cardJapRepository.findById(cardId).orElseThrow().getVersion());
+        assertFalse(cardJapRepository.updateStatus(cardId, CardStatus.ACTIVATED, version, OffsetDateTime.now()));
+        assertTrue(cardJapRepository.updateStatus(cardId, CardStatus.ACTIVATED, version + 1, OffsetDateTime.now()));
+    }
+
     @Test
     void testSave() {
         String rfidUid = "rfidUid0010";
@@ -58,6 +133,29 @@ public class CardJpaRepositoryTest extends BaseDataJpaIntegrationTest {
         assertEquals(rfidUid, card.getRfidUid(), "rfidUid should same");
     }
 
+    @Test
+    void testCreate() {
+        Card card = cardJapRepository.create(newCard("rfidUid0011", "0011"));
+
+        // assert
+        assertTrue(cardJapRepository.findByRfidUid("rfidUid0011").isPresent(), "card should exist");
+        assertEquals(card.getCardId(), cardJapRepository.findByRfidUid("rfidUid0011").get().getCardId());
+    }
+
+    @Test
+    void testCreateWithExistsRfidUid() {
+        ResourceAlreadyExistsException e = assertThrows(ResourceAlreadyExistsException.class,
+                () -> cardJapRepository.create(newCard("rfidUid0001", "0012")));
+        assertEquals("Card with RFID UID already exists: rfidUid0001", e.getMessage());
+    }
+
+    @Test
+    void testCreateWithExistsVisibleNumber() {
+        ResourceAlreadyExistsException e = assertThrows(ResourceAlreadyExistsException.class,
+                () -> cardJapRepository.create(newCard("rfidUid0013", "0001")));
+        assertEquals("Card with visible number already exists: 0001", e.getMessage());
+    }
+
     @Test
     void findByLastUpdatedTime() {
         Page<Card> accounts = cardJapRepository.findByLastUpdatedBetween(
@@ -70,6 +168,99 @@ public class CardJpaRepositoryTest extends BaseDataJpaIntegrationTest {
         assertEquals(cards.size(), accounts.getTotalElements(), "query count not right");
     }
 
+    @Test
+    void scanByCursorVisitsEveryCardOnce() {
+        // given
+        entityManager.flush();
+        entityManager.clear();
+        List<Card> all = cardJapRepository.findByLastUpdatedBetween(null, null, null, 10);
+
+        // when
+        List<Card> scanned = new ArrayList<>();
+        KeysetCursor cursor = null;
+        List<Card> page;
+        do {
+            page = cardJapRepository.findByLastUpdatedBetween(null, null, cursor, 2);
+            scanned.addAll(page);
+            if (!page.isEmpty()) {
+                Card last = page.get(page.size() - 1);
+                cursor = new KeysetCursor(last.getLastUpdated(), last.getCardId());
+            }
+        } while (page.size() == 2);
+
+        // then
+        assertEquals(cards.size(), all.size());
+        assertEquals(all.stream().map(Card::getCardId).collect(Collectors.toList()),
+                scanned.stream().map(Card::getCardId).collect(Collectors.toList()), "scan should follow the full order");
+    }
+
+    @Test
+    void scanByCursorIsOrderedByLastUpdatedThenIdDescending() {
+        // given
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<Card> page = cardJapRepository.findByLastUpdatedBetween(null, null, null, 10);
+
+        // then
+        for (int i = 1; i < page.size(); i++) {
+            Card previous = page.get(i - 1);
+            Card current = page.get(i);
+            int byTime = previous.getLastUpdated().compareTo(current.getLastUpdated());
+            assertTrue(byTime > 0 || (byTime == 0 && previous.getCardId() > current.getCardId()), "wrong order at " + i);
+        }
+    }
+
+    @Test
+    void testChangesAreOldestFirstAndResumable() {
+        // given
+        entityManager.flush();
+        entityManager.clear();
+        List<Card> newestFirst = cardJapRepository.findByLastUpdatedBetween(null, null, null, 10);
+        OffsetDateTime until = OffsetDateTime.now();
+
+        // when
+        List<Card> changes = new ArrayList<>();
+        KeysetCursor cursor = null;
+        List<Card> page;
+        do {
+            page = cardJapRepository.findChangesAfter(cursor, until, 2);
+            changes.addAll(page);
+            if (!page.isEmpty()) {
+                Card last = page.get(page.size() - 1);
+                cursor = new KeysetCursor(last.getLastUpdated(), last.getCardId());
+            }
+        } while (page.size() == 2);
+
+        // then
+        assertEquals(newestFirst.stream().map(Card::getCardId).toList().reversed(),
+                changes.stream().map(Card::getCardId).toList(), "changes should be the scan order reversed");
+        assertTrue(cardJapRepository.findChangesAfter(null, until.minusDays(1), 10).isEmpty());
+    }
+
+    @Test
+    void testStreamFollowsScanOrderAndDetaches() {
+        // given
+        entityManager.flush();
+        entityManager.clear();
+        List<Card> all = cardJapRepository.findByLastUpdatedBetween(null, null, null, 10);
+        entityManager.clear();
+
+        // when
+        List<Card> streamed = new ArrayList<>();
+        try (Stream<Card> stream = cardJapRepository.streamByLastUpdatedBetween(null, null)) {
+            stream.forEach(card -> {
+                assertFalse(entityManager.contains(card), "streamed card should be detached");
+                streamed.add(card);
+            });
+        }
+
+        // then
+        assertEquals(all.stream().map(Card::getCardId).collect(Collectors.toList()),
+                streamed.stream().map(Card::getCardId).collect(Collectors.toList()), "stream should follow the scan order");
+    }
+
     @Test
     void findById() {
         String rfidUid = "rfidUid0010";
@@ -0,0 +1,156 @@
+package com.volvo.emsp.infrastructure.repository.jpa.integration;
+
+import com.volvo.emsp.BaseIntegrationTest;
+import com.volvo.emsp.application.command.ChangeCardStatusItem;
+import com.volvo.emsp.application.command.CreateCardCommand;
+import com.volvo.emsp.application.dto.AccountDTO;
+import com.volvo.emsp.application.dto.CardStatusChangeResultDTO;
+import com.volvo.emsp.application.service.AccountApplicationService;
+import com.volvo.emsp.application.service.CardApplicationService;
+import com.volvo.emsp.domain.model.Account;
+import com.volvo.emsp.domain.model.enums.AccountStatus;
+import com.volvo.emsp.domain.model.enums.CardStatus;
+import com.volvo.emsp.domain.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Aggregates loaded by id come from the second-level cache once they have been written or read. Writes read around
+ * it.
+ */
+class EntityCacheIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private AccountApplicationService accountApplicationService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private CardApplicationService cardApplicationService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void repeatedLoadsAreCacheHits() {
+        // given
+        AccountDTO account = accountApplicationService.createAccount("cache-hits@example.com");
+        double hits = gets("hit");
+
+        // when
+        accountApplicationService.findAccountById(account.getAccountId());
+        accountApplicationService.findAccountById(account.getAccountId());
+
+        // then
+        assertEquals(hits + 2, gets("hit"));
+    }
+
+    @Test
+    void statusChangeReplacesCachedEntry() {
+        // given
+        AccountDTO account = accountApplicationService.createAccount("cache-status@example.com");
+        accountApplicationService.findAccountById(account.getAccountId());
+
+        // when
+        accountApplicationService.changeAccountStatus(account.getAccountId(), "DEACTIVATED", null);
+
+        // then
+        double hits = gets("hit");
+        AccountDTO loaded = accountApplicationService.findAccountById(account.getAccountId()).orElseThrow();
+        assertEquals(AccountStatus.DEACTIVATED.name(), loaded.getStatus());
+        assertEquals(hits + 1, gets("hit"));
+    }
+
+    @Test
+    void ifMatchStatusChangeKeepsOtherCachedAccounts() {
+        // given
+        AccountDTO changed = accountApplicationService.createAccount("cache-if-match@example.com");
+        AccountDTO other = accountApplicationService.createAccount("cache-other@example.com");
+        accountApplicationService.findAccountById(other.getAccountId());
+
+        // when
+        accountApplicationService.changeAccountStatus(changed.getAccountId(), "ACTIVATED", changed.getVersion());
+
+        // then
+        double hits = gets("hit");
+        accountApplicationService.findAccountById(other.getAccountId());
+        assertEquals(hits + 1, gets("hit"), "only the changed account should leave the cache");
+    }
+
+    @Test
+    void ifMatchIsCheckedAgainstTheCurrentVersion() {
+        // given
+        AccountDTO account = accountApplicationService.createAccount("cache-if-match-stale@example.com");
+        accountApplicationService.findAccountById(account.getAccountId());
+        // as another instance would, behind this instance's cache
+        jdbcTemplate.update("UPDATE accounts SET status = 'ACTIVATED', version = version + 1 WHERE account_id = ?",
+                account.getAccountId());
+
+        // when
+        accountApplicationService.changeAccountStatus(account.getAccountId(), "DEACTIVATED", account.getVersion() + 1);
+
+        // then
+        assertEquals(AccountStatus.DEACTIVATED.name(), jdbcTemplate.queryForObject(
+                "SELECT status FROM accounts WHERE account_id = ?", String.class, account.getAccountId()));
+    }
+
+    @Test
+    void bulkAssignmentChecksTheCurrentAccountStatus() {
+        // given
+        AccountDTO account = accountApplicationService.createAccount("cache-bulk@example.com");
+        accountApplicationService.changeAccountStatus(account.getAccountId(), "ACTIVATED", null);
+        accountApplicationService.findAccountById(account.getAccountId());
+        // deactivated by another instance, behind this instance's cache
+        jdbcTemplate.update("UPDATE accounts SET status = 'DEACTIVATED', version = version + 1 WHERE account_id = ?",
+                account.getAccountId());
+        CreateCardCommand card = new CreateCardCommand();
+        card.setRfidUid("cacheBulkRfidUid");
+        card.setVisibleNumber("cacheBulk");
+        Long cardId = cardApplicationService.createCard(card).getCardId();
+        ChangeCardStatusItem item = new ChangeCardStatusItem();
+        item.setCardId(cardId);
+        item.setTargetStatus(CardStatus.ASSIGNED.name());
+        item.setAssignToAccount(account.getAccountId());
+
+        // when
+        List<CardStatusChangeResultDTO> results = cardApplicationService.changeCardStatuses(List.of(item));
+
+        // then
+        assertEquals(CardStatusChangeResultDTO.REJECTED, results.getFirst().getResult());
+        assertEquals(CardStatus.CREATED.name(), jdbcTemplate.queryForObject(
+                "SELECT status FROM cards WHERE card_id = ?", String.class, cardId));
+    }
+
+    @Test
+    void writesReadAroundTheCache() {
+        // given
+        AccountDTO account = accountApplicationService.createAccount("cache-stale@example.com");
+        accountApplicationService.findAccountById(account.getAccountId());
+        // as another instance would, behind this instance's cache
+        jdbcTemplate.update("UPDATE accounts SET status = 'ACTIVATED', version = version + 1 WHERE account_id = ?",
+                account.getAccountId());
+
+        // when
+        Account cached = accountRepository.findById(account.getAccountId()).orElseThrow();
+        Account current = accountRepository.findByIdForWrite(account.getAccountId()).orElseThrow();
+
+        // then
+        assertEquals(AccountStatus.CREATED, cached.getStatus());
+        assertEquals(AccountStatus.ACTIVATED, current.getStatus());
+        assertEquals(cached.getVersion() + 1, current.getVersion());
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", Account.CACHE_REGION)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
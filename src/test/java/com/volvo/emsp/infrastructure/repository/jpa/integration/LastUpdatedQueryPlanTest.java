@@ -0,0 +1,161 @@
+package com.volvo.emsp.infrastructure.repository.jpa.integration;
+
+import com.volvo.emsp.BaseDataJpaIntegrationTest;
+import com.volvo.emsp.domain.model.Account;
+import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.repository.KeysetCursor;
+import com.volvo.emsp.domain.service.IdGenerator;
+import com.volvo.emsp.domain.service.impl.TestIdGenerator;
+import com.volvo.emsp.infrastructure.repository.jpa.AccountJapRepository;
+import com.volvo.emsp.infrastructure.repository.jpa.CardJpaRepository;
+import com.volvo.emsp.infrastructure.repository.jpa.UniqueKeyFilters;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the list queries against falling back to a table scan: EXPLAIN on H2 in MySQL mode must show the
+ * {@code (last_updated, id)} index, and no {@code IS NULL} guard may reach the SQL.
+ */
+@Import({JpaConfig.class, UniqueKeyFilters.class, CardJpaRepository.class, AccountJapRepository.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // keep MODE=MySQL
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.volvo.emsp.infrastructure.repository.jpa.integration.LastUpdatedQueryPlanTest$CapturingStatementInspector")
+class LastUpdatedQueryPlanTest extends BaseDataJpaIntegrationTest {
+
+    private static final String CARD_INDEX = "IDX_CARD_LAST_UPDATED_ID";
+    private static final String ACCOUNT_INDEX = "IDX_ACCOUNT_LAST_UPDATED_ID";
+
+    @Autowired
+    private CardJpaRepository cardRepository;
+    @Autowired
+    private AccountJapRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final IdGenerator idGenerator = new TestIdGenerator();
+    private final OffsetDateTime from = OffsetDateTime.now().minusDays(1);
+    private final OffsetDateTime to = OffsetDateTime.now().plusDays(1);
+
+    @BeforeEach
+    void init() {
+        cardRepository.save(new Card(idGenerator.nextId(), "rfidUid0001", "0001"));
+        accountRepository.save(new Account(idGenerator.nextId(), "leoabby@outlook.com", "CN8VOLSXZGQEN0"));
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void cardPageWithBothBoundsUsesIndex() {
+        // when
+        cardRepository.findByLastUpdatedBetween(from, to, PageRequest.of(0, 10, newestFirst("cardId")));
+        cardRepository.countByLastUpdatedBetween(from, to);
+
+        // then
+        String select = captured("order by", "cards");
+        String count = captured("count(", "cards");
+        assertThat(explain(select, from, to, 0, 10)).contains(CARD_INDEX);
+        assertThat(explain(count, from, to)).contains(CARD_INDEX);
+    }
+
+    @Test
+    void cardPageWithoutBoundsHasNoWhere() {
+        // when
+        cardRepository.findByLastUpdatedBetween(null, null, PageRequest.of(0, 10, newestFirst("cardId")));
+
+        // then
+        String select = captured("order by", "cards");
+        assertThat(select).doesNotContain("where");
+        assertThat(explain(select, 0, 10)).contains(CARD_INDEX);
+    }
+
+    @Test
+    void cardSliceWithOneBoundUsesIndex() {
+        // when
+        cardRepository.findSliceByLastUpdatedBetween(from, null, PageRequest.of(0, 10, newestFirst("cardId")));
+
+        // then
+        String select = captured("order by", "cards");
+        assertThat(explain(select, from, 0, 11)).contains(CARD_INDEX);
+    }
+
+    @Test
+    void cardCursorPageUsesIndex() {
+        // when
+        cardRepository.findByLastUpdatedBetween(null, to, new KeysetCursor(to, Long.MAX_VALUE), 10);
+
+        // then
+        String select = captured("order by", "cards");
+        assertThat(explain(select, to, to, to, Long.MAX_VALUE, 10)).contains(CARD_INDEX);
+    }
+
+    @Test
+    void accountPageWithBothBoundsUsesIndex() {
+        // when
+        accountRepository.findByLastUpdatedBetween(from, to, PageRequest.of(0, 10, newestFirst("accountId")));
+
+        // then
+        String select = captured("order by", "accounts");
+        assertThat(explain(select, from, to, 0, 10)).contains(ACCOUNT_INDEX);
+    }
+
+    @Test
+    void accountCountWithoutBoundsHasNoWhere() {
+        // when
+        accountRepository.countByLastUpdatedBetween(null, null);
+
+        // then
+        assertThat(captured("count(", "accounts")).doesNotContain("where");
+    }
+
+    @Test
+    void accountCursorPageUsesIndex() {
+        // when
+        accountRepository.findByLastUpdatedBetween(from, null, new KeysetCursor(to, Long.MAX_VALUE), 10);
+
+        // then
+        String select = captured("order by", "accounts");
+        assertThat(explain(select, from, to, to, Long.MAX_VALUE, 10)).contains(ACCOUNT_INDEX);
+    }
+
+    private static Sort newestFirst(String id) {
+        return Sort.by(Sort.Direction.DESC, "lastUpdated", id);
+    }
+
+    private static String captured(String kind, String table) {
+        List<String> statements = CapturingStatementInspector.STATEMENTS.stream()
+                .filter(sql -> sql.startsWith("select") && sql.contains(kind) && sql.contains(" " + table + " "))
+                .toList();
+        assertThat(statements).as("statements on %s", table).isNotEmpty();
+        String sql = statements.get(statements.size() - 1);
+        assertThat(sql).doesNotContainIgnoringCase("is null");
+        return sql;
+    }
+
+    private String explain(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.volvo.emsp.infrastructure.repository.jpa.integration;
+
+import com.volvo.emsp.BaseDataJpaIntegrationTest;
+import com.volvo.emsp.config.JacksonConfig;
+import com.volvo.emsp.domain.event.CardAssignedEvent;
+import com.volvo.emsp.domain.event.DomainEvent;
+import com.volvo.emsp.domain.event.EventSource;
+import com.volvo.emsp.domain.model.Account;
+import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.service.IdGenerator;
+import com.volvo.emsp.domain.service.impl.TestIdGenerator;
+import com.volvo.emsp.infrastructure.repository.jpa.AccountJapRepository;
+import com.volvo.emsp.infrastructure.repository.jpa.CardJpaRepository;
+import com.volvo.emsp.infrastructure.repository.jpa.DomainEventJpaRepository;
+import com.volvo.emsp.infrastructure.repository.jpa.UniqueKeyFilters;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Saving a new aggregate or event must be a single INSERT, without a SELECT from merge or findById.
+ */
+@Import({JpaConfig.class, UniqueKeyFilters.class, CardJpaRepository.class, AccountJapRepository.class, DomainEventJpaRepository.class, JacksonConfig.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PersistQueryCountTest extends BaseDataJpaIntegrationTest {
+
+    @Autowired
+    private CardJpaRepository cardRepository;
+    @Autowired
+    private AccountJapRepository accountRepository;
+    @Autowired
+    private DomainEventJpaRepository eventRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final IdGenerator idGenerator = new TestIdGenerator();
+    private Statistics statistics;
+
+    @BeforeEach
+    void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testSaveNewCardIsOneInsert() {
+        // when
+        cardRepository.save(new Card(idGenerator.nextId(), "rfidUid0001", "0001"));
+        entityManager.flush();
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void testSaveAllNewCardsIsOneInsertEach() {
+        // when
+        cardRepository.saveAll(List.of(
+                new Card(idGenerator.nextId(), "rfidUid0002", "0002"),
+                new Card(idGenerator.nextId(), "rfidUid0003", "0003")));
+        entityManager.flush();
+
+        // then
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void testInsertAllIsOneBatch() {
+        // when
+        cardRepository.insertAll(List.of(
+                new Card(idGenerator.nextId(), "rfidUid0005", "0005"),
+                new Card(idGenerator.nextId(), "rfidUid0006", "0006"),
+                new Card(idGenerator.nextId(), "rfidUid0007", "0007")));
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void testSaveNewAccountIsOneInsert() {
+        // when
+        accountRepository.save(new Account(idGenerator.nextId(), "leoabby@outlook.com", "CN8VOLSXZGQEN0"));
+        entityManager.flush();
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void testInsertAllAccountsIsOneBatch() {
+        // when
+        accountRepository.insertAll(List.of(
+                new Account(idGenerator.nextId(), "leoabby2@outlook.com", "CN8VOLSXZGQEN1"),
+                new Account(idGenerator.nextId(), "leoabby3@outlook.com", "CN8VOLSXZGQEN2")));
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void testUpdateAllIsOneBatch() {
+        // given
+        Account account = new Account(idGenerator.nextId(), "leoabby4@outlook.com", "CN8VOLSXZGQEN3");
+        account.activate();
+        accountRepository.save(account);
+        Card card1 = cardRepository.save(new Card(idGenerator.nextId(), "rfidUid0008", "0008"));
+        Card card2 = cardRepository.save(new Card(idGenerator.nextId(), "rfidUid0009", "0009"));
+        entityManager.flush();
+        entityManager.clear();
+        List<Card> cards = cardRepository.findAllById(List.of(card1.getCardId(), card2.getCardId()));
+        statistics.clear();
+
+        // when
+        cards.forEach(card -> card.assignTo(account));
+        cardRepository.updateAll(cards);
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getEntityUpdateCount());
+    }
+
+    @Test
+    void testSaveUnchangedLoadedCardIssuesNoStatement() {
+        // given
+        Card card = cardRepository.save(new Card(idGenerator.nextId(), "rfidUid0004", "0004"));
+        entityManager.flush();
+        entityManager.clear();
+        Card loaded = cardRepository.findById(card.getCardId()).orElseThrow();
+        statistics.clear();
+
+        // when
+        cardRepository.save(loaded);
+        entityManager.flush();
+
+        // then
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testAppendEventIsOneInsert() {
+        // when
+        DomainEvent event = new CardAssignedEvent(new EventSource("Card", 1L), 1L, 1L);
+        eventRepository.append(event);
+        entityManager.flush();
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void testAppendAllEventsIsOneBatch() {
+        // when
+        eventRepository.appendAll(List.of(
+                new CardAssignedEvent(new EventSource("Card", 2L), 2L, 1L),
+                new CardAssignedEvent(new EventSource("Card", 3L), 3L, 1L)));
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getEntityInsertCount());
+    }
+}
@@ -0,0 +1,109 @@
+package com.volvo.emsp.infrastructure.repository.jpa.integration;
+
+import com.volvo.emsp.BaseDataJpaIntegrationTest;
+import com.volvo.emsp.domain.model.Account;
+import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.model.Email;
+import com.volvo.emsp.domain.service.IdGenerator;
+import com.volvo.emsp.domain.service.impl.TestIdGenerator;
+import com.volvo.emsp.infrastructure.repository.jpa.AccountJapRepository;
+import com.volvo.emsp.infrastructure.repository.jpa.CardJpaRepository;
+import com.volvo.emsp.infrastructure.repository.jpa.UniqueKeyFilter;
+import com.volvo.emsp.infrastructure.repository.jpa.UniqueKeyFilters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import({JpaConfig.class, UniqueKeyFilters.class, CardJpaRepository.class, AccountJapRepository.class})
+public class UniqueKeyFiltersTest extends BaseDataJpaIntegrationTest {
+
+    @Autowired
+    private UniqueKeyFilters uniqueKeyFilters;
+    @Autowired
+    private CardJpaRepository cardJpaRepository;
+    @Autowired
+    private AccountJapRepository accountJpaRepository;
+    @Autowired
+    private EntityManager entityManager;
+    private final IdGenerator idGenerator = new TestIdGenerator();
+
+    @BeforeEach
+    void init() {
+        // persisted around the repositories, so only the load can put them into the filters
+        entityManager.persist(new Card(idGenerator.nextId(), "filterRfidUid01", "filter01"));
+        entityManager.persist(new Account(idGenerator.nextId(), "filter1@example.com", "CN8VOLSXZGQEF1"));
+        entityManager.flush();
+        uniqueKeyFilters.load();
+    }
+
+    @Test
+    void testLoadedKeysAreVerified() {
+        // given
+        UniqueKeyFilter rfidUids = uniqueKeyFilters.rfidUids();
+        long positives = rfidUids.getPositives();
+
+        // when & then
+        assertTrue(rfidUids.isLoaded());
+        assertTrue(cardJpaRepository.existsByRfidUid("filterRfidUid01"));
+        assertTrue(cardJpaRepository.existsByVisibleNumber("filter01"));
+        assertTrue(accountJpaRepository.existsByEmail(Email.of("Filter1@Example.com")));
+        assertEquals(positives + 1, rfidUids.getPositives());
+    }
+
+    @Test
+    void testUnknownKeysSkipTheDatabase() {
+        // given
+        UniqueKeyFilter emails = uniqueKeyFilters.emails();
+        long checks = emails.getNegatives() + emails.getFalsePositives();
+
+        // when & then
+        assertFalse(cardJpaRepository.existsByRfidUid("filterRfidUid99"));
+        assertFalse(cardJpaRepository.existsByVisibleNumber("filter99"));
+        assertFalse(accountJpaRepository.existsByEmail(Email.of("filter99@example.com")));
+        assertEquals(checks + 1, emails.getNegatives() + emails.getFalsePositives());
+    }
+
+    @Test
+    void testInsertUpdatesFilter() {
+        // when
+        cardJpaRepository.create(new Card(idGenerator.nextId(), "filterRfidUid02", "filter02"));
+        accountJpaRepository.create(new Account(idGenerator.nextId(), "filter2@example.com", "CN8VOLSXZGQEF2"));
+
+        // then
+        assertTrue(uniqueKeyFilters.rfidUids().getFilter().mightContain(UniqueKeyFilters.key("filterRfidUid02")));
+        assertTrue(cardJpaRepository.existsByRfidUid("filterRfidUid02"));
+        assertTrue(cardJpaRepository.existsByVisibleNumber("filter02"));
+        assertTrue(accountJpaRepository.existsByEmail(Email.of("filter2@example.com")));
+    }
+
+    @Test
+    void testKeysIgnoreCase() {
+        assertTrue(uniqueKeyFilters.rfidUids().getFilter().mightContain(UniqueKeyFilters.key("FILTERRFIDUID01")));
+    }
+
+    @Test
+    void testMetrics() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // when
+        uniqueKeyFilters.bindTo(registry);
+        cardJpaRepository.existsByRfidUid("filterRfidUid98");
+
+        // then
+        double memory = registry.get("unique.filter.memory").tag("key", "card.rfid_uid").gauge().value();
+        assertEquals(uniqueKeyFilters.rfidUids().getFilter().sizeInBytes(), memory);
+        double falsePositiveRate = registry.get("unique.filter.false_positive_rate").tag("key", "card.rfid_uid").gauge().value();
+        assertTrue(falsePositiveRate > 0 && falsePositiveRate < 0.01);
+        double skipped = registry.get("unique.filter.checks").tag("key", "card.rfid_uid").tag("result", "negative")
+                .functionCounter().count();
+        double verified = registry.get("unique.filter.checks").tag("key", "card.rfid_uid").tag("result", "false_positive")
+                .functionCounter().count();
+        assertTrue(skipped + verified >= 1);
+    }
+}
@@ -0,0 +1,266 @@
+package com.volvo.emsp.infrastructure.service.integration;
+
+import com.volvo.emsp.BaseIntegrationTest;
+import com.volvo.emsp.TestRedisConfiguration;
+import com.volvo.emsp.application.command.CreateCardCommand;
+import com.volvo.emsp.application.dto.AccountDTO;
+import com.volvo.emsp.application.dto.CardDTO;
+import com.volvo.emsp.application.service.AccountApplicationService;
+import com.volvo.emsp.application.service.CardApplicationService;
+import com.volvo.emsp.application.service.DtoCache;
+import com.volvo.emsp.domain.model.enums.CardStatus;
+import com.volvo.emsp.infrastructure.service.DtoCacheRedisImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs the services against the embedded redis, the redis host switches the cache on.
+ */
+@Import(TestRedisConfiguration.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "spring.data.redis.host=localhost")
+class DtoCacheRedisImplTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private DtoCache dtoCache;
+    @Autowired
+    private CardApplicationService cardApplicationService;
+    @Autowired
+    private AccountApplicationService accountApplicationService;
+
+    @Test
+    void testCardRoundTrip() {
+        // given
+        CardDTO card = new CardDTO();
+        card.setCardId(1001L);
+        card.setRfidUid("rfid|\"quoted\"");
+        card.setVisibleNumber("visible");
+        card.setStatus(CardStatus.CREATED);
+        card.setCreatedAt(OffsetDateTime.of(2025, 1, 2, 3, 4, 5, 6000, ZoneOffset.ofHours(8)));
+        card.setLastUpdated(OffsetDateTime.of(2025, 1, 2, 3, 4, 5, 6000, ZoneOffset.UTC));
+        card.setVersion(3L);
+
+        // when
+        dtoCache.putCard(card);
+        CardDTO cached = dtoCache.getCard(1001L).orElseThrow();
+
+        // then
+        assertEquals(card.toString(), cached.toString());
+        assertNull(cached.getAccountId());
+        assertNull(cached.getContractId());
+        assertTrue(redisTemplate.getExpire("dto:v2:card:1001") > 0);
+    }
+
+    @Test
+    void testAccountRoundTrip() {
+        // given
+        AccountDTO account = new AccountDTO(2001L, "cache@example.com", "NLTNM000000001",
+                "ACTIVATED", OffsetDateTime.of(2025, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC));
+        account.setVersion(4L);
+
+        // when
+        dtoCache.putAccount(account);
+        AccountDTO cached = dtoCache.getAccount(2001L).orElseThrow();
+
+        // then
+        assertEquals(account.getAccountId(), cached.getAccountId());
+        assertEquals(account.getEmail(), cached.getEmail());
+        assertEquals(account.getEmaid(), cached.getEmaid());
+        assertEquals(account.getStatus(), cached.getStatus());
+        assertEquals(account.getLastUpdated(), cached.getLastUpdated());
+        assertEquals(4L, cached.getVersion());
+    }
+
+    @Test
+    void testCachedReadKeepsTheETag() throws Exception {
+        // given
+        Long accountId = accountApplicationService.createAccount("dto-cache-etag@example.com").getAccountId();
+        long version = accountApplicationService.findAccountById(accountId).orElseThrow().getVersion();
+        assertTrue(dtoCache.getAccount(accountId).isPresent());
+
+        // when & then
+        mockMvc.perform(get("/api/accounts/{id}", accountId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + version + "\""))
+                .andExpect(jsonPath("$.version").value(version));
+    }
+
+    @Test
+    void testEvictWaitsForCommit() {
+        // given
+        AccountDTO account = new AccountDTO(2002L, "evict@example.com", null, "CREATED", OffsetDateTime.now());
+        dtoCache.putAccount(account);
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            dtoCache.evictAccount(2002L);
+            assertTrue(dtoCache.getAccount(2002L).isPresent(), "evicted before commit");
+        });
+
+        // then
+        assertTrue(dtoCache.getAccount(2002L).isEmpty());
+    }
+
+    @Test
+    void testEvictIsDroppedOnRollback() {
+        // given
+        AccountDTO account = new AccountDTO(2003L, "rollback@example.com", null, "CREATED", OffsetDateTime.now());
+        dtoCache.putAccount(account);
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            dtoCache.evictAccount(2003L);
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertTrue(dtoCache.getAccount(2003L).isPresent());
+    }
+
+    @Test
+    void testStatusChangeEvictsCard() {
+        // given
+        CreateCardCommand command = new CreateCardCommand();
+        command.setRfidUid("dtoCacheRfidUid01");
+        command.setVisibleNumber("dtoCache01");
+        Long cardId = cardApplicationService.createCard(command).getCardId();
+        Long accountId = accountApplicationService.createAccount("dto-cache-card@example.com").getAccountId();
+        accountApplicationService.changeAccountStatus(accountId, "ACTIVATED", null);
+        assertEquals(CardStatus.CREATED, cardApplicationService.findCardById(cardId).orElseThrow().getStatus());
+        assertTrue(redisTemplate.hasKey("dto:v2:card:" + cardId));
+
+        // when
+        cardApplicationService.assignCardToAccount(cardId, accountId, null);
+
+        // then
+        assertTrue(dtoCache.getCard(cardId).isEmpty());
+        assertEquals(CardStatus.ASSIGNED, cardApplicationService.findCardById(cardId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testStatusChangeEvictsAccount() {
+        // given
+        Long accountId = accountApplicationService.createAccount("dto-cache-account@example.com").getAccountId();
+        assertEquals("CREATED", accountApplicationService.findAccountById(accountId).orElseThrow().getStatus());
+
+        // when
+        accountApplicationService.changeAccountStatus(accountId, "ACTIVATED", null);
+
+        // then
+        assertEquals("ACTIVATED", accountApplicationService.findAccountById(accountId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testReplicaReadFinishingAfterEvictionIsNotCached() {
+        // given
+        Long accountId = accountApplicationService.createAccount("dto-cache-stale@example.com").getAccountId();
+        // answered before the change, as by a lagging replica, but put only after the eviction
+        AccountDTO stale = accountApplicationService.findAccountById(accountId).orElseThrow();
+        accountApplicationService.changeAccountStatus(accountId, "ACTIVATED", null);
+
+        // when
+        dtoCache.putAccount(stale);
+
+        // then
+        assertTrue(dtoCache.getAccount(accountId).isEmpty());
+        assertEquals("ACTIVATED", accountApplicationService.findAccountById(accountId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testPutKeepsNewerVersion() {
+        // given
+        CardDTO card = new CardDTO();
+        card.setCardId(1003L);
+        card.setStatus(CardStatus.ASSIGNED);
+        card.setVersion(5L);
+        dtoCache.putCard(card);
+        CardDTO older = new CardDTO();
+        older.setCardId(1003L);
+        older.setStatus(CardStatus.CREATED);
+        older.setVersion(4L);
+
+        // when
+        dtoCache.putCard(older);
+
+        // then
+        assertEquals(5L, dtoCache.getCard(1003L).orElseThrow().getVersion());
+        card.setVersion(6L);
+        dtoCache.putCard(card);
+        assertEquals(6L, dtoCache.getCard(1003L).orElseThrow().getVersion());
+    }
+
+    @Test
+    void testPutIsAcceptedAfterHoldOff() throws InterruptedException {
+        // given
+        DtoCache cache = new DtoCacheRedisImpl(redisTemplate, 60000, 100, 5000);
+        CardDTO card = new CardDTO();
+        card.setCardId(1004L);
+        card.setVersion(1L);
+        cache.evictCard(1004L);
+
+        // when
+        cache.putCard(card);
+        boolean cachedDuringHoldOff = cache.getCard(1004L).isPresent();
+        Thread.sleep(200);
+        cache.putCard(card);
+
+        // then
+        assertFalse(cachedDuringHoldOff);
+        assertTrue(cache.getCard(1004L).isPresent());
+    }
+
+    @Test
+    void testUnavailableRedisFallsBack() throws IOException {
+        // given
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("localhost", unusedPort()));
+        factory.afterPropertiesSet();
+        factory.start();
+        DtoCache unavailable = new DtoCacheRedisImpl(new StringRedisTemplate(factory), 60000, 2000, 60000);
+        CardDTO card = new CardDTO();
+        card.setCardId(1002L);
+
+        try {
+            // when
+            Optional<CardDTO> cached = unavailable.getCard(1002L);
+
+            // then
+            assertTrue(cached.isEmpty());
+            assertDoesNotThrow(() -> unavailable.putCard(card));
+            assertDoesNotThrow(() -> unavailable.evictCard(1002L));
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.volvo.emsp.infrastructure.service.integration;
+
+import com.volvo.emsp.BaseIntegrationTest;
+import com.volvo.emsp.infrastructure.service.WorkerIdLeaseServiceJpaImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkerIdLeaseServiceJpaImplTest extends BaseIntegrationTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+    private static final int WORKER_ID = 7;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private WorkerIdLeaseServiceJpaImpl leaseService;
+
+    @BeforeEach
+    void setUp() {
+        leaseService = new WorkerIdLeaseServiceJpaImpl(entityManager, transactionManager);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                entityManager.createQuery("DELETE FROM WorkerIdLeaseModel").executeUpdate());
+    }
+
+    @Test
+    void testAcquireRenewAndRelease() {
+        assertTrue(leaseService.tryAcquire(WORKER_ID, "a", TTL));
+        // re-entrant for the owner, refused for others
+        assertTrue(leaseService.tryAcquire(WORKER_ID, "a", TTL));
+        assertFalse(leaseService.tryAcquire(WORKER_ID, "b", TTL));
+
+        assertTrue(leaseService.renew(WORKER_ID, "a", TTL));
+        assertFalse(leaseService.renew(WORKER_ID, "b", TTL));
+
+        // only the owner can release
+        leaseService.release(WORKER_ID, "b");
+        assertFalse(leaseService.tryAcquire(WORKER_ID, "b", TTL));
+        leaseService.release(WORKER_ID, "a");
+        assertTrue(leaseService.tryAcquire(WORKER_ID, "b", TTL));
+    }
+
+    @Test
+    void testExpiredLeaseCanBeTakenOver() {
+        // given
+        assertTrue(leaseService.tryAcquire(WORKER_ID, "a", Duration.ofMillis(-1)));
+
+        // when
+        boolean acquired = leaseService.tryAcquire(WORKER_ID, "b", TTL);
+
+        // then
+        assertTrue(acquired);
+        assertFalse(leaseService.renew(WORKER_ID, "a", TTL));
+    }
+
+    @Test
+    void testConcurrentAcquire() throws InterruptedException {
+        int threadCount = 8;
+        AtomicInteger acquired = new AtomicInteger();
+        try (ExecutorService executorService = newFixedThreadPool(threadCount)) {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            for (int i = 0; i < threadCount; i++) {
+                String owner = "node-" + i;
+                executorService.submit(() -> {
+                    startLatch.await();
+                    if (leaseService.tryAcquire(WORKER_ID, owner, TTL)) {
+                        acquired.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            startLatch.countDown();
+            executorService.shutdown();
+        }
+
+        // only one node can hold the slot
+        assertEquals(1, acquired.get());
+    }
+}
@@ -0,0 +1,59 @@
+package com.volvo.emsp.infrastructure.service.integration;
+
+import com.volvo.emsp.BaseIntegrationTest;
+import com.volvo.emsp.TestRedisConfiguration;
+import com.volvo.emsp.infrastructure.service.WorkerIdLeaseServiceRedisImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(TestRedisConfiguration.class)
+class WorkerIdLeaseServiceRedisImplTest extends BaseIntegrationTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+    private static final int WORKER_ID = 7;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    private WorkerIdLeaseServiceRedisImpl leaseService;
+
+    @BeforeEach
+    void setUp() {
+        leaseService = new WorkerIdLeaseServiceRedisImpl(redisTemplate);
+        redisTemplate.delete("worker_id_lease:" + WORKER_ID);
+    }
+
+    @Test
+    void testAcquireRenewAndRelease() {
+        assertTrue(leaseService.tryAcquire(WORKER_ID, "a", TTL));
+        assertTrue(leaseService.tryAcquire(WORKER_ID, "a", TTL));
+        assertFalse(leaseService.tryAcquire(WORKER_ID, "b", TTL));
+
+        assertTrue(leaseService.renew(WORKER_ID, "a", TTL));
+        assertFalse(leaseService.renew(WORKER_ID, "b", TTL));
+
+        leaseService.release(WORKER_ID, "b");
+        assertFalse(leaseService.tryAcquire(WORKER_ID, "b", TTL));
+        leaseService.release(WORKER_ID, "a");
+        assertTrue(leaseService.tryAcquire(WORKER_ID, "b", TTL));
+    }
+
+    @Test
+    void testExpiredLeaseCanBeTakenOver() throws InterruptedException {
+        // given
+        assertTrue(leaseService.tryAcquire(WORKER_ID, "a", Duration.ofMillis(50)));
+
+        // when
+        Thread.sleep(200);
+
+        // then
+        assertTrue(leaseService.tryAcquire(WORKER_ID, "b", TTL));
+        assertFalse(leaseService.renew(WORKER_ID, "a", TTL));
+    }
+}
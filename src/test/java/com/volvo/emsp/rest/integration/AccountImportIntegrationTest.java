@@ -0,0 +1,135 @@
+package com.volvo.emsp.rest.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volvo.emsp.domain.model.Emaid;
+import com.volvo.emsp.rest.ImportStreams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not transactional: every batch commits on its own, so every test removes its rows again.
+ * Batches of two rows, so the files below span several batches.
+ */
+@ActiveProfiles("integration-test")
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "app.import.batch-size=2")
+public class AccountImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM accounts WHERE email LIKE 'import%@example.com'");
+    }
+
+    @Test
+    void testImportNdjson() throws Exception {
+        // given
+        String body = """
+                {"email": "import1@example.com"}
+                {"email": "not an email"}
+                {"email": "IMPORT1@example.com"}
+                {"email": "import4@example.com"}
+                {"email": "import4@example.com"}
+                """;
+
+        // when
+        List<JsonNode> results = importAccounts(MediaType.APPLICATION_NDJSON_VALUE, body);
+
+        // then
+        assertEquals(5, results.size());
+        assertCreated(results.get(0), 1, "import1@example.com");
+        assertRejected(results.get(1), 2, "Invalid email format: not an email");
+        assertRejected(results.get(2), 3, "Email already exists: IMPORT1@example.com");
+        assertCreated(results.get(3), 4, "import4@example.com");
+        assertRejected(results.get(4), 5, "Email already exists: import4@example.com");
+        assertNotEquals(results.get(0).get("emaid"), results.get(3).get("emaid"));
+    }
+
+    @Test
+    void testImportCsv() throws Exception {
+        // given
+        String body = """
+                email
+                import11@example.com
+                import12@example.com
+                import13@example.com,extra
+                """;
+
+        // when
+        List<JsonNode> results = importAccounts(ImportStreams.TEXT_CSV_VALUE, body);
+
+        // then
+        assertEquals(3, results.size());
+        assertCreated(results.get(0), 2, "import11@example.com");
+        assertCreated(results.get(1), 3, "import12@example.com");
+        assertRejected(results.get(2), 4, "Expected 1 columns: email");
+    }
+
+    @Test
+    void testImportedAccountCanBeFound() throws Exception {
+        // when
+        List<JsonNode> results = importAccounts(MediaType.APPLICATION_NDJSON_VALUE, "{\"email\": \"import21@example.com\"}");
+
+        // then
+        mockMvc.perform(get("/api/accounts/" + results.get(0).get("accountId").asLong()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("import21@example.com"))
+                .andExpect(jsonPath("$.emaid").value(results.get(0).get("emaid").asText()))
+                .andExpect(jsonPath("$.status").value("CREATED"));
+    }
+
+    private List<JsonNode> importAccounts(String contentType, String body) throws Exception {
+        String response = mockMvc.perform(post("/api/accounts/import")
+                        .contentType(contentType)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static void assertCreated(JsonNode result, long line, String email) {
+        assertEquals(line, result.get("line").asLong());
+        assertEquals("CREATED", result.get("status").asText());
+        assertEquals(email, result.get("email").asText());
+        assertTrue(result.get("accountId").isNumber());
+        assertTrue(Emaid.validate(result.get("emaid").asText()));
+        assertNull(result.get("error"));
+    }
+
+    private static void assertRejected(JsonNode result, long line, String error) {
+        assertEquals(line, result.get("line").asLong());
+        assertEquals("REJECTED", result.get("status").asText());
+        assertEquals(error, result.get("error").asText());
+        assertNull(result.get("accountId"));
+        assertNull(result.get("emaid"));
+    }
+}
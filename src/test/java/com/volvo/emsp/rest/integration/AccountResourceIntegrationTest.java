@@ -1,6 +1,7 @@
 package com.volvo.emsp.rest.integration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -17,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -98,6 +100,35 @@ public class AccountResourceIntegrationTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void createAccountWithExistsEmailInOtherCase() throws Exception {
+        CreateAccountCommand command = new CreateAccountCommand();
+        command.setEmail(testEmail.toUpperCase());
+        mockMvc.perform(post("/api/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void findAccountByEmail() throws Exception {
+        mockMvc.perform(get("/api/accounts").param("email", "Test@Example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value(testEmail));
+    }
+
+    @Test
+    void findAccountByEmailNotFound() throws Exception {
+        mockMvc.perform(get("/api/accounts").param("email", "nobody@example.com"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findAccountByInvalidEmail() throws Exception {
+        mockMvc.perform(get("/api/accounts").param("email", Emails.INVALID_EMAIL))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void findAccountsWithoutDateRange() throws Exception {
         MvcResult result = mockMvc.perform(get("/api/accounts")
@@ -147,6 +178,58 @@ public class AccountResourceIntegrationTest {
         assertThat(page.getContent()).isNotEmpty();
     }
 
+    @Test
+    void findAccountsWithEstimatedCount() throws Exception {
+        mockMvc.perform(get("/api/accounts")
+                        .param("count", "estimated")
+                        .param("pageSize", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].email").value(testEmail))
+                .andExpect(jsonPath("$.page.hasNext").value(false))
+                .andExpect(jsonPath("$.page.totalElements").doesNotExist());
+    }
+
+    @Test
+    void scanAccountsByCursor() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/accounts")
+                        .param("cursor", "")
+                        .param("pageSize", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].email").value(testEmail))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andReturn();
+        assertThat(result.getResponse().getContentAsString()).doesNotContain("totalElements");
+    }
+
+    @Test
+    void scanAccountsWithEstimatedCount() throws Exception {
+        mockMvc.perform(get("/api/accounts")
+                        .param("cursor", "")
+                        .param("count", "estimated"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details[0]").value("count and cursor cannot be combined"));
+    }
+
+    @Test
+    void scanAccountsWithInvalidPageSize() throws Exception {
+        mockMvc.perform(get("/api/accounts")
+                        .param("cursor", "")
+                        .param("pageSize", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findAccountsWithTooLargePageSize() throws Exception {
+        mockMvc.perform(get("/api/accounts")
+                        .param("pageSize", "500000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details[0]").value("Page size must not be greater than 1000"));
+        mockMvc.perform(get("/api/accounts")
+                        .param("cursor", "")
+                        .param("pageSize", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void activate() throws Exception {
         // first get an account ID
@@ -191,6 +274,54 @@ public class AccountResourceIntegrationTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void changeAccountStatusIfMatch() throws Exception {
+        // given
+        Long accountId = fetchAnAccountId();
+        String eTag = mockMvc.perform(get("/api/accounts/" + accountId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        ChangeAccountStatusCommand command = new ChangeAccountStatusCommand();
+        command.setTargetStatus(AccountStatus.DEACTIVATED.name());
+
+        // when matching version
+        mockMvc.perform(patch("/api/accounts/{id}/status", accountId)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isNoContent());
+
+        // then the version moved on and the old ETag is stale
+        mockMvc.perform(get("/api/accounts/" + accountId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.status").value(AccountStatus.DEACTIVATED.name()));
+        command.setTargetStatus(AccountStatus.ACTIVATED.name());
+        mockMvc.perform(patch("/api/accounts/{id}/status", accountId)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.title").value("Precondition Failed"));
+    }
+
+    @Test
+    void changeAccountStatusWithInvalidIfMatch() throws Exception {
+        // given
+        Long accountId = fetchAnAccountId();
+        ChangeAccountStatusCommand command = new ChangeAccountStatusCommand();
+        command.setTargetStatus(AccountStatus.ACTIVATED.name());
+
+        // when
+        mockMvc.perform(patch("/api/accounts/{id}/status", accountId)
+                        .header(HttpHeaders.IF_MATCH, "W/\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                // then
+                .andExpect(status().isBadRequest());
+    }
+
     private Long fetchAnAccountId() throws Exception {
         MvcResult listResult = mockMvc.perform(get("/api/accounts"))
                 .andReturn();
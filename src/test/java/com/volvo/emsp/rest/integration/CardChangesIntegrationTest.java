@@ -0,0 +1,181 @@
+package com.volvo.emsp.rest.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volvo.emsp.application.command.CreateCardCommand;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not transactional: waiting requests are woken by the poll thread, which only sees committed cards. Every test
+ * removes its rows again. No settle time, so a change shows up at once.
+ */
+@ActiveProfiles("integration-test")
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {"app.card-changes.settle-ms=0", "app.card-changes.poll-ms=50"})
+public class CardChangesIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM cards WHERE rfid_uid LIKE 'changeRfidUid%'");
+        jdbcTemplate.update("DELETE FROM accounts WHERE email = 'change1@example.com'");
+    }
+
+    @Test
+    void testChangesArePagedOldestFirst() throws Exception {
+        // given
+        String cursor = latestCursor();
+        List<Long> cardIds = List.of(createCard(1), createCard(2), createCard(3));
+
+        // when
+        JsonNode first = changes(cursor, 2, 0);
+        JsonNode second = changes(first.get("cursor").asText(), 2, 0);
+        JsonNode none = changes(second.get("cursor").asText(), 2, 0);
+
+        // then
+        assertEquals(cardIds.subList(0, 2), cardIdsOf(first));
+        assertTrue(first.get("hasMore").asBoolean());
+        assertEquals(cardIds.subList(2, 3), cardIdsOf(second));
+        assertFalse(second.get("hasMore").asBoolean());
+        assertTrue(cardIdsOf(none).isEmpty());
+        assertEquals(second.get("cursor").asText(), none.get("cursor").asText(), "cursor should stay put");
+    }
+
+    @Test
+    void testChangeOfStatusIsFedAgain() throws Exception {
+        // given
+        Long cardId = createCard(1);
+        long accountId = createActivatedAccount("change1@example.com");
+        String cursor = latestCursor();
+
+        // when
+        mockMvc.perform(patch("/api/cards/{id}/status", cardId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetStatus\": \"ASSIGNED\", \"assignToAccount\": " + accountId + "}"))
+                .andExpect(status().isNoContent());
+        JsonNode changes = changes(cursor, 10, 0);
+
+        // then
+        assertEquals(List.of(cardId), cardIdsOf(changes));
+        assertEquals("ASSIGNED", changes.get("content").get(0).get("status").asText());
+    }
+
+    @Test
+    void testLongPollReturnsOnChange() throws Exception {
+        // given
+        String cursor = latestCursor();
+        MvcResult waiting = mockMvc.perform(get("/api/cards/changes")
+                        .param("cursor", cursor)
+                        .param("waitMs", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // when
+        Long cardId = createCard(1);
+
+        // then
+        JsonNode changes = objectMapper.readTree(mockMvc.perform(asyncDispatch(waiting))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(List.of(cardId), cardIdsOf(changes));
+    }
+
+    @Test
+    void testLongPollTimesOutEmpty() throws Exception {
+        // given
+        String cursor = latestCursor();
+
+        // when
+        JsonNode changes = changes(cursor, 10, 100);
+
+        // then
+        assertTrue(cardIdsOf(changes).isEmpty());
+        assertEquals(cursor, changes.get("cursor").asText());
+        assertFalse(changes.get("hasMore").asBoolean());
+    }
+
+    @Test
+    void testInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/cards/changes").param("cursor", "abc"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/cards/changes").param("waitMs", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String latestCursor() throws Exception {
+        JsonNode page = changes("", 1000, 0);
+        while (page.get("hasMore").asBoolean()) {
+            page = changes(page.get("cursor").asText(), 1000, 0);
+        }
+        return page.get("cursor").asText();
+    }
+
+    private JsonNode changes(String cursor, int pageSize, long waitMillis) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/cards/changes")
+                        .param("cursor", cursor)
+                        .param("pageSize", String.valueOf(pageSize))
+                        .param("waitMs", String.valueOf(waitMillis)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private Long createCard(int number) throws Exception {
+        CreateCardCommand command = new CreateCardCommand();
+        command.setRfidUid("changeRfidUid" + number);
+        command.setVisibleNumber("change" + number);
+        String created = mockMvc.perform(post("/api/cards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(created).get("cardId").asLong();
+    }
+
+    private long createActivatedAccount(String email) throws Exception {
+        String created = mockMvc.perform(post("/api/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"" + email + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long accountId = objectMapper.readTree(created).get("accountId").asLong();
+        mockMvc.perform(patch("/api/accounts/{id}/status", accountId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetStatus\": \"ACTIVATED\"}"))
+                .andExpect(status().isNoContent());
+        return accountId;
+    }
+
+    private static List<Long> cardIdsOf(JsonNode page) {
+        List<Long> cardIds = new ArrayList<>();
+        page.get("content").forEach(card -> cardIds.add(card.get("cardId").asLong()));
+        return cardIds;
+    }
+}
@@ -0,0 +1,171 @@
+package com.volvo.emsp.rest.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volvo.emsp.application.service.TokenAuthorizationIndex;
+import com.volvo.emsp.rest.ImportStreams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not transactional: every batch commits on its own, so every test removes its rows again.
+ * Batches of two rows, so the files below span several batches.
+ */
+@ActiveProfiles("integration-test")
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "app.import.batch-size=2")
+public class CardImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TokenAuthorizationIndex tokenAuthorizationIndex;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM cards WHERE rfid_uid LIKE 'importRfidUid%'");
+    }
+
+    @Test
+    void testImportNdjson() throws Exception {
+        // given
+        String body = """
+                {"rfidUid": "importRfidUid01", "visibleNumber": "import01"}
+                {"rfidUid": "", "visibleNumber": "import02"}
+
+                {"rfidUid": "importRfidUid01", "visibleNumber": "import03"}
+                not json
+                {"rfidUid": "importRfidUid05", "visibleNumber": "import05"}
+                """;
+
+        // when
+        List<JsonNode> results = importCards(MediaType.APPLICATION_NDJSON_VALUE, body);
+
+        // then
+        assertEquals(5, results.size());
+        assertCreated(results.get(0), 1, "importRfidUid01");
+        assertRejected(results.get(1), 2, "RFID UID must not be blank.");
+        assertRejected(results.get(2), 4, "Card with RFID UID already exists: importRfidUid01");
+        assertEquals(5, results.get(3).get("line").asLong());
+        assertTrue(results.get(3).get("error").asText().startsWith("Invalid JSON"));
+        assertCreated(results.get(4), 6, "importRfidUid05");
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cards WHERE rfid_uid LIKE 'importRfidUid%'", Integer.class));
+    }
+
+    @Test
+    void testImportCsv() throws Exception {
+        // given
+        String body = """
+                rfidUid,visibleNumber
+                importRfidUid11,import11
+                "importRfidUid12","import,12"
+                importRfidUid13
+                importRfidUid14,import11
+                """;
+
+        // when
+        List<JsonNode> results = importCards(ImportStreams.TEXT_CSV_VALUE, body);
+
+        // then
+        assertEquals(4, results.size());
+        assertCreated(results.get(0), 2, "importRfidUid11");
+        assertCreated(results.get(1), 3, "importRfidUid12");
+        assertRejected(results.get(2), 4, "Expected 2 columns: rfidUid,visibleNumber");
+        assertRejected(results.get(3), 5, "Card with visible number already exists: import11");
+        assertEquals("import,12", jdbcTemplate.queryForObject(
+                "SELECT visible_number FROM cards WHERE rfid_uid = 'importRfidUid12'", String.class));
+    }
+
+    @Test
+    void testDuplicatesDifferingInCaseAreRejected() throws Exception {
+        // given
+        String body = """
+                {"rfidUid": "importRfidUid41", "visibleNumber": "import41"}
+                {"rfidUid": "IMPORTRFIDUID41", "visibleNumber": "import42"}
+                {"rfidUid": "importRfidUid43", "visibleNumber": "import43"}
+                {"rfidUid": "importRfidUid44", "visibleNumber": "IMPORT43"}
+                """;
+
+        // when, two rows per chunk
+        List<JsonNode> results = importCards(MediaType.APPLICATION_NDJSON_VALUE, body);
+
+        // then
+        assertCreated(results.get(0), 1, "importRfidUid41");
+        assertRejected(results.get(1), 2, "Card with RFID UID already exists: IMPORTRFIDUID41");
+        assertCreated(results.get(2), 3, "importRfidUid43");
+        assertRejected(results.get(3), 4, "Card with visible number already exists: IMPORT43");
+    }
+
+    @Test
+    void testImportedCardIsAuthorized() throws Exception {
+        // given
+        tokenAuthorizationIndex.refresh();
+
+        // when
+        importCards(MediaType.APPLICATION_NDJSON_VALUE, "{\"rfidUid\": \"importRfidUid21\", \"visibleNumber\": \"import21\"}");
+
+        // then
+        mockMvc.perform(get("/api/tokens/importRfidUid21/authorization"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardStatus").value("CREATED"));
+    }
+
+    @Test
+    void testUnsupportedMediaType() throws Exception {
+        mockMvc.perform(post("/api/cards/import")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("importRfidUid31,import31"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    private List<JsonNode> importCards(String contentType, String body) throws Exception {
+        String response = mockMvc.perform(post("/api/cards/import")
+                        .contentType(contentType)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static void assertCreated(JsonNode result, long line, String rfidUid) {
+        assertEquals(line, result.get("line").asLong());
+        assertEquals("CREATED", result.get("status").asText());
+        assertEquals(rfidUid, result.get("rfidUid").asText());
+        assertTrue(result.get("cardId").isNumber());
+        assertNull(result.get("error"));
+    }
+
+    private static void assertRejected(JsonNode result, long line, String error) {
+        assertEquals(line, result.get("line").asLong());
+        assertEquals("REJECTED", result.get("status").asText());
+        assertEquals(error, result.get("error").asText());
+        assertNull(result.get("cardId"));
+    }
+}
@@ -1,9 +1,11 @@
 package com.volvo.emsp.rest.integration;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.volvo.emsp.application.command.ChangeAccountStatusCommand;
 import com.volvo.emsp.application.command.ChangeCardStatusCommand;
+import com.volvo.emsp.application.command.ChangeCardStatusItem;
 import com.volvo.emsp.application.command.CreateAccountCommand;
 import com.volvo.emsp.application.command.CreateCardCommand;
 import com.volvo.emsp.application.dto.AccountDTO;
@@ -17,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,8 +27,10 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -178,6 +183,69 @@ public class CardResourceIntegrationTest {
         assertThat(page.getContent()).isEmpty();
     }
 
+    @Test
+    void findCardsWithTooLargePageSize() throws Exception {
+        mockMvc.perform(get("/api/cards")
+                        .param("pageSize", "500000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details[0]").value("Page size must not be greater than 1000"));
+        mockMvc.perform(get("/api/cards")
+                        .param("count", "estimated")
+                        .param("pageSize", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findCardsWithEstimatedCount() throws Exception {
+        mockMvc.perform(get("/api/cards")
+                        .param("count", "estimated")
+                        .param("pageNumber", "0")
+                        .param("pageSize", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isNotEmpty())
+                .andExpect(jsonPath("$.page.number").value(0))
+                .andExpect(jsonPath("$.page.size").value(5))
+                .andExpect(jsonPath("$.page.hasNext").value(false))
+                .andExpect(jsonPath("$.page.totalElements").doesNotExist());
+    }
+
+    @Test
+    void scanCardsByCursor() throws Exception {
+        CreateCardCommand command = new CreateCardCommand();
+        command.setRfidUid("rfidUid0002");
+        command.setVisibleNumber("0002");
+        mockMvc.perform(post("/api/cards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isCreated());
+
+        JsonNode first = scanCards("", "1");
+        assertThat(first.get("content")).hasSize(1);
+        assertThat(first.get("nextCursor").isTextual()).isTrue();
+
+        JsonNode second = scanCards(first.get("nextCursor").asText(), "1");
+        assertThat(second.get("content")).hasSize(1);
+        assertThat(second.get("content").get(0).get("cardId"))
+                .isNotEqualTo(first.get("content").get(0).get("cardId"));
+        assertThat(second.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void scanCardsWithEstimatedCount() throws Exception {
+        mockMvc.perform(get("/api/cards")
+                        .param("cursor", "")
+                        .param("count", "estimated"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details[0]").value("count and cursor cannot be combined"));
+    }
+
+    @Test
+    void scanCardsWithInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/cards").param("cursor", "abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details[0]").value("Invalid cursor: abc"));
+    }
+
     @Test
     void assignCardOK() throws Exception {
         // first get a card ID
@@ -289,6 +357,119 @@ public class CardResourceIntegrationTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void activateUnassignedCard() throws Exception {
+        // given
+        Long cardId = fetchACardId();
+        ChangeCardStatusCommand activateCommand = new ChangeCardStatusCommand();
+        activateCommand.setTargetStatus(CardStatus.ACTIVATED.name());
+
+        // when
+        mockMvc.perform(patch("/api/cards/{id}/status", cardId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(activateCommand)))
+                // then
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.details[0]").value("Invalid status transition: CREATED → ACTIVATED"));
+        mockMvc.perform(patch("/api/cards/{id}/status", 999L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(activateCommand)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void assignCardIfMatch() throws Exception {
+        // given
+        Long cardId = fetchACardId();
+        Long accountId = createAnNewAccountAndGetId();
+        activateAccount(accountId);
+        String eTag = mockMvc.perform(get("/api/cards/" + cardId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        ChangeCardStatusCommand assignCommand = new ChangeCardStatusCommand();
+        assignCommand.setAssignToAccount(accountId);
+        assignCommand.setTargetStatus(CardStatus.ASSIGNED.name());
+
+        // when stale version
+        mockMvc.perform(patch("/api/cards/{id}/status", cardId)
+                        .header(HttpHeaders.IF_MATCH, "\"999\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(assignCommand)))
+                // then
+                .andExpect(status().isPreconditionFailed());
+
+        // when matching version
+        mockMvc.perform(patch("/api/cards/{id}/status", cardId)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(assignCommand)))
+                // then
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/cards/" + cardId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.status").value(CardStatus.ASSIGNED.name()));
+    }
+
+    @Test
+    void changeCardStatusesInBulk() throws Exception {
+        // given
+        Long cardId = fetchACardId();
+        Long accountId = createAnNewAccountAndGetId();
+        activateAccount(accountId);
+        Long unassignedCardId = createACardAndGetId("rfidUid0003", "0003");
+        List<ChangeCardStatusItem> items = List.of(
+                changeCardStatusItem(cardId, CardStatus.ASSIGNED, accountId),
+                changeCardStatusItem(cardId, CardStatus.ACTIVATED, null),
+                changeCardStatusItem(unassignedCardId, CardStatus.ACTIVATED, null),
+                changeCardStatusItem(unassignedCardId, CardStatus.ASSIGNED, 999L),
+                changeCardStatusItem(999L, CardStatus.ACTIVATED, null));
+
+        // when
+        mockMvc.perform(patch("/api/cards/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(items)))
+                // then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].result").value("UPDATED"))
+                .andExpect(jsonPath("$[0].status").value(CardStatus.ASSIGNED.name()))
+                .andExpect(jsonPath("$[1].result").value("UPDATED"))
+                .andExpect(jsonPath("$[1].status").value(CardStatus.ACTIVATED.name()))
+                .andExpect(jsonPath("$[2].result").value("REJECTED"))
+                .andExpect(jsonPath("$[2].error").value("Invalid status transition: CREATED → ACTIVATED"))
+                .andExpect(jsonPath("$[3].error").value("Account not found: 999"))
+                .andExpect(jsonPath("$[4].cardId").value(999))
+                .andExpect(jsonPath("$[4].error").value("Card not found: 999"));
+        mockMvc.perform(get("/api/cards/" + cardId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(CardStatus.ACTIVATED.name()))
+                .andExpect(jsonPath("$.accountId").value(accountId));
+        mockMvc.perform(get("/api/cards/" + unassignedCardId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(CardStatus.CREATED.name()));
+    }
+
+    private Long createACardAndGetId(String rfidUid, String visibleNumber) throws Exception {
+        CreateCardCommand command = new CreateCardCommand();
+        command.setRfidUid(rfidUid);
+        command.setVisibleNumber(visibleNumber);
+        MvcResult result = mockMvc.perform(post("/api/cards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isCreated()).andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), CardDTO.class).getCardId();
+    }
+
+    private static ChangeCardStatusItem changeCardStatusItem(Long cardId, CardStatus targetStatus, Long accountId) {
+        ChangeCardStatusItem item = new ChangeCardStatusItem();
+        item.setCardId(cardId);
+        item.setTargetStatus(targetStatus.name());
+        item.setAssignToAccount(accountId);
+        return item;
+    }
+
     private Long createAnNewAccountAndGetId() throws Exception {
         return createAnNewAccountAndGetId(Emails.EMAIL1);
     }
@@ -313,6 +494,15 @@ public class CardResourceIntegrationTest {
         return page.getContent().getFirst().getCardId();
     }
 
+    private JsonNode scanCards(String cursor, String pageSize) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/cards")
+                        .param("cursor", cursor)
+                        .param("pageSize", pageSize))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
     private void activateAccount(Long accountId) throws Exception {
         ChangeAccountStatusCommand changeAccountStatusCommand = new ChangeAccountStatusCommand();
         changeAccountStatusCommand.setTargetStatus(AccountStatus.ACTIVATED.name());
@@ -0,0 +1,144 @@
+package com.volvo.emsp.rest.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volvo.emsp.application.command.CreateAccountCommand;
+import com.volvo.emsp.application.command.CreateCardCommand;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not transactional: the export streams on an async thread in its own transaction, so the rows it reads must be
+ * committed. Every test removes its rows again.
+ */
+@ActiveProfiles("integration-test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ExportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM cards WHERE rfid_uid LIKE 'exportRfidUid%'");
+        jdbcTemplate.update("DELETE FROM accounts WHERE email LIKE 'export%@example.com'");
+    }
+
+    @Test
+    void testExportsRunOnTheirOwnPool() {
+        // when
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) ReflectionTestUtils.getField(
+                handlerAdapter, "taskExecutor");
+
+        // then
+        assertNotNull(executor);
+        assertEquals("mvc-async-", executor.getThreadNamePrefix());
+        assertEquals(8, executor.getMaxPoolSize());
+    }
+
+    @Test
+    void testExportCards() throws Exception {
+        // given
+        OffsetDateTime from = OffsetDateTime.now().minusSeconds(1);
+        List<Long> cardIds = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            CreateCardCommand command = new CreateCardCommand();
+            command.setRfidUid("exportRfidUid" + i);
+            command.setVisibleNumber("export" + i);
+            String created = mockMvc.perform(post("/api/cards")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(command)))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            cardIds.add(objectMapper.readTree(created).get("cardId").asLong());
+        }
+
+        // when
+        List<JsonNode> rows = export("/api/cards/export", from);
+
+        // then newest update first
+        List<Long> exported = rows.stream()
+                .filter(row -> row.get("rfidUid").asText().startsWith("exportRfidUid"))
+                .map(row -> row.get("cardId").asLong())
+                .toList();
+        assertEquals(cardIds.reversed(), exported);
+        assertEquals("CREATED", rows.getFirst().get("status").asText());
+    }
+
+    @Test
+    void testExportAccounts() throws Exception {
+        // given
+        OffsetDateTime from = OffsetDateTime.now().minusSeconds(1);
+        for (int i = 1; i <= 2; i++) {
+            CreateAccountCommand command = new CreateAccountCommand();
+            command.setEmail("export" + i + "@example.com");
+            mockMvc.perform(post("/api/accounts")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(command)))
+                    .andExpect(status().isCreated());
+        }
+
+        // when
+        List<JsonNode> rows = export("/api/accounts/export", from);
+
+        // then
+        List<String> exported = rows.stream()
+                .map(row -> row.get("email").asText())
+                .filter(email -> email.startsWith("export"))
+                .toList();
+        assertEquals(List.of("export2@example.com", "export1@example.com"), exported);
+        assertTrue(rows.getFirst().get("emaid").isTextual());
+    }
+
+    @Test
+    void testExportNothing() throws Exception {
+        // when
+        List<JsonNode> rows = export("/api/cards/export", OffsetDateTime.now().plusDays(1));
+
+        // then
+        assertTrue(rows.isEmpty());
+    }
+
+    private List<JsonNode> export(String path, OffsetDateTime from) throws Exception {
+        MvcResult started = mockMvc.perform(get(path).param("lastUpdatedFrom", from.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            if (!line.isEmpty()) {
+                rows.add(objectMapper.readTree(line));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,177 @@
+package com.volvo.emsp.rest.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.volvo.emsp.application.command.ChangeAccountStatusCommand;
+import com.volvo.emsp.application.command.ChangeCardStatusCommand;
+import com.volvo.emsp.application.command.CreateAccountCommand;
+import com.volvo.emsp.application.command.CreateCardCommand;
+import com.volvo.emsp.application.dto.AccountDTO;
+import com.volvo.emsp.application.dto.CardDTO;
+import com.volvo.emsp.application.service.TokenAuthorizationIndex;
+import com.volvo.emsp.domain.model.Card;
+import com.volvo.emsp.domain.repository.CardRepository;
+import com.volvo.emsp.domain.service.IdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not transactional: the index only sees committed changes, so every test removes its rows again.
+ */
+@ActiveProfiles("integration-test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class TokenResourceIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TokenAuthorizationIndex tokenAuthorizationIndex;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private IdGenerator idGenerator;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    private final List<Long> createdAccounts = new ArrayList<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        tokenAuthorizationIndex.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM domain_events WHERE aggregate_id IN (SELECT card_id FROM cards WHERE rfid_uid LIKE 'tokenRfidUid%')");
+        jdbcTemplate.update("DELETE FROM cards WHERE rfid_uid LIKE 'tokenRfidUid%'");
+        createdAccounts.forEach(accountId -> jdbcTemplate.update("DELETE FROM accounts WHERE account_id = ?", accountId));
+        createdAccounts.clear();
+    }
+
+    @Test
+    void authorizeActivatedToken() throws Exception {
+        // given
+        CardDTO card = createCard("tokenRfidUid0001", "token0001");
+        AccountDTO account = createAccount("token1@example.com");
+        changeAccountStatus(account.getAccountId(), "ACTIVATED");
+        changeCardStatus(card.getCardId(), "ASSIGNED", account.getAccountId());
+        changeCardStatus(card.getCardId(), "ACTIVATED", null);
+
+        // when & then
+        mockMvc.perform(get("/api/tokens/tokenRfidUid0001/authorization"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.allowed").value(true))
+                .andExpect(jsonPath("$.cardStatus").value("ACTIVATED"))
+                .andExpect(jsonPath("$.accountStatus").value("ACTIVATED"))
+                .andExpect(jsonPath("$.contractId").value(account.getEmaid()));
+
+        // when
+        changeAccountStatus(account.getAccountId(), "DEACTIVATED");
+
+        // then
+        mockMvc.perform(get("/api/tokens/tokenRfidUid0001/authorization"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.allowed").value(false))
+                .andExpect(jsonPath("$.accountStatus").value("DEACTIVATED"));
+    }
+
+    @Test
+    void authorizeUnassignedToken() throws Exception {
+        // given
+        createCard("tokenRfidUid0002", "token0002");
+
+        // when & then
+        mockMvc.perform(get("/api/tokens/tokenRfidUid0002/authorization"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.allowed").value(false))
+                .andExpect(jsonPath("$.cardStatus").value("CREATED"))
+                .andExpect(jsonPath("$.accountStatus").isEmpty());
+    }
+
+    @Test
+    void authorizeTokenWrittenByAnotherNode() throws Exception {
+        // given: written without the application service, like another node would
+        transactionTemplate.executeWithoutResult(status ->
+                cardRepository.create(new Card(idGenerator.nextId(), "tokenRfidUid0003", "token0003")));
+        mockMvc.perform(get("/api/tokens/tokenRfidUid0003/authorization"))
+                .andExpect(status().isNotFound());
+
+        // when
+        tokenAuthorizationIndex.refresh();
+
+        // then
+        mockMvc.perform(get("/api/tokens/tokenRfidUid0003/authorization"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardStatus").value("CREATED"));
+    }
+
+    @Test
+    void authorizeUnknownToken() throws Exception {
+        mockMvc.perform(get("/api/tokens/unknownRfidUid/authorization"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.details[0]").value("Token not found: unknownRfidUid"));
+    }
+
+    private CardDTO createCard(String rfidUid, String visibleNumber) throws Exception {
+        CreateCardCommand command = new CreateCardCommand();
+        command.setRfidUid(rfidUid);
+        command.setVisibleNumber(visibleNumber);
+        String body = mockMvc.perform(post("/api/cards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, CardDTO.class);
+    }
+
+    private AccountDTO createAccount(String email) throws Exception {
+        CreateAccountCommand command = new CreateAccountCommand();
+        command.setEmail(email);
+        String body = mockMvc.perform(post("/api/accounts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        AccountDTO account = objectMapper.readValue(body, AccountDTO.class);
+        createdAccounts.add(account.getAccountId());
+        return account;
+    }
+
+    private void changeAccountStatus(Long accountId, String targetStatus) throws Exception {
+        ChangeAccountStatusCommand command = new ChangeAccountStatusCommand();
+        command.setTargetStatus(targetStatus);
+        mockMvc.perform(patch("/api/accounts/" + accountId + "/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isNoContent());
+    }
+
+    private void changeCardStatus(Long cardId, String targetStatus, Long accountId) throws Exception {
+        ChangeCardStatusCommand command = new ChangeCardStatusCommand();
+        command.setTargetStatus(targetStatus);
+        command.setAssignToAccount(accountId);
+        mockMvc.perform(patch("/api/cards/" + cardId + "/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isNoContent());
+    }
+}